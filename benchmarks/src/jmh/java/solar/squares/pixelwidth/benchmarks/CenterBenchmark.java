@@ -0,0 +1,136 @@
+/*
+ * This file is part of pixel-width, licensed under the MIT License.
+ *
+ * Copyright (c) 2022 KingOfSquares
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package solar.squares.pixelwidth.benchmarks;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.function.Function;
+import net.kyori.adventure.text.Component;
+import net.kyori.adventure.text.TextComponent;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import solar.squares.pixelwidth.ContextualPixelWidthSource;
+import solar.squares.pixelwidth.PixelWidthSource;
+import solar.squares.pixelwidth.TableCharacterWidthFunction;
+import solar.squares.pixelwidth.function.ChatWidthFunction;
+import solar.squares.pixelwidth.utils.CenterAPI;
+import solar.squares.pixelwidth.utils.PaddingSynthesizer;
+
+/**
+ * Measures every {@link CenterAPI} overload on scoreboard and chat lines, one line per operation.
+ */
+@State(Scope.Benchmark)
+public class CenterBenchmark {
+  private static final float CHAT_WIDTH = 320;
+
+  private final PixelWidthSource source = PixelWidthSource.pixelWidth();
+  private final ContextualPixelWidthSource<Locale> contextual = ContextualPixelWidthSource.contextualPixelWidth(locale -> TableCharacterWidthFunction.DEFAULT);
+  private final ChatWidthFunction<Locale> chatWidth = locale -> CHAT_WIDTH;
+  private final Function<Locale, Float> boxedChatWidth = locale -> CHAT_WIDTH;
+  private final TextComponent padding = Component.text("-");
+  private final float paddingWidth = this.source.width(this.padding);
+  private final PaddingSynthesizer synthesizer = PaddingSynthesizer.SPACES;
+  private final List<Component> components = Corpus.components(Corpus.Kind.SCOREBOARD);
+  private final float[] widths = new float[this.components.size()];
+  private int next;
+
+  {
+    for (int i = 0; i < this.widths.length; i++) this.widths[i] = this.source.width(this.components.get(i));
+  }
+
+  private int next() {
+    final int index = this.next;
+    this.next = index + 1 == this.widths.length ? 0 : index + 1;
+    return index;
+  }
+
+  @Benchmark
+  public Component knownWidths() {
+    final int i = this.next();
+    return CenterAPI.center(this.components.get(i), this.widths[i], this.padding, this.paddingWidth, CHAT_WIDTH);
+  }
+
+  @Benchmark
+  public Component knownWidthSynthesized() {
+    final int i = this.next();
+    return CenterAPI.center(this.components.get(i), this.widths[i], this.synthesizer, CHAT_WIDTH);
+  }
+
+  @Benchmark
+  public Component contextualSynthesized() {
+    return CenterAPI.center(this.components.get(this.next()), this.contextual, Locale.US, this.synthesizer, this.chatWidth);
+  }
+
+  @Benchmark
+  public Component sourceSynthesized() {
+    return CenterAPI.center(this.components.get(this.next()), this.source, this.synthesizer, CHAT_WIDTH);
+  }
+
+  @Benchmark
+  @SuppressWarnings("deprecation")
+  public Component contextualBoxedChatWidth() {
+    return CenterAPI.center(this.components.get(this.next()), this.contextual, Locale.US, this.padding, this.boxedChatWidth);
+  }
+
+  @Benchmark
+  public Component contextualChatWidthFunction() {
+    return CenterAPI.center(this.components.get(this.next()), this.contextual, Locale.US, this.padding, this.chatWidth);
+  }
+
+  @Benchmark
+  public Component contextualChatWidth() {
+    return CenterAPI.center(this.components.get(this.next()), this.contextual, Locale.US, this.padding, CHAT_WIDTH);
+  }
+
+  @Benchmark
+  public Component contextualDefaults() {
+    return CenterAPI.center(this.components.get(this.next()), this.contextual, Locale.US);
+  }
+
+  @Benchmark
+  public Component sourceChatWidth() {
+    return CenterAPI.center(this.components.get(this.next()), this.source, this.padding, CHAT_WIDTH);
+  }
+
+  @Benchmark
+  public Component sourcePadding() {
+    return CenterAPI.center(this.components.get(this.next()), this.source, this.padding);
+  }
+
+  @Benchmark
+  public Component padding() {
+    return CenterAPI.center(this.components.get(this.next()), this.padding);
+  }
+
+  @Benchmark
+  public Component source() {
+    return CenterAPI.center(this.components.get(this.next()), this.source);
+  }
+
+  @Benchmark
+  public Component defaults() {
+    return CenterAPI.center(this.components.get(this.next()));
+  }
+}
@@ -0,0 +1,111 @@
+/*
+ * This file is part of pixel-width, licensed under the MIT License.
+ *
+ * Copyright (c) 2022 KingOfSquares
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package solar.squares.pixelwidth.benchmarks;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.function.Function;
+import net.kyori.adventure.text.Component;
+import net.kyori.adventure.text.format.Style;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import solar.squares.pixelwidth.CharacterWidthFunctionCache;
+import solar.squares.pixelwidth.CompiledComponent;
+import solar.squares.pixelwidth.ContextualPixelWidthSource;
+import solar.squares.pixelwidth.TableCharacterWidthFunction;
+import solar.squares.pixelwidth.function.CharacterWidthFunction;
+
+/**
+ * Measures with a contextual source that picks a character width function per player locale, with
+ * the function resolved on every call and through a {@link CharacterWidthFunctionCache}.
+ *
+ * <p>{@link #compiled()} measures the same components compiled ahead of time, as a server broadcasting
+ * to players with different locales would.</p>
+ */
+@State(Scope.Benchmark)
+public class ContextualBenchmark {
+  private static final Locale[] LOCALES = {Locale.US, Locale.GERMANY, Locale.JAPAN, Locale.forLanguageTag("ru-RU")};
+  private static final CharacterWidthFunction WIDE = (codepoint, style) -> TableCharacterWidthFunction.DEFAULT.widthOf(codepoint, style) + 1;
+
+  @Param({"direct", "cached"})
+  public String resolution;
+
+  private ContextualPixelWidthSource<Player> source;
+  private Player[] players;
+  private List<Component> components;
+  private CompiledComponent[] compiled;
+  private int period;
+  private int next;
+
+  @Setup
+  public void setup() {
+    final Function<Player, CharacterWidthFunction> resolver = player -> player == null || player.locale.getLanguage().equals("en") ? TableCharacterWidthFunction.DEFAULT : WIDE;
+    this.source = ContextualPixelWidthSource.contextualPixelWidth(this.resolution.equals("cached") ? CharacterWidthFunctionCache.weak(resolver) : resolver);
+    this.players = new Player[LOCALES.length];
+    for (int i = 0; i < LOCALES.length; i++) this.players[i] = new Player(LOCALES[i]);
+    this.components = Corpus.components(Corpus.Kind.CHAT);
+    this.compiled = new CompiledComponent[this.components.size()];
+    for (int i = 0; i < this.compiled.length; i++) this.compiled[i] = CompiledComponent.compile(this.components.get(i));
+    // every line is measured for every player before the sequence repeats
+    this.period = this.components.size() * LOCALES.length;
+  }
+
+  private int next() {
+    final int index = this.next;
+    this.next = index + 1 == this.period ? 0 : index + 1;
+    return index;
+  }
+
+  @Benchmark
+  public float component() {
+    final int index = this.next();
+    return this.source.width(this.components.get(index % this.components.size()), this.players[index & (LOCALES.length - 1)]);
+  }
+
+  @Benchmark
+  public float compiled() {
+    final int index = this.next();
+    return this.source.width(this.compiled[index % this.compiled.length], this.players[index & (LOCALES.length - 1)]);
+  }
+
+  @Benchmark
+  public float string() {
+    final int index = this.next();
+    return this.source.width(Corpus.Kind.CHAT.lines[index % Corpus.Kind.CHAT.lines.length], Style.empty(), this.players[index & (LOCALES.length - 1)]);
+  }
+
+  /**
+   * A stand-in for a player, the context most servers measure with.
+   */
+  static final class Player {
+    final Locale locale;
+
+    Player(final Locale locale) {
+      this.locale = locale;
+    }
+  }
+}
@@ -0,0 +1,173 @@
+/*
+ * This file is part of pixel-width, licensed under the MIT License.
+ *
+ * Copyright (c) 2022 KingOfSquares
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package solar.squares.pixelwidth.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import net.kyori.adventure.key.Key;
+import net.kyori.adventure.text.Component;
+import net.kyori.adventure.text.format.NamedTextColor;
+import net.kyori.adventure.text.format.Style;
+import net.kyori.adventure.text.format.TextDecoration;
+import solar.squares.pixelwidth.Logging;
+
+import static net.kyori.adventure.text.Component.text;
+
+/**
+ * Text shaped like what servers measure: chat lines, item lore, scoreboard rows and mixed Unicode.
+ */
+public final class Corpus {
+  private static final Key UNIFORM = Key.key("minecraft", "uniform");
+
+  static {
+    // Missing glyphs would otherwise measure the logger
+    final Logger silent = Logger.getLogger("pixel-width-benchmarks");
+    silent.setLevel(Level.OFF);
+    Logging.logger(silent);
+  }
+
+  private Corpus() {
+  }
+
+  /**
+   * A kind of text found on servers, public for the code JMH generates for {@code @Param} fields.
+   */
+  public enum Kind {
+    CHAT(
+      "<Steve> anyone want to trade diamonds for emeralds?",
+      "<Alex> gg, that was close",
+      "[Server] Restarting in 5 minutes, please find a safe spot!",
+      "<xX_Builder_Xx> check out my castle at 1024, 64, -300",
+      "<Notch> hi"
+    ),
+    LORE(
+      "Sharpness V",
+      "Unbreaking III",
+      "A blade forged in the depths of the Nether.",
+      "When in Main Hand:",
+      " 8 Attack Damage",
+      " 1.6 Attack Speed"
+    ),
+    SCOREBOARD(
+      "Kills: 12",
+      "Deaths: 3",
+      "Coins: 1,024,500",
+      "Map: Volcano Island",
+      "play.example.net"
+    ),
+    UNICODE(
+      "Grüße aus Köln, schöne Straße!",
+      "Привет, как дела?",
+      "¡Hola! ¿Qué tal?",
+      "こんにちは世界",
+      "Ünïcödé ßtrîñg with àccents",
+      "Ancient 𐆒 symbols" // 𐆒
+    );
+
+    final String[] lines;
+
+    Kind(final String... lines) {
+      this.lines = lines;
+    }
+  }
+
+  /**
+   * Builds the component a server would send for a line of text.
+   *
+   * @param kind the kind of text
+   * @param line the line
+   * @return a component
+   */
+  static Component component(final Kind kind, final String line) {
+    switch (kind) {
+      case CHAT:
+        final int name = line.indexOf('>');
+        if (name < 0) return text(line, NamedTextColor.YELLOW);
+        return text()
+          .append(text(line.substring(0, name + 1), NamedTextColor.GRAY))
+          .append(text(line.substring(name + 1), NamedTextColor.WHITE))
+          .build();
+      case LORE:
+        return text(line, Style.style(NamedTextColor.DARK_PURPLE, TextDecoration.ITALIC));
+      case SCOREBOARD:
+        final int colon = line.indexOf(':');
+        if (colon < 0) return text(line, NamedTextColor.YELLOW);
+        return text()
+          .append(text(line.substring(0, colon + 1), NamedTextColor.WHITE))
+          .append(text(line.substring(colon + 1), Style.style(NamedTextColor.GREEN, TextDecoration.BOLD)))
+          .build();
+      default:
+        return text(line, Style.style().font(UNIFORM).build());
+    }
+  }
+
+  /**
+   * Builds the components of every line of a kind.
+   *
+   * @param kind the kind of text
+   * @return the components
+   */
+  static List<Component> components(final Kind kind) {
+    final List<Component> components = new ArrayList<>(kind.lines.length);
+    for (final String line : kind.lines) components.add(component(kind, line));
+    return components;
+  }
+
+  /**
+   * Builds a tree where every component has a short text and one child, alternating styles like
+   * formatted chat produced by plugins.
+   *
+   * @param depth the depth of the tree
+   * @return the root component
+   */
+  static Component deep(final int depth) {
+    Component child = text("end");
+    for (int i = depth - 1; i >= 0; i--) {
+      final Style.Builder style = Style.style();
+      if (i % 3 == 0) style.decoration(TextDecoration.BOLD, true);
+      if (i % 3 == 1) style.decoration(TextDecoration.BOLD, false);
+      if (i % 5 == 0) style.color(NamedTextColor.AQUA);
+      child = text().content("level " + i + " ").style(style.build()).append(child).build();
+    }
+    return child;
+  }
+
+  /**
+   * Builds a flat tree with many children, each a styled row of scoreboard text, like book exports
+   * and leaderboard dumps.
+   *
+   * @param children the number of children of the root
+   * @return the root component
+   */
+  static Component wide(final int children) {
+    final List<Component> rows = new ArrayList<>(children);
+    final String[] lines = Kind.SCOREBOARD.lines;
+    for (int i = 0; i < children; i++) {
+      rows.add(text(lines[i % lines.length] + " ", i % 4 == 0 ? Style.style(TextDecoration.BOLD) : Style.empty()));
+    }
+    return text("").children(rows);
+  }
+}
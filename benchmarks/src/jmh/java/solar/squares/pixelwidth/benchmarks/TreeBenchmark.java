@@ -0,0 +1,62 @@
+/*
+ * This file is part of pixel-width, licensed under the MIT License.
+ *
+ * Copyright (c) 2022 KingOfSquares
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package solar.squares.pixelwidth.benchmarks;
+
+import net.kyori.adventure.text.Component;
+import net.kyori.adventure.text.flattener.ComponentFlattener;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import solar.squares.pixelwidth.PixelWidthSource;
+
+/**
+ * Measures component trees of different depths, through the text component walker used with the
+ * basic flattener and through a custom flattener that always flattens.
+ */
+@State(Scope.Benchmark)
+public class TreeBenchmark {
+  @Param({"1", "8", "64"})
+  public int depth;
+
+  @Param({"walker", "flattener"})
+  public String traversal;
+
+  private PixelWidthSource source;
+  private Component component;
+
+  @Setup
+  public void setup() {
+    // A copy of the basic flattener is not identical to it, so it disables the walker
+    final ComponentFlattener flattener = this.traversal.equals("walker") ? ComponentFlattener.basic() : ComponentFlattener.basic().toBuilder().build();
+    this.source = PixelWidthSource.pixelWidth(flattener);
+    this.component = Corpus.deep(this.depth);
+  }
+
+  @Benchmark
+  public float width() {
+    return this.source.width(this.component);
+  }
+}
@@ -0,0 +1,65 @@
+/*
+ * This file is part of pixel-width, licensed under the MIT License.
+ *
+ * Copyright (c) 2022 KingOfSquares
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package solar.squares.pixelwidth.benchmarks;
+
+import net.kyori.adventure.text.Component;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import solar.squares.pixelwidth.ContextualPixelWidthSource;
+import solar.squares.pixelwidth.PixelWidthSource;
+import solar.squares.pixelwidth.TableCharacterWidthFunction;
+
+/**
+ * Measures components with many children sequentially and with the children split into fork join
+ * tasks on the common pool.
+ */
+@State(Scope.Benchmark)
+public class WideTreeBenchmark {
+  private static final int THRESHOLD = 1024;
+
+  @Param({"100", "10000", "100000"})
+  public int children;
+
+  @Param({"sequential", "parallel"})
+  public String traversal;
+
+  private PixelWidthSource source;
+  private Component component;
+
+  @Setup
+  public void setup() {
+    final ContextualPixelWidthSource.Builder<Object> builder = ContextualPixelWidthSource.builder(cx -> TableCharacterWidthFunction.DEFAULT);
+    if (this.traversal.equals("parallel")) builder.parallel(THRESHOLD);
+    this.source = builder.build();
+    this.component = Corpus.wide(this.children);
+  }
+
+  @Benchmark
+  public float width() {
+    return this.source.width(this.component);
+  }
+}
@@ -0,0 +1,91 @@
+/*
+ * This file is part of pixel-width, licensed under the MIT License.
+ *
+ * Copyright (c) 2022 KingOfSquares
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package solar.squares.pixelwidth.benchmarks;
+
+import java.util.List;
+import net.kyori.adventure.text.Component;
+import net.kyori.adventure.text.format.Style;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import solar.squares.pixelwidth.PixelWidthSource;
+import solar.squares.pixelwidth.TableCharacterWidthFunction;
+import solar.squares.pixelwidth.function.CharacterWidthFunction;
+
+/**
+ * Measures plain strings and shallow components of each kind of corpus text, one line per operation.
+ *
+ * <p>{@link #stringScalar()} measures with the default table hidden behind another function, which
+ * skips the Latin-1 bulk path and shows the cost of the per-codepoint loop.</p>
+ */
+@State(Scope.Benchmark)
+public class WidthBenchmark {
+  @Param({"CHAT", "LORE", "SCOREBOARD", "UNICODE"})
+  public Corpus.Kind kind;
+
+  private final PixelWidthSource source = PixelWidthSource.pixelWidth();
+  private final PixelWidthSource scalar = PixelWidthSource.pixelWidth(new CharacterWidthFunction() {
+    @Override
+    public float widthOf(final int codepoint, final Style style) {
+      return TableCharacterWidthFunction.DEFAULT.widthOf(codepoint, style);
+    }
+
+    @Override
+    public int fixedWidthOf(final int codepoint, final Style style) {
+      return TableCharacterWidthFunction.DEFAULT.fixedWidthOf(codepoint, style);
+    }
+  });
+  private String[] lines;
+  private List<Component> components;
+  private int next;
+
+  @Setup
+  public void setup() {
+    this.lines = this.kind.lines;
+    this.components = Corpus.components(this.kind);
+  }
+
+  private int next() {
+    final int index = this.next;
+    this.next = index + 1 == this.lines.length ? 0 : index + 1;
+    return index;
+  }
+
+  @Benchmark
+  public float string() {
+    return this.source.width(this.lines[this.next()], Style.empty());
+  }
+
+  @Benchmark
+  public float stringScalar() {
+    return this.scalar.width(this.lines[this.next()], Style.empty());
+  }
+
+  @Benchmark
+  public float component() {
+    return this.source.width(this.components.get(this.next()));
+  }
+}
@@ -0,0 +1,141 @@
+/*
+ * This file is part of pixel-width, licensed under the MIT License.
+ *
+ * Copyright (c) 2022 KingOfSquares
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package solar.squares.pixelwidth;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * A size bounded, thread safe cache evicting the least recently used entries.
+ *
+ * <p>Entries are spread over independently locked segments by hash, so concurrent readers only
+ * contend when they hit the same segment.</p>
+ *
+ * @param <K> the key type
+ * @param <V> the value type
+ */
+final class BoundedCache<K, V> {
+  private static final int MAX_SEGMENTS = 16;
+
+  private final Segment<K, V>[] segments;
+  private final int shift;
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+  private final LongAdder evictions = new LongAdder();
+
+  @SuppressWarnings("unchecked")
+  BoundedCache(final int maximumSize) {
+    if (maximumSize < 1) throw new IllegalArgumentException("maximumSize must be positive, was " + maximumSize);
+    int segmentCount = 1;
+    while (segmentCount < MAX_SEGMENTS && segmentCount * 2 <= maximumSize) segmentCount *= 2;
+    this.segments = (Segment<K, V>[]) new Segment<?, ?>[segmentCount];
+    this.shift = Integer.numberOfLeadingZeros(segmentCount - 1);
+    final int segmentSize = (maximumSize + segmentCount - 1) / segmentCount;
+    for (int i = 0; i < segmentCount; i++) {
+      this.segments[i] = new Segment<>(segmentSize, this.evictions);
+    }
+  }
+
+  private Segment<K, V> segment(final @NotNull Object key) {
+    if (this.segments.length == 1) return this.segments[0];
+    // The segment maps bucket by the low bits of the hash, so pick the segment from the high bits
+    return this.segments[key.hashCode() * 0x9E3779B9 >>> this.shift];
+  }
+
+  @Nullable V get(final @NotNull K key) {
+    final Segment<K, V> segment = this.segment(key);
+    final V value;
+    synchronized (segment) {
+      value = segment.get(key);
+    }
+    if (value == null) {
+      this.misses.increment();
+    } else {
+      this.hits.increment();
+    }
+    return value;
+  }
+
+  void put(final @NotNull K key, final @NotNull V value) {
+    final Segment<K, V> segment = this.segment(key);
+    synchronized (segment) {
+      segment.put(key, value);
+    }
+  }
+
+  void clear() {
+    for (final Segment<K, V> segment : this.segments) {
+      synchronized (segment) {
+        segment.clear();
+      }
+    }
+  }
+
+  void removeIf(final @NotNull Predicate<? super K> predicate) {
+    for (final Segment<K, V> segment : this.segments) {
+      synchronized (segment) {
+        segment.keySet().removeIf(predicate);
+      }
+    }
+  }
+
+  int size() {
+    int size = 0;
+    for (final Segment<K, V> segment : this.segments) {
+      synchronized (segment) {
+        size += segment.size();
+      }
+    }
+    return size;
+  }
+
+  @NotNull CacheStats stats() {
+    return new CacheStats(this.hits.sum(), this.misses.sum(), this.evictions.sum());
+  }
+
+  private static final class Segment<K, V> extends LinkedHashMap<K, V> {
+    private static final long serialVersionUID = 1L;
+    private final int maximumSize;
+    private final transient LongAdder evictions;
+
+    Segment(final int maximumSize, final LongAdder evictions) {
+      super(16, 0.75F, true);
+      this.maximumSize = maximumSize;
+      this.evictions = evictions;
+    }
+
+    @Override
+    protected boolean removeEldestEntry(final Map.Entry<K, V> eldest) {
+      if (this.size() > this.maximumSize) {
+        this.evictions.increment();
+        return true;
+      }
+      return false;
+    }
+  }
+}
@@ -0,0 +1,97 @@
+/*
+ * This file is part of pixel-width, licensed under the MIT License.
+ *
+ * Copyright (c) 2022 KingOfSquares
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package solar.squares.pixelwidth;
+
+/**
+ * A snapshot of the statistics of a width cache.
+ *
+ * @since 1.2.0
+ */
+public final class CacheStats {
+  private final long hits;
+  private final long misses;
+  private final long evictions;
+
+  CacheStats(final long hits, final long misses, final long evictions) {
+    this.hits = hits;
+    this.misses = misses;
+    this.evictions = evictions;
+  }
+
+  /**
+   * Gets the number of lookups that found a cached width.
+   *
+   * @return the number of hits
+   * @since 1.2.0
+   */
+  public long hits() {
+    return this.hits;
+  }
+
+  /**
+   * Gets the number of lookups that had to calculate the width.
+   *
+   * @return the number of misses
+   * @since 1.2.0
+   */
+  public long misses() {
+    return this.misses;
+  }
+
+  /**
+   * Gets the number of entries removed to stay within the size bound.
+   *
+   * @return the number of evictions
+   * @since 1.2.0
+   */
+  public long evictions() {
+    return this.evictions;
+  }
+
+  /**
+   * Gets the total number of lookups.
+   *
+   * @return the number of hits and misses
+   * @since 1.2.0
+   */
+  public long requests() {
+    return this.hits + this.misses;
+  }
+
+  /**
+   * Gets the ratio of lookups that found a cached width.
+   *
+   * @return the hit rate, {@code 1} if there have been no lookups
+   * @since 1.2.0
+   */
+  public double hitRate() {
+    final long requests = this.requests();
+    return requests == 0 ? 1 : (double) this.hits / requests;
+  }
+
+  @Override
+  public String toString() {
+    return "CacheStats{hits=" + this.hits + ", misses=" + this.misses + ", evictions=" + this.evictions + "}";
+  }
+}
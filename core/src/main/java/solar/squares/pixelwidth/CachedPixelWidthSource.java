@@ -0,0 +1,166 @@
+/*
+ * This file is part of pixel-width, licensed under the MIT License.
+ *
+ * Copyright (c) 2022 KingOfSquares
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package solar.squares.pixelwidth;
+
+import java.util.function.Function;
+import net.kyori.adventure.text.Component;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * A pixel width source remembering the width of components measured by another source.
+ *
+ * <p>Components are immutable, so the width of a component only depends on the component and on
+ * what the context changes about the measurement. By default that is the context itself, compared
+ * by reference and only weakly referenced, so the widths cached for a context are dropped once it is
+ * garbage collected. Contexts that always measure the same, like players sharing a locale, can share
+ * entries through {@link Builder#contextKey(Function)}.</p>
+ *
+ * <p>Only {@link #width(Component, Object)} is cached, text and characters are passed through.</p>
+ *
+ * @param <CX> a context type (player, server, locale)
+ * @since 1.2.0
+ */
+public interface CachedPixelWidthSource<CX> extends ContextualPixelWidthSource<CX> {
+
+  /**
+   * Creates a builder for a cache in front of the given source.
+   *
+   * @param source the source used to calculate widths that are not cached
+   * @param <CX>   a context type (player, server, locale)
+   * @return a builder
+   * @since 1.2.0
+   */
+  static <CX> @NotNull Builder<CX> builder(final @NotNull ContextualPixelWidthSource<CX> source) {
+    return new CachedPixelWidthSourceImpl.BuilderImpl<>(source);
+  }
+
+  /**
+   * Creates a builder for a cache in front of the given source.
+   *
+   * @param source the source used to calculate widths that are not cached
+   * @return a builder
+   * @since 1.2.0
+   */
+  @SuppressWarnings("unchecked")
+  static @NotNull Builder<Object> builder(final @NotNull PixelWidthSource source) {
+    if (source instanceof ContextualPixelWidthSource) {
+      return builder((ContextualPixelWidthSource<Object>) source);
+    }
+    return builder(new ContextlessPixelWidthSource(source));
+  }
+
+  /**
+   * Gets a snapshot of the statistics of this cache.
+   *
+   * @return the cache statistics
+   * @since 1.2.0
+   */
+  @NotNull CacheStats stats();
+
+  /**
+   * Gets the number of widths currently cached.
+   *
+   * @return the number of entries
+   * @since 1.2.0
+   */
+  int size();
+
+  /**
+   * Removes all cached widths.
+   *
+   * @since 1.2.0
+   */
+  void invalidateAll();
+
+  /**
+   * How cached components are compared.
+   *
+   * @since 1.2.0
+   */
+  enum KeyStrategy {
+    /**
+     * Components are compared with {@link Object#equals(Object)}, so equal components built
+     * separately share an entry. Hashing and comparing is linear in the size of the component.
+     *
+     * @since 1.2.0
+     */
+    EQUALITY,
+    /**
+     * Components are compared by reference, which is constant time but only hits when the
+     * same instance is measured again.
+     *
+     * @since 1.2.0
+     */
+    IDENTITY
+  }
+
+  /**
+   * A builder for a {@link CachedPixelWidthSource}.
+   *
+   * @param <CX> a context type (player, server, locale)
+   * @since 1.2.0
+   */
+  interface Builder<CX> {
+    /**
+     * Sets the maximum number of cached widths, the least recently used ones are removed first.
+     *
+     * <p>Defaults to {@code 4096}.</p>
+     *
+     * @param maximumSize the maximum number of entries
+     * @return this builder
+     * @since 1.2.0
+     */
+    @NotNull Builder<CX> maximumSize(final int maximumSize);
+
+    /**
+     * Sets how cached components are compared. Defaults to {@link KeyStrategy#EQUALITY}.
+     *
+     * @param keyStrategy the key strategy
+     * @return this builder
+     * @since 1.2.0
+     */
+    @NotNull Builder<CX> keyStrategy(final @NotNull KeyStrategy keyStrategy);
+
+    /**
+     * Sets a function deriving the part of a context that affects widths, like the locale or
+     * resource pack of a player. Contexts with equal keys share cached widths.
+     *
+     * <p>The returned keys are held strongly, they should not be the contexts themselves.</p>
+     *
+     * @param contextKey a function from a context to a key
+     * @return this builder
+     * @since 1.2.0
+     */
+    @NotNull Builder<CX> contextKey(final @NotNull Function<? super @Nullable CX, ?> contextKey);
+
+    /**
+     * Builds the cached pixel width source.
+     *
+     * @return a cached pixel width source
+     * @since 1.2.0
+     */
+    @NotNull CachedPixelWidthSource<CX> build();
+  }
+}
@@ -0,0 +1,264 @@
+/*
+ * This file is part of pixel-width, licensed under the MIT License.
+ *
+ * Copyright (c) 2022 KingOfSquares
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package solar.squares.pixelwidth;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+import net.kyori.adventure.text.Component;
+import net.kyori.adventure.text.flattener.ComponentFlattener;
+import net.kyori.adventure.text.format.Style;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import solar.squares.pixelwidth.function.CharacterWidthFunction;
+
+final class CachedPixelWidthSourceImpl<CX> implements CachedPixelWidthSource<CX> {
+  static final int DEFAULT_MAXIMUM_SIZE = 4096;
+
+  private final ContextualPixelWidthSource<CX> source;
+  private final BoundedCache<Entry, Entry> cache;
+  private final KeyStrategy keyStrategy;
+  private final @Nullable Function<? super CX, ?> contextKey;
+  private final ReferenceQueue<Object> collected = new ReferenceQueue<>();
+
+  CachedPixelWidthSourceImpl(final @NotNull ContextualPixelWidthSource<CX> source, final int maximumSize, final @NotNull KeyStrategy keyStrategy, final @Nullable Function<? super CX, ?> contextKey) {
+    this.source = source;
+    this.cache = new BoundedCache<>(maximumSize);
+    this.keyStrategy = keyStrategy;
+    this.contextKey = contextKey;
+  }
+
+  /**
+   * Derives the cache key of a context.
+   *
+   * @param context the context
+   * @param queue the queue to register weakly held contexts with, {@code null} for keys only used for lookups
+   * @return the key
+   */
+  private @Nullable Object contextKey(final @Nullable CX context, final @Nullable ReferenceQueue<Object> queue) {
+    if (this.contextKey != null) return this.contextKey.apply(context);
+    return context == null ? null : new WeakContext(context, queue);
+  }
+
+  /**
+   * Removes the entries of contexts that were garbage collected.
+   */
+  private void drain() {
+    Reference<?> reference = this.collected.poll();
+    if (reference == null) return;
+    final Set<Object> dead = Collections.newSetFromMap(new IdentityHashMap<>());
+    do {
+      dead.add(reference);
+    } while ((reference = this.collected.poll()) != null);
+    this.cache.removeIf(entry -> dead.contains(entry.context));
+  }
+
+  @Override
+  public @NotNull ComponentFlattener flattener() {
+    return this.source.flattener();
+  }
+
+  @Override
+  public float width(final @NotNull Component component, final @Nullable CX context) {
+    final Object event = Telemetry.beginCacheLookup();
+    this.drain();
+    final boolean identity = this.keyStrategy == KeyStrategy.IDENTITY;
+    final Entry cached = this.cache.get(new Entry(component, identity, this.contextKey(context, null), 0));
+    if (cached != null) {
+      if (event != null) Telemetry.commitCacheLookup(event, true);
+      return cached.width;
+    }
+    final float width = this.source.width(component, context);
+    final Entry entry = new Entry(component, identity, this.contextKey(context, this.collected), width);
+    this.cache.put(entry, entry);
+    if (event != null) Telemetry.commitCacheLookup(event, false);
+    return width;
+  }
+
+  @Override
+  public float width(final @NotNull String string, final @NotNull Style style, final @Nullable CX context) {
+    return this.source.width(string, style, context);
+  }
+
+  @Override
+  public int fixedWidth(final @NotNull String string, final @NotNull Style style, final @Nullable CX context) {
+    return this.source.fixedWidth(string, style, context);
+  }
+
+  @Override
+  public float width(final @NotNull CharSequence text, final @NotNull Style style, final @Nullable CX context) {
+    return this.source.width(text, style, context);
+  }
+
+  @Override
+  public int fixedWidth(final @NotNull CharSequence text, final @NotNull Style style, final @Nullable CX context) {
+    return this.source.fixedWidth(text, style, context);
+  }
+
+  @Override
+  public float width(final char @NotNull [] chars, final int offset, final int length, final @NotNull Style style, final @Nullable CX context) {
+    return this.source.width(chars, offset, length, style, context);
+  }
+
+  @Override
+  public int fixedWidth(final char @NotNull [] chars, final int offset, final int length, final @NotNull Style style, final @Nullable CX context) {
+    return this.source.fixedWidth(chars, offset, length, style, context);
+  }
+
+  @Override
+  public float width(final char character, final @NotNull Style style, final @Nullable CX context) {
+    return this.source.width(character, style, context);
+  }
+
+  @Override
+  public float width(final int codepoint, final @NotNull Style style, final @Nullable CX context) {
+    return this.source.width(codepoint, style, context);
+  }
+
+  @Override
+  public int fixedWidth(final int codepoint, final @NotNull Style style, final @Nullable CX context) {
+    return this.source.fixedWidth(codepoint, style, context);
+  }
+
+  @Override
+  public @Nullable CharacterWidthFunction characterWidthFunction(final @Nullable CX context) {
+    return this.source.characterWidthFunction(context);
+  }
+
+  @Override
+  public @NotNull CacheStats stats() {
+    return this.cache.stats();
+  }
+
+  @Override
+  public int size() {
+    return this.cache.size();
+  }
+
+  @Override
+  public void invalidateAll() {
+    this.cache.clear();
+  }
+
+  /**
+   * A component and the part of a context that affects its width, together with the width.
+   *
+   * <p>Entries are their own values, so widths are kept without boxing.</p>
+   */
+  private static final class Entry {
+    private final Component component;
+    private final boolean identity;
+    private final @Nullable Object context;
+    private final float width;
+    private final int hash;
+
+    Entry(final @NotNull Component component, final boolean identity, final @Nullable Object context, final float width) {
+      this.component = component;
+      this.identity = identity;
+      this.context = context;
+      this.width = width;
+      this.hash = 31 * (identity ? System.identityHashCode(component) : component.hashCode()) + Objects.hashCode(context);
+    }
+
+    @Override
+    public boolean equals(final Object other) {
+      if (this == other) return true;
+      if (!(other instanceof Entry)) return false;
+      final Entry that = (Entry) other;
+      return this.hash == that.hash
+        && (this.identity ? this.component == that.component : this.component.equals(that.component))
+        && Objects.equals(this.context, that.context);
+    }
+
+    @Override
+    public int hashCode() {
+      return this.hash;
+    }
+  }
+
+  /**
+   * A context compared by reference without keeping it reachable.
+   */
+  private static final class WeakContext extends WeakReference<Object> {
+    private final int hash;
+
+    WeakContext(final @NotNull Object context, final @Nullable ReferenceQueue<Object> queue) {
+      super(context, queue);
+      this.hash = System.identityHashCode(context);
+    }
+
+    @Override
+    public boolean equals(final Object other) {
+      if (this == other) return true;
+      if (!(other instanceof WeakContext)) return false;
+      final Object context = this.get();
+      return context != null && context == ((WeakContext) other).get();
+    }
+
+    @Override
+    public int hashCode() {
+      return this.hash;
+    }
+  }
+
+  static final class BuilderImpl<CX> implements Builder<CX> {
+    private final ContextualPixelWidthSource<CX> source;
+    private int maximumSize = DEFAULT_MAXIMUM_SIZE;
+    private KeyStrategy keyStrategy = KeyStrategy.EQUALITY;
+    private @Nullable Function<? super CX, ?> contextKey;
+
+    BuilderImpl(final @NotNull ContextualPixelWidthSource<CX> source) {
+      this.source = Objects.requireNonNull(source, "source");
+    }
+
+    @Override
+    public @NotNull Builder<CX> maximumSize(final int maximumSize) {
+      if (maximumSize < 1) throw new IllegalArgumentException("maximumSize must be positive, was " + maximumSize);
+      this.maximumSize = maximumSize;
+      return this;
+    }
+
+    @Override
+    public @NotNull Builder<CX> keyStrategy(final @NotNull KeyStrategy keyStrategy) {
+      this.keyStrategy = Objects.requireNonNull(keyStrategy, "keyStrategy");
+      return this;
+    }
+
+    @Override
+    public @NotNull Builder<CX> contextKey(final @NotNull Function<? super @Nullable CX, ?> contextKey) {
+      this.contextKey = Objects.requireNonNull(contextKey, "contextKey");
+      return this;
+    }
+
+    @Override
+    public @NotNull CachedPixelWidthSource<CX> build() {
+      return new CachedPixelWidthSourceImpl<>(this.source, this.maximumSize, this.keyStrategy, this.contextKey);
+    }
+  }
+}
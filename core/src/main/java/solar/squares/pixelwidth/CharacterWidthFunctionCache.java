@@ -0,0 +1,132 @@
+/*
+ * This file is part of pixel-width, licensed under the MIT License.
+ *
+ * Copyright (c) 2022 KingOfSquares
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package solar.squares.pixelwidth;
+
+import java.lang.ref.ReferenceQueue;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Function;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import solar.squares.pixelwidth.function.CharacterWidthFunction;
+
+/**
+ * Remembers the {@link CharacterWidthFunction} resolved for each context, so an expensive resolver
+ * (like a locale or resource pack lookup) runs once per context instead of once per measurement.
+ *
+ * <p>Contexts are compared by reference and only weakly referenced, entries disappear when their
+ * context is garbage collected. Use {@link #invalidate(Object)} when what a context resolves to
+ * changes, for example after a player switched resource packs. The resolver runs while the entry
+ * of its context is locked, so it must not use this cache itself.</p>
+ *
+ * <pre>{@code
+ * final CharacterWidthFunctionCache<Player> functions = CharacterWidthFunctionCache.weak(this::lookupPack);
+ * final ContextualPixelWidthSource<Player> source = ContextualPixelWidthSource.contextualPixelWidth(functions);
+ * }</pre>
+ *
+ * @param <CX> a context type (player, server, locale)
+ * @since 1.2.0
+ */
+public final class CharacterWidthFunctionCache<CX> implements Function<@Nullable CX, @NotNull CharacterWidthFunction> {
+  private final Function<? super @Nullable CX, ? extends @NotNull CharacterWidthFunction> resolver;
+  private final ConcurrentMap<Object, CharacterWidthFunction> functions = new ConcurrentHashMap<>();
+  private final ReferenceQueue<Object> collected = new ReferenceQueue<>();
+  private volatile @Nullable CharacterWidthFunction nullContextFunction;
+
+  private CharacterWidthFunctionCache(final @NotNull Function<? super @Nullable CX, ? extends @NotNull CharacterWidthFunction> resolver) {
+    this.resolver = resolver;
+  }
+
+  /**
+   * Creates a cache of the functions returned by a resolver, weakly keyed by context.
+   *
+   * @param resolver a function that provides a character width function given a context
+   * @param <CX>     a context type (player, server, locale)
+   * @return a character width function cache
+   * @since 1.2.0
+   */
+  public static <CX> @NotNull CharacterWidthFunctionCache<CX> weak(final @NotNull Function<? super @Nullable CX, ? extends @NotNull CharacterWidthFunction> resolver) {
+    Objects.requireNonNull(resolver, "resolver");
+    return new CharacterWidthFunctionCache<>(resolver);
+  }
+
+  @Override
+  public @NotNull CharacterWidthFunction apply(final @Nullable CX context) {
+    if (context == null) {
+      CharacterWidthFunction function = this.nullContextFunction;
+      if (function == null) {
+        synchronized (this) {
+          function = this.nullContextFunction;
+          if (function == null) {
+            function = Objects.requireNonNull(this.resolver.apply(null), "resolved character width function");
+            this.nullContextFunction = function;
+          }
+        }
+      }
+      return function;
+    }
+    final CharacterWidthFunction cached = this.functions.get(WeakIdentityKey.lookup(context));
+    if (cached != null) return cached;
+    this.expungeCollected();
+    // Resolving while holding the entry lock makes a concurrent invalidate wait for and then remove the new function
+    return this.functions.computeIfAbsent(new WeakIdentityKey(context, this.collected), key -> Objects.requireNonNull(this.resolver.apply(context), "resolved character width function"));
+  }
+
+  /**
+   * Forgets the function resolved for a context, it will be resolved again on next use.
+   *
+   * @param context a context
+   * @since 1.2.0
+   */
+  public void invalidate(final @Nullable CX context) {
+    if (context == null) {
+      synchronized (this) {
+        this.nullContextFunction = null;
+      }
+    } else {
+      this.functions.remove(WeakIdentityKey.lookup(context));
+    }
+  }
+
+  /**
+   * Forgets the functions resolved for all contexts.
+   *
+   * @since 1.2.0
+   */
+  public void invalidateAll() {
+    synchronized (this) {
+      this.nullContextFunction = null;
+    }
+    this.functions.clear();
+    this.expungeCollected();
+  }
+
+  private void expungeCollected() {
+    Object key;
+    while ((key = this.collected.poll()) != null) {
+      this.functions.remove(key);
+    }
+  }
+}
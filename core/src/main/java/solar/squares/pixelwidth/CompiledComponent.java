@@ -0,0 +1,198 @@
+/*
+ * This file is part of pixel-width, licensed under the MIT License.
+ *
+ * Copyright (c) 2022 KingOfSquares
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package solar.squares.pixelwidth;
+
+import java.util.Arrays;
+import java.util.Objects;
+import net.kyori.adventure.key.Key;
+import net.kyori.adventure.text.Component;
+import net.kyori.adventure.text.flattener.ComponentFlattener;
+import net.kyori.adventure.text.flattener.FlattenerListener;
+import net.kyori.adventure.text.format.Style;
+import org.jetbrains.annotations.NotNull;
+import solar.squares.pixelwidth.function.CharacterWidthFunction;
+
+/**
+ * A component flattened once into its codepoints and the runs of merged style they are in.
+ *
+ * <p>Measuring a compiled component skips flattening and merging styles, it is a loop over a codepoint
+ * array per run of equal style. Compile components that are measured under several
+ * contexts, or repeatedly, and measure them with {@link ContextualPixelWidthSource#width(CompiledComponent, Object)}
+ * or {@link PixelWidthSource#width(CompiledComponent)}. A {@link CompiledComponentCache} compiles each
+ * component once.</p>
+ *
+ * <p>The flattener is applied when compiling, the flattener of the source a compiled component is measured
+ * with is not used.</p>
+ *
+ * @since 1.2.0
+ */
+public final class CompiledComponent {
+  private final int[] codepoints;
+  // Run r covers codepoints[runStarts[r]] up to codepoints[runStarts[r + 1]]
+  private final int[] runStarts;
+  private final Style[] runStyles;
+  private final Key[] runFonts;
+
+  private CompiledComponent(final int @NotNull [] codepoints, final int @NotNull [] runStarts, final @NotNull Style @NotNull [] runStyles, final Key @NotNull [] runFonts) {
+    this.codepoints = codepoints;
+    this.runStarts = runStarts;
+    this.runStyles = runStyles;
+    this.runFonts = runFonts;
+  }
+
+  /**
+   * Compiles a component using {@link ComponentFlattener#basic()}.
+   *
+   * @param component a component
+   * @return the compiled component
+   * @since 1.2.0
+   */
+  public static @NotNull CompiledComponent compile(final @NotNull Component component) {
+    return compile(component, ComponentFlattener.basic());
+  }
+
+  /**
+   * Compiles a component.
+   *
+   * @param component a component
+   * @param flattener used to turn the component into linear text
+   * @return the compiled component
+   * @since 1.2.0
+   */
+  public static @NotNull CompiledComponent compile(final @NotNull Component component, final @NotNull ComponentFlattener flattener) {
+    Objects.requireNonNull(component, "component");
+    Objects.requireNonNull(flattener, "flattener");
+    final Compiler compiler = new Compiler();
+    flattener.flatten(component, compiler);
+    return compiler.build();
+  }
+
+  /**
+   * Gets the number of codepoints in the compiled text.
+   *
+   * @return the number of codepoints
+   * @since 1.2.0
+   */
+  public int length() {
+    return this.codepoints.length;
+  }
+
+  /**
+   * Gets the number of style runs the compiled text consists of.
+   *
+   * @return the number of runs
+   * @since 1.2.0
+   */
+  public int runs() {
+    return this.runStyles.length;
+  }
+
+  /**
+   * Measures the compiled text with a character width function.
+   *
+   * @param function the function measuring the characters
+   * @return the pixel width of the text
+   * @since 1.2.0
+   */
+  public float width(final @NotNull CharacterWidthFunction function) {
+    return FixedWidth.toPixels(this.fixedWidth(function));
+  }
+
+  /**
+   * Measures the compiled text with a character width function, in {@link FixedWidth fixed-point} units.
+   *
+   * @param function the function measuring the characters
+   * @return the width of the text in fixed-point units
+   * @since 1.2.0
+   */
+  public int fixedWidth(final @NotNull CharacterWidthFunction function) {
+    final int[] codepoints = this.codepoints;
+    int width = 0;
+    for (int run = 0; run < this.runStyles.length; run++) {
+      final CharacterWidthFunction font = function.font(this.runFonts[run]);
+      final Style style = this.runStyles[run];
+      for (int i = this.runStarts[run], end = this.runStarts[run + 1]; i < end; i++) {
+        width += font.fixedWidthOf(codepoints[i], style);
+      }
+    }
+    return width;
+  }
+
+  /**
+   * Collects codepoints and style runs from flattened text.
+   */
+  private static final class Compiler implements FlattenerListener {
+    // compiled once for any function, so the runs keep the fully merged styles
+    private final StyleStack styles = new StyleStack(true);
+    private int[] codepoints = new int[32];
+    private int length;
+    private int[] runStarts = new int[8];
+    private Style[] runStyles = new Style[8];
+    private Key[] runFonts = new Key[8];
+    private int runs;
+
+    @Override
+    public void pushStyle(final @NotNull Style style) {
+      this.styles.push(style);
+    }
+
+    @Override
+    public void component(final @NotNull String text) {
+      if (text.isEmpty()) return;
+      final Style style = this.styles.style();
+      if (this.runs == 0 || !this.sameStyle(this.runStyles[this.runs - 1], style)) {
+        if (this.runs == this.runStyles.length) {
+          this.runStarts = Arrays.copyOf(this.runStarts, this.runs * 2);
+          this.runStyles = Arrays.copyOf(this.runStyles, this.runs * 2);
+          this.runFonts = Arrays.copyOf(this.runFonts, this.runs * 2);
+        }
+        this.runStarts[this.runs] = this.length;
+        this.runStyles[this.runs] = style;
+        this.runFonts[this.runs] = this.styles.font();
+        this.runs++;
+      }
+      for (int i = 0; i < text.length();) {
+        final int codepoint = text.codePointAt(i);
+        if (this.length == this.codepoints.length) this.codepoints = Arrays.copyOf(this.codepoints, this.length * 2);
+        this.codepoints[this.length++] = codepoint;
+        i += Character.charCount(codepoint);
+      }
+    }
+
+    private boolean sameStyle(final @NotNull Style previous, final @NotNull Style style) {
+      return previous == style || previous.equals(style);
+    }
+
+    @Override
+    public void popStyle(final @NotNull Style style) {
+      this.styles.pop();
+    }
+
+    @NotNull CompiledComponent build() {
+      final int[] starts = Arrays.copyOf(this.runStarts, this.runs + 1);
+      starts[this.runs] = this.length;
+      return new CompiledComponent(Arrays.copyOf(this.codepoints, this.length), starts, Arrays.copyOf(this.runStyles, this.runs), Arrays.copyOf(this.runFonts, this.runs));
+    }
+  }
+}
@@ -0,0 +1,127 @@
+/*
+ * This file is part of pixel-width, licensed under the MIT License.
+ *
+ * Copyright (c) 2022 KingOfSquares
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package solar.squares.pixelwidth;
+
+import java.lang.ref.ReferenceQueue;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Function;
+import net.kyori.adventure.text.Component;
+import net.kyori.adventure.text.flattener.ComponentFlattener;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Remembers the {@link CompiledComponent} of each component, so measuring a component again skips
+ * flattening it.
+ *
+ * <p>Components are compared by reference and only weakly referenced, entries disappear when their
+ * component is garbage collected. Keep the component instances that are measured repeatedly, like a
+ * broadcast announcement or a scoreboard title, and look them up here before each measurement.</p>
+ *
+ * <pre>{@code
+ * final CompiledComponentCache compiled = CompiledComponentCache.weak();
+ * for (final Player player : players) {
+ *   send(player, source.width(compiled.apply(announcement), player));
+ * }
+ * }</pre>
+ *
+ * @since 1.2.0
+ */
+public final class CompiledComponentCache implements Function<@NotNull Component, @NotNull CompiledComponent> {
+  private final ComponentFlattener flattener;
+  private final ConcurrentMap<Object, CompiledComponent> compiled = new ConcurrentHashMap<>();
+  private final ReferenceQueue<Object> collected = new ReferenceQueue<>();
+
+  private CompiledComponentCache(final @NotNull ComponentFlattener flattener) {
+    this.flattener = flattener;
+  }
+
+  /**
+   * Creates a cache compiling components with {@link ComponentFlattener#basic()}, weakly keyed by component.
+   *
+   * @return a compiled component cache
+   * @since 1.2.0
+   */
+  public static @NotNull CompiledComponentCache weak() {
+    return weak(ComponentFlattener.basic());
+  }
+
+  /**
+   * Creates a cache compiling components with a flattener, weakly keyed by component.
+   *
+   * @param flattener used to turn components into linear text
+   * @return a compiled component cache
+   * @since 1.2.0
+   */
+  public static @NotNull CompiledComponentCache weak(final @NotNull ComponentFlattener flattener) {
+    Objects.requireNonNull(flattener, "flattener");
+    return new CompiledComponentCache(flattener);
+  }
+
+  /**
+   * Gets the compiled form of a component, compiling it on first use.
+   *
+   * @param component a component
+   * @return the compiled component
+   * @since 1.2.0
+   */
+  @Override
+  public @NotNull CompiledComponent apply(final @NotNull Component component) {
+    final CompiledComponent cached = this.compiled.get(WeakIdentityKey.lookup(component));
+    if (cached != null) return cached;
+    this.expungeCollected();
+    final CompiledComponent compiled = CompiledComponent.compile(component, this.flattener);
+    final CompiledComponent previous = this.compiled.putIfAbsent(new WeakIdentityKey(component, this.collected), compiled);
+    return previous == null ? compiled : previous;
+  }
+
+  /**
+   * Gets the number of components currently compiled.
+   *
+   * @return the number of entries
+   * @since 1.2.0
+   */
+  public int size() {
+    this.expungeCollected();
+    return this.compiled.size();
+  }
+
+  /**
+   * Forgets all compiled components.
+   *
+   * @since 1.2.0
+   */
+  public void invalidateAll() {
+    this.compiled.clear();
+    this.expungeCollected();
+  }
+
+  private void expungeCollected() {
+    Object key;
+    while ((key = this.collected.poll()) != null) {
+      this.compiled.remove(key);
+    }
+  }
+}
@@ -0,0 +1,81 @@
+/*
+ * This file is part of pixel-width, licensed under the MIT License.
+ *
+ * Copyright (c) 2022 KingOfSquares
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package solar.squares.pixelwidth;
+
+import net.kyori.adventure.text.Component;
+import net.kyori.adventure.text.flattener.ComponentFlattener;
+import net.kyori.adventure.text.format.Style;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Adapts a {@link PixelWidthSource} to a contextual source that ignores the context.
+ */
+final class ContextlessPixelWidthSource implements ContextualPixelWidthSource<Object> {
+  private final PixelWidthSource source;
+
+  ContextlessPixelWidthSource(final @NotNull PixelWidthSource source) {
+    this.source = source;
+  }
+
+  @Override
+  public @NotNull ComponentFlattener flattener() {
+    return this.source.flattener();
+  }
+
+  @Override
+  public float width(final @NotNull Component component, final @Nullable Object context) {
+    return this.source.width(component);
+  }
+
+  @Override
+  public int fixedWidth(final @NotNull Component component, final @Nullable Object context) {
+    return this.source.fixedWidth(component);
+  }
+
+  @Override
+  public float width(final @NotNull String string, final @NotNull Style style, final @Nullable Object context) {
+    return this.source.width(string, style);
+  }
+
+  @Override
+  public int fixedWidth(final @NotNull String string, final @NotNull Style style, final @Nullable Object context) {
+    return this.source.fixedWidth(string, style);
+  }
+
+  @Override
+  public float width(final char character, final @NotNull Style style, final @Nullable Object context) {
+    return this.source.width(character, style);
+  }
+
+  @Override
+  public float width(final int codepoint, final @NotNull Style style, final @Nullable Object context) {
+    return this.source.width(codepoint, style);
+  }
+
+  @Override
+  public int fixedWidth(final int codepoint, final @NotNull Style style, final @Nullable Object context) {
+    return this.source.fixedWidth(codepoint, style);
+  }
+}
@@ -24,6 +24,7 @@
 package solar.squares.pixelwidth;
 
 import java.util.Objects;
+import java.util.concurrent.ForkJoinPool;
 import java.util.function.Function;
 import net.kyori.adventure.text.Component;
 import net.kyori.adventure.text.flattener.ComponentFlattener;
@@ -31,12 +32,16 @@ import net.kyori.adventure.text.format.Style;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 import solar.squares.pixelwidth.function.CharacterWidthFunction;
+import solar.squares.pixelwidth.internal.Sources;
 
 /**
  * A source able to return the width of text with the usage of {@link CharacterWidthFunction}s and a context {@code CX}.
  *
  * <p>If context is pointless use a generic {@link PixelWidthSource}</p>
  *
+ * <p>Like a {@link PixelWidthSource}, text is measured in {@link FixedWidth fixed-point} units, so the
+ * width of every character is rounded to an eighth of a pixel before it is summed.</p>
+ *
  * @param <CX> a context type (player, server, locale)
  * @since 1.0.0
  */
@@ -69,6 +74,31 @@ public interface ContextualPixelWidthSource<CX> extends PixelWidthSource {
     return contextualPixelWidth(ComponentFlattener.basic(), function);
   }
 
+  /**
+   * Creates a builder for a pixel width source calculating width using the provided character width function.
+   *
+   * @param function a function that provides a character width function
+   * @param <CX>     context a context type (player, server, locale)
+   * @return a builder
+   * @since 1.2.0
+   */
+  static <CX> @NotNull Builder<CX> builder(final @NotNull Function<@Nullable CX, @NotNull CharacterWidthFunction> function) {
+    return new PixelWidthSourceImpl.BuilderImpl<>(function);
+  }
+
+  /**
+   * Gets the character width function this source uses for a context.
+   *
+   * <p>Sources that do not measure through a single function per context return {@code null}.</p>
+   *
+   * @param context a context
+   * @return the character width function for the context, or {@code null} if unknown
+   * @since 1.2.0
+   */
+  default @Nullable CharacterWidthFunction characterWidthFunction(final @Nullable CX context) {
+    return null;
+  }
+
   /**
    * Calculates the pixel width of a component, given a context.
    *
@@ -100,6 +130,45 @@ public interface ContextualPixelWidthSource<CX> extends PixelWidthSource {
     return this.width(string, style, null);
   }
 
+  /**
+   * Calculates the pixel width of a char sequence, given a context.
+   *
+   * @param text    a char sequence
+   * @param style   the style of the text
+   * @param context the context of this calculation
+   * @return the pixel width of the text
+   * @since 1.2.0
+   */
+  default float width(final @NotNull CharSequence text, final @NotNull Style style, final @Nullable CX context) {
+    return this.width(text.toString(), style, context);
+  }
+
+  @Override
+  default float width(final @NotNull CharSequence text, final @NotNull Style style) {
+    return this.width(text, style, null);
+  }
+
+  /**
+   * Calculates the pixel width of a range of a char array, given a context.
+   *
+   * @param chars   a char array
+   * @param offset  the index of the first char to measure
+   * @param length  the number of chars to measure
+   * @param style   the style of the chars
+   * @param context the context of this calculation
+   * @return the pixel width of the chars
+   * @throws IndexOutOfBoundsException if the range is outside of the array
+   * @since 1.2.0
+   */
+  default float width(final char @NotNull [] chars, final int offset, final int length, final @NotNull Style style, final @Nullable CX context) {
+    return this.width(new String(chars, offset, length), style, context);
+  }
+
+  @Override
+  default float width(final char @NotNull [] chars, final int offset, final int length, final @NotNull Style style) {
+    return this.width(chars, offset, length, style, null);
+  }
+
   /**
    * Calculates the pixel width of a character, given a context.
    *
@@ -131,4 +200,212 @@ public interface ContextualPixelWidthSource<CX> extends PixelWidthSource {
   default float width(final int codepoint, final @NotNull Style style) {
     return this.width(codepoint, style, null);
   }
+
+  /**
+   * Calculates the width of a component, given a context, in {@link FixedWidth fixed-point} units.
+   *
+   * @param component a component
+   * @param context   the context of this calculation
+   * @return the width of the component in fixed-point units
+   * @since 1.2.0
+   */
+  default int fixedWidth(final @NotNull Component component, final @Nullable CX context) {
+    return FixedWidth.fromPixels(this.width(component, context));
+  }
+
+  @Override
+  default int fixedWidth(final @NotNull Component component) {
+    return this.fixedWidth(component, null);
+  }
+
+  /**
+   * Calculates the width of a string, given a context, in {@link FixedWidth fixed-point} units.
+   *
+   * @param string  a string
+   * @param style   the style of the string
+   * @param context the context of this calculation
+   * @return the width of the string in fixed-point units
+   * @since 1.2.0
+   */
+  default int fixedWidth(final @NotNull String string, final @NotNull Style style, final @Nullable CX context) {
+    return FixedWidth.fromPixels(this.width(string, style, context));
+  }
+
+  @Override
+  default int fixedWidth(final @NotNull String string, final @NotNull Style style) {
+    return this.fixedWidth(string, style, null);
+  }
+
+  /**
+   * Calculates the width of a char sequence, given a context, in {@link FixedWidth fixed-point} units.
+   *
+   * @param text    a char sequence
+   * @param style   the style of the text
+   * @param context the context of this calculation
+   * @return the width of the text in fixed-point units
+   * @since 1.2.0
+   */
+  default int fixedWidth(final @NotNull CharSequence text, final @NotNull Style style, final @Nullable CX context) {
+    return FixedWidth.fromPixels(this.width(text, style, context));
+  }
+
+  @Override
+  default int fixedWidth(final @NotNull CharSequence text, final @NotNull Style style) {
+    return this.fixedWidth(text, style, null);
+  }
+
+  /**
+   * Calculates the width of a range of a char array, given a context, in {@link FixedWidth fixed-point} units.
+   *
+   * @param chars   a char array
+   * @param offset  the index of the first char to measure
+   * @param length  the number of chars to measure
+   * @param style   the style of the chars
+   * @param context the context of this calculation
+   * @return the width of the chars in fixed-point units
+   * @throws IndexOutOfBoundsException if the range is outside of the array
+   * @since 1.2.0
+   */
+  default int fixedWidth(final char @NotNull [] chars, final int offset, final int length, final @NotNull Style style, final @Nullable CX context) {
+    return FixedWidth.fromPixels(this.width(chars, offset, length, style, context));
+  }
+
+  @Override
+  default int fixedWidth(final char @NotNull [] chars, final int offset, final int length, final @NotNull Style style) {
+    return this.fixedWidth(chars, offset, length, style, null);
+  }
+
+  /**
+   * Calculates the width of a character represented by a codepoint, given a context, in
+   * {@link FixedWidth fixed-point} units.
+   *
+   * @param codepoint a codepoint representing a character
+   * @param style     the style of the character
+   * @param context   the context of this calculation
+   * @return the width of the character in fixed-point units
+   * @since 1.2.0
+   */
+  default int fixedWidth(final int codepoint, final @NotNull Style style, final @Nullable CX context) {
+    return FixedWidth.fromPixels(this.width(codepoint, style, context));
+  }
+
+  @Override
+  default int fixedWidth(final int codepoint, final @NotNull Style style) {
+    return this.fixedWidth(codepoint, style, null);
+  }
+
+  /**
+   * Calculates the pixel width of a compiled component, given a context.
+   *
+   * <p>The component is measured with the {@link #characterWidthFunction(Object) character width function}
+   * of the context in a single loop over its codepoints.</p>
+   *
+   * @param compiled a compiled component
+   * @param context  the context of this calculation
+   * @return the pixel width of the component
+   * @since 1.2.0
+   */
+  default float width(final @NotNull CompiledComponent compiled, final @Nullable CX context) {
+    return compiled.width(Sources.function(this, context));
+  }
+
+  @Override
+  default float width(final @NotNull CompiledComponent compiled) {
+    return this.width(compiled, null);
+  }
+
+  /**
+   * Calculates the width of a compiled component, given a context, in {@link FixedWidth fixed-point} units.
+   *
+   * @param compiled a compiled component
+   * @param context  the context of this calculation
+   * @return the width of the component in fixed-point units
+   * @since 1.2.0
+   */
+  default int fixedWidth(final @NotNull CompiledComponent compiled, final @Nullable CX context) {
+    return compiled.fixedWidth(Sources.function(this, context));
+  }
+
+  @Override
+  default int fixedWidth(final @NotNull CompiledComponent compiled) {
+    return this.fixedWidth(compiled, null);
+  }
+
+  /**
+   * A builder for a {@link ContextualPixelWidthSource}.
+   *
+   * @param <CX> a context type (player, server, locale)
+   * @since 1.2.0
+   */
+  interface Builder<CX> {
+    /**
+     * Sets the flattener used to turn components into linear text. Defaults to {@link ComponentFlattener#basic()}.
+     *
+     * @param flattener a component flattener
+     * @return this builder
+     * @since 1.2.0
+     */
+    @NotNull Builder<CX> flattener(final @NotNull ComponentFlattener flattener);
+
+    /**
+     * Measures the children of wide components in parallel on the {@link ForkJoinPool#commonPool() common pool}.
+     *
+     * @param threshold the number of children from which a component is measured in parallel
+     * @return this builder
+     * @see #parallel(ForkJoinPool, int)
+     * @since 1.2.0
+     */
+    default @NotNull Builder<CX> parallel(final int threshold) {
+      return this.parallel(ForkJoinPool.commonPool(), threshold);
+    }
+
+    /**
+     * Measures the children of wide components in parallel.
+     *
+     * <p>Text components with at least {@code threshold} children have their children split into tasks
+     * of at most half the threshold, each continuing with the style of the parent, and the widths of the
+     * tasks are summed. Components with fewer children, which includes nearly all chat lines, are measured
+     * sequentially as usual.</p>
+     *
+     * <p>Only takes effect with the {@link ComponentFlattener#basic() basic flattener}, other flatteners
+     * traverse the whole tree themselves. Sequential by default.</p>
+     *
+     * @param pool the pool tasks run in when measuring from outside of a fork join pool
+     * @param threshold the number of children from which a component is measured in parallel, at least {@code 2}
+     * @return this builder
+     * @throws IllegalArgumentException if the threshold is less than {@code 2}
+     * @since 1.2.0
+     */
+    @NotNull Builder<CX> parallel(final @NotNull ForkJoinPool pool, final int threshold);
+
+    /**
+     * Remembers the width of subtrees, so shared fragments like rank badges or footers are measured once.
+     *
+     * <p>The width of every text component with children below the measured component is cached under
+     * the component instance, the decorations and font it inherits and the character width function of
+     * the context. A fragment reused in a new parent then costs a single lookup. Entries of a function that
+     * is no longer used, for example after a {@link ReloadablePixelWidthSource} swapped profiles, are never
+     * hit again and are evicted as the least recently used.</p>
+     *
+     * <p>The function is compared by reference, so the function given to the builder must return the same
+     * instance for contexts that measure the same, for example through a {@link CharacterWidthFunctionCache},
+     * otherwise nothing is ever hit. Cached components are held strongly until evicted. Only takes effect
+     * with the {@link ComponentFlattener#basic() basic flattener} and functions that declare
+     * {@link CharacterWidthFunction#decorationsAndFontOnly()}. Disabled by default.</p>
+     *
+     * @param maximumSize the maximum number of cached subtree widths
+     * @return this builder
+     * @throws IllegalArgumentException if the maximum size is not positive
+     * @since 1.2.0
+     */
+    @NotNull Builder<CX> subtreeCache(final int maximumSize);
+
+    /**
+     * Builds the pixel width source.
+     *
+     * @return a pixel width source
+     * @since 1.2.0
+     */
+    @NotNull ContextualPixelWidthSource<CX> build();
+  }
 }
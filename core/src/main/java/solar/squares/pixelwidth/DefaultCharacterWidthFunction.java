@@ -39,8 +39,28 @@ import solar.squares.pixelwidth.function.CharacterWidthFunction;
 public class DefaultCharacterWidthFunction implements CharacterWidthFunction {
   public static final DefaultCharacterWidthFunction INSTANCE = new DefaultCharacterWidthFunction();
 
+  @Override
+  public boolean decorationsAndFontOnly() {
+    return true;
+  }
+
   @Override
   public final float widthOf(final int c, @NotNull final Style style) {
+    float width = baseWidth(c);
+    if (width == -1) return this.handleMissing(c, style);
+
+    if (style.hasDecoration(TextDecoration.BOLD))
+      width++;
+    return width;
+  }
+
+  /**
+   * Gets the width of a character(represented by its UTF-16 codepoint) without any style applied.
+   *
+   * @param c a codepoint
+   * @return the width, or {@code -1} if the character is not part of the default font
+   */
+  static float baseWidth(final int c) {
     float width = -1;
     switch(c) {
       case 8204:
@@ -229,11 +249,6 @@ public class DefaultCharacterWidthFunction implements CharacterWidthFunction {
         width = 9.0F;
         break;
     }
-
-    if (width == -1) return this.handleMissing(c, style);
-
-    if (style.hasDecoration(TextDecoration.BOLD))
-      width++;
     return width;
   }
 }
@@ -0,0 +1,89 @@
+/*
+ * This file is part of pixel-width, licensed under the MIT License.
+ *
+ * Copyright (c) 2022 KingOfSquares
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package solar.squares.pixelwidth;
+
+import solar.squares.pixelwidth.function.CharacterWidthFunction;
+
+/**
+ * Conversions between pixel widths and fixed-point widths.
+ *
+ * <p>A fixed-point width is an {@code int} counting {@link #UNITS_PER_PIXEL eighths} of a pixel. Glyph
+ * advances in Minecraft are whole or half pixels, and custom fonts rarely go finer than a quarter, so
+ * sums of fixed-point widths are exact where summing {@code float}s slowly drifts.</p>
+ *
+ * @see CharacterWidthFunction#fixedWidthOf(int, net.kyori.adventure.text.format.Style)
+ * @see PixelWidthSource#fixedWidth(net.kyori.adventure.text.Component)
+ * @since 1.2.0
+ */
+public final class FixedWidth {
+  /**
+   * The number of fixed-point units in one pixel.
+   *
+   * @since 1.2.0
+   */
+  public static final int UNITS_PER_PIXEL = 8;
+
+  private static final float PIXELS_PER_UNIT = 1F / UNITS_PER_PIXEL;
+
+  private FixedWidth() {
+  }
+
+  /**
+   * Converts a pixel width to a fixed-point width, rounding to the nearest unit.
+   *
+   * @param pixels a width in pixels
+   * @return the width in fixed-point units
+   * @since 1.2.0
+   */
+  public static int fromPixels(final float pixels) {
+    return Math.round(pixels * UNITS_PER_PIXEL);
+  }
+
+  /**
+   * Converts a maximum pixel width to the largest fixed-point width not exceeding it.
+   *
+   * <p>Widths too large for an {@code int} are clamped to {@link Integer#MAX_VALUE}, and {@code NaN}
+   * converts to {@code 0}.</p>
+   *
+   * @param pixels a maximum width in pixels
+   * @return the maximum width in fixed-point units
+   * @since 1.2.0
+   */
+  public static int fromPixelsFloor(final float pixels) {
+    return (int) Math.floor((double) pixels * UNITS_PER_PIXEL);
+  }
+
+  /**
+   * Converts a fixed-point width to a pixel width.
+   *
+   * <p>The conversion is exact for every width below {@code 2^21} pixels.</p>
+   *
+   * @param units a width in fixed-point units
+   * @return the width in pixels
+   * @since 1.2.0
+   */
+  public static float toPixels(final int units) {
+    return units * PIXELS_PER_UNIT;
+  }
+}
@@ -0,0 +1,165 @@
+/*
+ * This file is part of pixel-width, licensed under the MIT License.
+ *
+ * Copyright (c) 2022 KingOfSquares
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package solar.squares.pixelwidth;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import net.kyori.adventure.key.Key;
+import net.kyori.adventure.text.format.Style;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import solar.squares.pixelwidth.function.CharacterWidthFunction;
+
+/**
+ * A character width function that measures text with the function registered for its {@link Style#font() font}.
+ *
+ * <p>Text without a font is measured as {@link Style#DEFAULT_FONT}. Fonts that are not registered,
+ * including the default font when it is not registered, are measured with the fallback function.</p>
+ *
+ * <p>{@link #widthOf(int, Style)} looks up the font of every character, the measuring code of this
+ * library instead resolves the function once for each run of text through {@link #font(Key)}.</p>
+ *
+ * @since 1.2.0
+ */
+public final class FontRegistry implements CharacterWidthFunction {
+  private final Map<Key, CharacterWidthFunction> fonts;
+  private final CharacterWidthFunction defaultFont;
+  private final CharacterWidthFunction fallback;
+  private final boolean decorationsAndFontOnly;
+
+  private FontRegistry(final @NotNull Map<Key, CharacterWidthFunction> fonts, final @NotNull CharacterWidthFunction fallback) {
+    this.fonts = fonts;
+    this.fallback = fallback;
+    this.defaultFont = fonts.getOrDefault(Style.DEFAULT_FONT, fallback);
+    this.decorationsAndFontOnly = fallback.decorationsAndFontOnly() && fonts.values().stream().allMatch(CharacterWidthFunction::decorationsAndFontOnly);
+  }
+
+  /**
+   * Creates a builder for a font registry.
+   *
+   * @return a builder
+   * @since 1.2.0
+   */
+  public static @NotNull Builder builder() {
+    return new Builder();
+  }
+
+  /**
+   * Gets the registered fonts.
+   *
+   * @return an unmodifiable view of the registered fonts
+   * @since 1.2.0
+   */
+  public @NotNull Map<Key, CharacterWidthFunction> fonts() {
+    return Collections.unmodifiableMap(this.fonts);
+  }
+
+  @Override
+  public @NotNull CharacterWidthFunction font(final @Nullable Key font) {
+    if (font == null) return this.defaultFont;
+    final CharacterWidthFunction function = this.fonts.get(font);
+    return function == null ? this.fallback : function;
+  }
+
+  @Override
+  public boolean decorationsAndFontOnly() {
+    return this.decorationsAndFontOnly;
+  }
+
+  @Override
+  public float widthOf(final int codepoint, final @NotNull Style style) {
+    return this.font(style.font()).widthOf(codepoint, style);
+  }
+
+  @Override
+  public int fixedWidthOf(final int codepoint, final @NotNull Style style) {
+    return this.font(style.font()).fixedWidthOf(codepoint, style);
+  }
+
+  /**
+   * A builder for {@link FontRegistry}s.
+   *
+   * @since 1.2.0
+   */
+  public static final class Builder {
+    private final Map<Key, CharacterWidthFunction> fonts = new HashMap<>();
+    private CharacterWidthFunction fallback = TableCharacterWidthFunction.DEFAULT;
+
+    Builder() {
+    }
+
+    /**
+     * Registers the function for a font.
+     *
+     * @param font the font key
+     * @param function the function measuring text in the font
+     * @return this builder
+     * @since 1.2.0
+     */
+    public @NotNull Builder font(final @NotNull Key font, final @NotNull CharacterWidthFunction function) {
+      Objects.requireNonNull(font, "font");
+      Objects.requireNonNull(function, "function");
+      this.fonts.put(font, function.font(font)); // resolves nested registries up front
+      return this;
+    }
+
+    /**
+     * Registers the functions for several fonts, such as those loaded from a resource pack.
+     *
+     * @param fonts the functions measuring text in each font
+     * @return this builder
+     * @since 1.2.0
+     */
+    public @NotNull Builder fonts(final @NotNull Map<Key, ? extends CharacterWidthFunction> fonts) {
+      for (final Map.Entry<Key, ? extends CharacterWidthFunction> entry : fonts.entrySet()) {
+        this.font(entry.getKey(), entry.getValue());
+      }
+      return this;
+    }
+
+    /**
+     * Sets the function for fonts that are not registered, {@link TableCharacterWidthFunction#DEFAULT} by default.
+     *
+     * @param fallback the fallback function
+     * @return this builder
+     * @since 1.2.0
+     */
+    public @NotNull Builder fallback(final @NotNull CharacterWidthFunction fallback) {
+      this.fallback = Objects.requireNonNull(fallback, "fallback");
+      return this;
+    }
+
+    /**
+     * Builds the font registry.
+     *
+     * @return a font registry
+     * @since 1.2.0
+     */
+    public @NotNull FontRegistry build() {
+      return new FontRegistry(new HashMap<>(this.fonts), this.fallback);
+    }
+  }
+}
@@ -0,0 +1,119 @@
+/*
+ * This file is part of pixel-width, licensed under the MIT License.
+ *
+ * Copyright (c) 2022 KingOfSquares
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package solar.squares.pixelwidth;
+
+import java.nio.ByteBuffer;
+import net.kyori.adventure.text.format.Style;
+import net.kyori.adventure.text.format.TextDecoration;
+import org.jetbrains.annotations.NotNull;
+import solar.squares.pixelwidth.function.CharacterWidthFunction;
+
+import static solar.squares.pixelwidth.TrieCharacterWidthFunction.BLOCK_BITS;
+import static solar.squares.pixelwidth.TrieCharacterWidthFunction.BLOCK_SIZE;
+import static solar.squares.pixelwidth.TrieCharacterWidthFunction.OVERFLOW;
+
+/**
+ * A trie backed character width function reading from a buffer laid out by {@link WidthTableFile}.
+ *
+ * <p>Only absolute reads are used, so one buffer can be shared by any number of threads.</p>
+ */
+final class MappedCharacterWidthFunction implements CharacterWidthFunction {
+  private final ByteBuffer buffer;
+  private final int indexOffset;
+  private final int blocksOffset;
+  private final int blocks;
+  private final int overflowOffset;
+  private final int overflowCount;
+  private final float boldOffset;
+  private final int fixedBoldOffset;
+
+  MappedCharacterWidthFunction(final @NotNull ByteBuffer buffer, final int offset, final int blocks, final int overflowCount, final float boldOffset) {
+    this.buffer = buffer;
+    this.indexOffset = offset;
+    this.blocksOffset = offset + WidthTableFile.INDEX_BYTES;
+    this.blocks = blocks;
+    this.overflowOffset = this.blocksOffset + (blocks << BLOCK_BITS);
+    this.overflowCount = overflowCount;
+    this.boldOffset = boldOffset;
+    this.fixedBoldOffset = FixedWidth.fromPixels(boldOffset);
+  }
+
+  @Override
+  public boolean decorationsAndFontOnly() {
+    return true;
+  }
+
+  @Override
+  public float widthOf(final int codepoint, final @NotNull Style style) {
+    if (codepoint >= 0 && codepoint <= Character.MAX_CODE_POINT) {
+      final int block = this.buffer.getChar(this.indexOffset + (codepoint >>> BLOCK_BITS) * Character.BYTES);
+      // the index of a file opened without verifying may point past the blocks
+      if (block >= this.blocks) return this.handleMissing(codepoint, style);
+      final int value = this.buffer.get(this.blocksOffset + (block << BLOCK_BITS | codepoint & (BLOCK_SIZE - 1))) & 0xFF;
+      if (value < OVERFLOW) {
+        final float width = value * 0.5F;
+        return style.hasDecoration(TextDecoration.BOLD) ? width + this.boldOffset : width;
+      }
+      if (value == OVERFLOW) {
+        final int index = this.overflowIndex(codepoint);
+        if (index >= 0) {
+          final float width = this.buffer.getFloat(this.overflowOffset + (this.overflowCount + index) * Integer.BYTES);
+          return style.hasDecoration(TextDecoration.BOLD) ? width + this.boldOffset : width;
+        }
+      }
+    }
+    return this.handleMissing(codepoint, style);
+  }
+
+  @Override
+  public int fixedWidthOf(final int codepoint, final @NotNull Style style) {
+    if (codepoint >= 0 && codepoint <= Character.MAX_CODE_POINT) {
+      final int block = this.buffer.getChar(this.indexOffset + (codepoint >>> BLOCK_BITS) * Character.BYTES);
+      if (block >= this.blocks) return FixedWidth.fromPixels(this.handleMissing(codepoint, style));
+      final int value = this.buffer.get(this.blocksOffset + (block << BLOCK_BITS | codepoint & (BLOCK_SIZE - 1))) & 0xFF;
+      if (value < OVERFLOW) {
+        final int width = value * (FixedWidth.UNITS_PER_PIXEL / 2);
+        return style.hasDecoration(TextDecoration.BOLD) ? width + this.fixedBoldOffset : width;
+      }
+    }
+    return FixedWidth.fromPixels(this.widthOf(codepoint, style));
+  }
+
+  private int overflowIndex(final int codepoint) {
+    int low = 0;
+    int high = this.overflowCount - 1;
+    while (low <= high) {
+      final int middle = (low + high) >>> 1;
+      final int value = this.buffer.getInt(this.overflowOffset + middle * Integer.BYTES);
+      if (value < codepoint) {
+        low = middle + 1;
+      } else if (value > codepoint) {
+        high = middle - 1;
+      } else {
+        return middle;
+      }
+    }
+    return -1;
+  }
+}
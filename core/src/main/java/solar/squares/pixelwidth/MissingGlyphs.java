@@ -0,0 +1,328 @@
+/*
+ * This file is part of pixel-width, licensed under the MIT License.
+ *
+ * Copyright (c) 2022 KingOfSquares
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package solar.squares.pixelwidth;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+import net.kyori.adventure.text.format.Style;
+import org.jetbrains.annotations.NotNull;
+import solar.squares.pixelwidth.function.CharacterWidthFunction;
+
+/**
+ * Counts lookups of codepoints that a character width function has no width for.
+ *
+ * <p>{@link CharacterWidthFunction#handleMissing(int, Style)} records every missing codepoint here instead of logging it. Recording is lock-free: codepoints
+ * are counted in an open addressing table of atomic counters, so text full of emoji or CJK characters
+ * costs a few atomic operations per character. A summary of the most common missing codepoints is
+ * logged at most once per {@link #reportInterval(Duration) report interval}, built and logged on a
+ * daemon thread so the measuring thread never sorts or formats it. The counts can be read with
+ * {@link #top(int)} to find out which glyphs to add to a width table.</p>
+ *
+ * @since 1.2.0
+ */
+public final class MissingGlyphs {
+  private static final MissingGlyphs TRACKER = new MissingGlyphs(4096);
+  private static final int REPORTED = 10;
+
+  private final int capacity;
+  private final AtomicLong nextReport;
+  private volatile Table table;
+  private volatile long reportInterval = Duration.ofMinutes(1).toNanos();
+
+  MissingGlyphs(final int capacity) {
+    this.capacity = capacity;
+    this.table = new Table(capacity);
+    this.nextReport = new AtomicLong(System.nanoTime()); // report the first missing glyph right away
+  }
+
+  /**
+   * Gets the tracker used by {@link CharacterWidthFunction#handleMissing(int, Style)}.
+   *
+   * @return the missing glyph tracker
+   * @since 1.2.0
+   */
+  public static @NotNull MissingGlyphs tracker() {
+    return TRACKER;
+  }
+
+  /**
+   * Records a lookup of a missing codepoint.
+   *
+   * <p>Ints that are not valid codepoints are only counted in {@link #untracked()}.</p>
+   *
+   * @param codepoint the codepoint
+   * @since 1.2.0
+   */
+  public void record(final int codepoint) {
+    this.table.increment(codepoint);
+    final long now = System.nanoTime();
+    final long next = this.nextReport.get();
+    if (now - next >= 0 && this.nextReport.compareAndSet(next, now + this.reportInterval)) {
+      this.report();
+    }
+  }
+
+  /**
+   * Gets how often a codepoint was missing.
+   *
+   * <p>Codepoints recorded after the table filled up are only counted in {@link #untracked()}.</p>
+   *
+   * @param codepoint the codepoint
+   * @return the number of lookups
+   * @since 1.2.0
+   */
+  public long count(final int codepoint) {
+    return this.table.count(codepoint);
+  }
+
+  /**
+   * Gets the number of lookups of all missing codepoints.
+   *
+   * @return the number of lookups
+   * @since 1.2.0
+   */
+  public long total() {
+    final Table table = this.table;
+    return table.tracked() + table.untracked.sum();
+  }
+
+  /**
+   * Gets the number of lookups of codepoints that did not fit in the table of distinct codepoints.
+   *
+   * @return the number of untracked lookups
+   * @since 1.2.0
+   */
+  public long untracked() {
+    return this.table.untracked.sum();
+  }
+
+  /**
+   * Gets the most often missing codepoints.
+   *
+   * @param limit the maximum number of entries
+   * @return the entries, most often missing first
+   * @since 1.2.0
+   */
+  public @NotNull List<Entry> top(final int limit) {
+    final List<Entry> entries = this.table.entries();
+    entries.sort((a, b) -> a.count != b.count ? Long.compare(b.count, a.count) : Integer.compare(a.codepoint, b.codepoint));
+    return Collections.unmodifiableList(entries.size() > limit ? new ArrayList<>(entries.subList(0, limit)) : entries);
+  }
+
+  /**
+   * Forgets all recorded lookups.
+   *
+   * @since 1.2.0
+   */
+  public void reset() {
+    this.table = new Table(this.capacity);
+  }
+
+  /**
+   * Sets the minimum time between two logged summaries, one minute by default.
+   *
+   * @param interval the report interval
+   * @since 1.2.0
+   */
+  public void reportInterval(final @NotNull Duration interval) {
+    if (interval.isNegative()) throw new IllegalArgumentException("interval must not be negative");
+    this.reportInterval = interval.toNanos();
+  }
+
+  /**
+   * Builds the summary that is logged periodically.
+   *
+   * @return the summary
+   * @since 1.2.0
+   */
+  public @NotNull String summary() {
+    final List<Entry> top = this.top(REPORTED);
+    final StringBuilder builder = new StringBuilder("Missing glyphs: ")
+      .append(this.total()).append(" lookups of ").append(this.table.size()).append(" codepoints");
+    if (this.untracked() > 0) builder.append(" (").append(this.untracked()).append(" lookups not tracked)");
+    if (top.isEmpty()) return builder.toString();
+    builder.append(", most common:");
+    for (final Entry entry : top) builder.append(' ').append(entry).append(',');
+    builder.setLength(builder.length() - 1);
+    return builder.toString();
+  }
+
+  private void report() {
+    Reporter.EXECUTOR.execute(() -> Logging.log(Level.WARNING, this.summary()));
+  }
+
+  /**
+   * A missing codepoint and the number of times it was looked up.
+   *
+   * @since 1.2.0
+   */
+  public static final class Entry {
+    private final int codepoint;
+    private final long count;
+
+    Entry(final int codepoint, final long count) {
+      this.codepoint = codepoint;
+      this.count = count;
+    }
+
+    /**
+     * Gets the missing codepoint.
+     *
+     * @return the codepoint
+     * @since 1.2.0
+     */
+    public int codepoint() {
+      return this.codepoint;
+    }
+
+    /**
+     * Gets the number of lookups.
+     *
+     * @return the number of lookups
+     * @since 1.2.0
+     */
+    public long count() {
+      return this.count;
+    }
+
+    @Override
+    public boolean equals(final Object other) {
+      return other instanceof Entry && ((Entry) other).codepoint == this.codepoint && ((Entry) other).count == this.count;
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(this.codepoint, this.count);
+    }
+
+    @Override
+    public String toString() {
+      final String character = Character.isValidCodePoint(this.codepoint) && !Character.isISOControl(this.codepoint)
+        ? " \"" + new String(Character.toChars(this.codepoint)) + "\"" : "";
+      return String.format("U+%04X%s x%d", this.codepoint, character, this.count);
+    }
+  }
+
+  /**
+   * Holds the thread summaries are logged on, started when the first one is due.
+   */
+  private static final class Reporter {
+    // one daemon thread that exits when idle, a report arriving while another is queued is dropped
+    static final Executor EXECUTOR = new ThreadPoolExecutor(0, 1, 30, TimeUnit.SECONDS, new ArrayBlockingQueue<>(1), task -> {
+      final Thread thread = new Thread(task, "pixel-width-missing-glyphs");
+      thread.setDaemon(true);
+      return thread;
+    }, new ThreadPoolExecutor.DiscardPolicy());
+  }
+
+  /**
+   * An open addressing table from codepoint to count. Slots are claimed with a CAS on the key and
+   * never freed, a full table counts further codepoints as untracked.
+   */
+  private static final class Table {
+    private static final int MAX_PROBES = 16;
+
+    private final AtomicIntegerArray keys; // codepoint + 1, 0 is an empty slot
+    private final AtomicLongArray counts;
+    private final LongAdder untracked = new LongAdder();
+    private final int mask;
+
+    Table(final int capacity) {
+      final int size = Integer.highestOneBit(Math.max(capacity, 2) * 2 - 1);
+      this.keys = new AtomicIntegerArray(size);
+      this.counts = new AtomicLongArray(size);
+      this.mask = size - 1;
+    }
+
+    private int start(final int codepoint) {
+      final int hash = codepoint * 0x9E3779B9;
+      return (hash ^ hash >>> 16) & this.mask;
+    }
+
+    void increment(final int codepoint) {
+      if (!Character.isValidCodePoint(codepoint)) {
+        // the key of an invalid codepoint could be the empty slot or overflow
+        this.untracked.increment();
+        return;
+      }
+      final int key = codepoint + 1;
+      int slot = this.start(codepoint);
+      for (int probe = 0; probe < MAX_PROBES; probe++, slot = slot + 1 & this.mask) {
+        final int existing = this.keys.get(slot);
+        if (existing == key || existing == 0 && (this.keys.compareAndSet(slot, 0, key) || this.keys.get(slot) == key)) {
+          this.counts.incrementAndGet(slot);
+          return;
+        }
+      }
+      this.untracked.increment();
+    }
+
+    long count(final int codepoint) {
+      if (!Character.isValidCodePoint(codepoint)) return 0;
+      final int key = codepoint + 1;
+      int slot = this.start(codepoint);
+      for (int probe = 0; probe < MAX_PROBES; probe++, slot = slot + 1 & this.mask) {
+        final int existing = this.keys.get(slot);
+        if (existing == key) return this.counts.get(slot);
+        if (existing == 0) return 0;
+      }
+      return 0;
+    }
+
+    long tracked() {
+      long total = 0;
+      for (int slot = 0; slot < this.counts.length(); slot++) total += this.counts.get(slot);
+      return total;
+    }
+
+    int size() {
+      int size = 0;
+      for (int slot = 0; slot < this.keys.length(); slot++) {
+        if (this.keys.get(slot) != 0) size++;
+      }
+      return size;
+    }
+
+    List<Entry> entries() {
+      final List<Entry> entries = new ArrayList<>();
+      for (int slot = 0; slot < this.keys.length(); slot++) {
+        final int key = this.keys.get(slot);
+        if (key != 0) entries.add(new Entry(key - 1, this.counts.get(slot)));
+      }
+      return entries;
+    }
+  }
+}
@@ -29,16 +29,22 @@ import net.kyori.adventure.text.flattener.ComponentFlattener;
 import net.kyori.adventure.text.format.Style;
 import org.jetbrains.annotations.NotNull;
 import solar.squares.pixelwidth.function.CharacterWidthFunction;
+import solar.squares.pixelwidth.internal.Sources;
 
 /**
  * A source able to return the width of text with the usage of {@link CharacterWidthFunction}s.
  *
+ * <p>The widths of strings and components are sums of {@link CharacterWidthFunction#fixedWidthOf(int, Style)},
+ * so every character is rounded to the nearest {@link FixedWidth#UNITS_PER_PIXEL eighth} of a pixel
+ * before adding it up, also by the {@code float} methods. Only the width of a single character is
+ * returned exactly as the function gives it.</p>
+ *
  * @since 1.0.0
  */
 public interface PixelWidthSource {
 
   /**
-   * A pixel width source calculating width. Returns a static instance.
+   * A pixel width source calculating width using {@link TableCharacterWidthFunction#DEFAULT}. Returns a static instance.
    *
    * @return a pixel width source
    * @since 1.0.0
@@ -48,14 +54,14 @@ public interface PixelWidthSource {
   }
 
   /**
-   * A pixel width source calculating width using the provided flattener.
+   * A pixel width source calculating width using the provided flattener and {@link TableCharacterWidthFunction#DEFAULT}.
    *
    * @param flattener used to turn components into linear text
    * @return a pixel width source
    * @since 1.0.0
    */
   static @NotNull PixelWidthSource pixelWidth(final @NotNull ComponentFlattener flattener) {
-    return pixelWidth(flattener, DefaultCharacterWidthFunction.INSTANCE);
+    return pixelWidth(flattener, TableCharacterWidthFunction.DEFAULT);
   }
 
   /**
@@ -83,6 +89,16 @@ public interface PixelWidthSource {
     return new PixelWidthSourceImpl<>(flattener, cx -> characterWidthFunction);
   }
 
+  /**
+   * Gets the flattener this source uses to turn components into linear text.
+   *
+   * @return a component flattener
+   * @since 1.2.0
+   */
+  default @NotNull ComponentFlattener flattener() {
+    return ComponentFlattener.basic();
+  }
+
   /**
    * Calculates the pixel width of a component without any context.
    *
@@ -102,6 +118,33 @@ public interface PixelWidthSource {
    */
   float width(final @NotNull String string, final @NotNull Style style);
 
+  /**
+   * Calculates the pixel width of a char sequence without any context.
+   *
+   * @param text  a char sequence
+   * @param style the style of the text
+   * @return the pixel width of the text
+   * @since 1.2.0
+   */
+  default float width(final @NotNull CharSequence text, final @NotNull Style style) {
+    return this.width(text.toString(), style);
+  }
+
+  /**
+   * Calculates the pixel width of a range of a char array without any context.
+   *
+   * @param chars  a char array
+   * @param offset the index of the first char to measure
+   * @param length the number of chars to measure
+   * @param style  the style of the chars
+   * @return the pixel width of the chars
+   * @throws IndexOutOfBoundsException if the range is outside of the array
+   * @since 1.2.0
+   */
+  default float width(final char @NotNull [] chars, final int offset, final int length, final @NotNull Style style) {
+    return this.width(new String(chars, offset, length), style);
+  }
+
   /**
    * Calculates the pixel width of a character without any context.
    *
@@ -121,5 +164,89 @@ public interface PixelWidthSource {
    * @since 1.0.0
    */
   float width(final int codepoint, final @NotNull Style style);
-}
 
+  /**
+   * Calculates the width of a component without any context, in {@link FixedWidth fixed-point} units.
+   *
+   * @param component a component
+   * @return the width of the component in fixed-point units
+   * @since 1.2.0
+   */
+  default int fixedWidth(final @NotNull Component component) {
+    return FixedWidth.fromPixels(this.width(component));
+  }
+
+  /**
+   * Calculates the width of a string without any context, in {@link FixedWidth fixed-point} units.
+   *
+   * @param string a string
+   * @param style  the style of the string
+   * @return the width of the string in fixed-point units
+   * @since 1.2.0
+   */
+  default int fixedWidth(final @NotNull String string, final @NotNull Style style) {
+    return FixedWidth.fromPixels(this.width(string, style));
+  }
+
+  /**
+   * Calculates the width of a char sequence without any context, in {@link FixedWidth fixed-point} units.
+   *
+   * @param text  a char sequence
+   * @param style the style of the text
+   * @return the width of the text in fixed-point units
+   * @since 1.2.0
+   */
+  default int fixedWidth(final @NotNull CharSequence text, final @NotNull Style style) {
+    return FixedWidth.fromPixels(this.width(text, style));
+  }
+
+  /**
+   * Calculates the width of a range of a char array without any context, in {@link FixedWidth fixed-point} units.
+   *
+   * @param chars  a char array
+   * @param offset the index of the first char to measure
+   * @param length the number of chars to measure
+   * @param style  the style of the chars
+   * @return the width of the chars in fixed-point units
+   * @throws IndexOutOfBoundsException if the range is outside of the array
+   * @since 1.2.0
+   */
+  default int fixedWidth(final char @NotNull [] chars, final int offset, final int length, final @NotNull Style style) {
+    return FixedWidth.fromPixels(this.width(chars, offset, length, style));
+  }
+
+  /**
+   * Calculates the width of a character represented by a codepoint without any context, in
+   * {@link FixedWidth fixed-point} units.
+   *
+   * @param codepoint a codepoint representing a character
+   * @param style     the style of the character
+   * @return the width of the character in fixed-point units
+   * @since 1.2.0
+   */
+  default int fixedWidth(final int codepoint, final @NotNull Style style) {
+    return FixedWidth.fromPixels(this.width(codepoint, style));
+  }
+
+  /**
+   * Calculates the pixel width of a compiled component without any context.
+   *
+   * @param compiled a compiled component
+   * @return the pixel width of the component
+   * @since 1.2.0
+   */
+  default float width(final @NotNull CompiledComponent compiled) {
+    return compiled.width(Sources.function(this));
+  }
+
+  /**
+   * Calculates the width of a compiled component without any context, in {@link FixedWidth fixed-point} units.
+   *
+   * @param compiled a compiled component
+   * @return the width of the component in fixed-point units
+   * @since 1.2.0
+   */
+  default int fixedWidth(final @NotNull CompiledComponent compiled) {
+    return compiled.fixedWidth(Sources.function(this));
+  }
+}
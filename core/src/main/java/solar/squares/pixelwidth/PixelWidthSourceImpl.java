@@ -23,9 +23,13 @@
  */
 package solar.squares.pixelwidth;
 
-import java.util.LinkedList;
 import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
 import java.util.function.Function;
+import net.kyori.adventure.key.Key;
 import net.kyori.adventure.text.Component;
 import net.kyori.adventure.text.TextComponent;
 import net.kyori.adventure.text.flattener.ComponentFlattener;
@@ -46,10 +50,14 @@ import solar.squares.pixelwidth.function.CharacterWidthFunction;
 
 final class PixelWidthSourceImpl<CX> implements ContextualPixelWidthSource<CX> {
 
-  static final PixelWidthSource INSTANCE = new PixelWidthSourceImpl<>(ComponentFlattener.basic(), cx -> DefaultCharacterWidthFunction.INSTANCE);
+  static final PixelWidthSource INSTANCE = new PixelWidthSourceImpl<>(ComponentFlattener.basic(), cx -> TableCharacterWidthFunction.DEFAULT);
 
   private final ComponentFlattener flattener;
   private final Function<CX, CharacterWidthFunction> characterWidthFunction;
+  private final boolean walkTextComponents;
+  private final @Nullable ForkJoinPool pool;
+  private final int parallelThreshold;
+  private final @Nullable BoundedCache<Subtree, Subtree> subtrees;
 
   /**
    * Creates a pixel width source with a function used for getting a {@link CharacterWidthFunction}.
@@ -62,60 +70,369 @@ final class PixelWidthSourceImpl<CX> implements ContextualPixelWidthSource<CX> {
    * @since 1.0.0
    */
   PixelWidthSourceImpl(final @NotNull ComponentFlattener flattener, final @NotNull Function<@Nullable CX, CharacterWidthFunction> characterWidthFunction) {
+    this(flattener, characterWidthFunction, null, Integer.MAX_VALUE, 0);
+  }
+
+  PixelWidthSourceImpl(final @NotNull ComponentFlattener flattener, final @NotNull Function<@Nullable CX, CharacterWidthFunction> characterWidthFunction, final @Nullable ForkJoinPool pool, final int parallelThreshold, final int subtreeCacheSize) {
     this.flattener = flattener;
     this.characterWidthFunction = characterWidthFunction;
+    // The basic flattener maps text components to their content, so they can be walked directly
+    this.walkTextComponents = flattener == ComponentFlattener.basic();
+    this.pool = pool;
+    this.parallelThreshold = parallelThreshold;
+    this.subtrees = subtreeCacheSize > 0 ? new BoundedCache<>(subtreeCacheSize) : null;
+  }
+
+  @Override
+  public @NotNull CharacterWidthFunction characterWidthFunction(final @Nullable CX context) {
+    return this.characterWidthFunction.apply(context);
+  }
+
+  @Override
+  public @NotNull ComponentFlattener flattener() {
+    return this.flattener;
   }
 
   @Override
   public float width(final @NotNull Component component, final @Nullable CX context) {
-    final float[] length = {0};
+    return FixedWidth.toPixels(this.fixedWidth(component, context));
+  }
 
-    this.flattener.flatten(component, new FlattenerListener() {
-      final List<Style> styles = new LinkedList<>();
-      Style currentStyle = Style.empty();
+  @Override
+  public int fixedWidth(final @NotNull Component component, final @Nullable CX context) {
+    final Object event = Telemetry.beginComponentWidth();
+    final WidthListener listener = new WidthListener(this.characterWidthFunction.apply(context));
+    if (this.walkTextComponents) {
+      // the root is rarely measured again, only the fragments below it are worth caching
+      this.walk(component, listener, false);
+    } else {
+      this.flattener.flatten(component, listener);
+    }
+    if (event != null) Telemetry.commitComponentWidth(event, listener.nodes, listener.characters, FixedWidth.toPixels(listener.width), context);
+    return listener.width;
+  }
 
-      @Override
-      public void pushStyle(final @NotNull Style style) {
-        this.styles.add(style);
-        this.calculateStyle();
+  /**
+   * Walks a component tree, descending into {@link TextComponent}s directly and only using the
+   * flattener for the other component types.
+   *
+   * @param component a component
+   * @param listener the listener holding the inherited style and the width so far
+   * @param cache whether the width of the component may be looked up in and added to the subtree cache
+   */
+  private void walk(final @NotNull Component component, final @NotNull WidthListener listener, final boolean cache) {
+    if (!(component instanceof TextComponent)) {
+      this.flattener.flatten(component, listener);
+      return;
+    }
+    final List<Component> children = component.children();
+    final int size = children.size();
+    final Subtree subtree;
+    if (cache && this.subtrees != null && size > 0 && !listener.styles.full()) {
+      // A subtree's width only depends on the decorations and font it inherits and the function measuring it
+      subtree = new Subtree(component, listener.styles.decorations(), listener.styles.font(), listener.function);
+      final Subtree cached = this.subtrees.get(subtree);
+      if (cached != null) {
+        listener.width += cached.width;
+        listener.nodes += cached.nodes;
+        listener.characters += cached.characters;
+        return;
       }
-
-      @Override
-      public void component(final @NotNull String text) {
-        length[0] += PixelWidthSourceImpl.this.width(text, this.currentStyle, context);
+    } else {
+      subtree = null;
+    }
+    final int width = listener.width;
+    final int nodes = listener.nodes;
+    final int characters = listener.characters;
+    final Style style = component.style();
+    listener.pushStyle(style);
+    listener.component(((TextComponent) component).content());
+    if (size >= this.parallelThreshold) {
+      final WidthTask task = new WidthTask(listener, children, 0, size);
+      // only run in place on workers of the configured pool, not on those of the common pool or another one
+      listener.add(ForkJoinTask.getPool() == this.pool ? task.invoke() : this.pool.invoke(task));
+    } else {
+      for (int i = 0; i < size; i++) {
+        this.walk(children.get(i), listener, true);
       }
+    }
+    listener.popStyle(style);
+    if (subtree != null) {
+      subtree.width = listener.width - width;
+      subtree.nodes = listener.nodes - nodes;
+      subtree.characters = listener.characters - characters;
+      this.subtrees.put(subtree, subtree);
+    }
+  }
+
+  /**
+   * Measures a range of the children of a wide component, splitting it in halves until the ranges
+   * are small enough to walk sequentially.
+   */
+  private final class WidthTask extends RecursiveTask<WidthListener> {
+    private static final long serialVersionUID = 1L;
+    private final WidthListener parent;
+    private final List<Component> children;
+    private final int from;
+    private final int to;
 
-      @Override
-      public void popStyle(final @NotNull Style style) {
-        this.styles.remove(this.styles.size() - 1);
-        this.calculateStyle();
+    WidthTask(final @NotNull WidthListener parent, final @NotNull List<Component> children, final int from, final int to) {
+      this.parent = parent;
+      this.children = children;
+      this.from = from;
+      this.to = to;
+    }
+
+    @Override
+    protected WidthListener compute() {
+      if (this.to - this.from > Math.max(1, PixelWidthSourceImpl.this.parallelThreshold / 2)) {
+        final int middle = (this.from + this.to) >>> 1;
+        final WidthTask left = new WidthTask(this.parent, this.children, this.from, middle);
+        left.fork();
+        final WidthListener right = new WidthTask(this.parent, this.children, middle, this.to).compute();
+        final WidthListener result = left.join();
+        result.add(right);
+        return result;
+      }
+      final WidthListener listener = new WidthListener(this.parent);
+      for (int i = this.from; i < this.to; i++) {
+        PixelWidthSourceImpl.this.walk(this.children.get(i), listener, true);
       }
+      return listener;
+    }
+  }
+
+  @Override
+  public float width(final @NotNull String string, final @NotNull Style style, final @Nullable CX context) {
+    return FixedWidth.toPixels(this.fixedWidth(string, style, context));
+  }
+
+  @Override
+  public int fixedWidth(final @NotNull String string, final @NotNull Style style, final @Nullable CX context) {
+    return fixedWidth(this.characterWidthFunction.apply(context).font(style.font()), string, style);
+  }
 
-      private void calculateStyle() {
-        final Style.Builder newStyle = Style.style();
-        for (final Style style : this.styles) {
-          newStyle.merge(style);
+  /**
+   * Sums the fixed-point width of text, measuring surrogate pairs as one codepoint.
+   *
+   * @param function the function for the font of the text
+   * @param text the text
+   * @param style the style of the text
+   * @return the width in {@link FixedWidth fixed-point} units
+   */
+  static int fixedWidth(final @NotNull CharacterWidthFunction function, final @NotNull CharSequence text, final @NotNull Style style) {
+    if (function instanceof TableCharacterWidthFunction && text instanceof String) return ((TableCharacterWidthFunction) function).fixedWidth((String) text, style);
+    final int length = text.length();
+    int width = 0;
+    for (int i = 0; i < length; i++) {
+      final char c = text.charAt(i);
+      if (Character.isHighSurrogate(c) && i + 1 < length) {
+        final char low = text.charAt(i + 1);
+        if (Character.isLowSurrogate(low)) {
+          width += function.fixedWidthOf(Character.toCodePoint(c, low), style);
+          i++;
+          continue;
         }
-        this.currentStyle = newStyle.build();
       }
-    });
+      width += function.fixedWidthOf(c, style);
+    }
+    return width;
+  }
 
-    return length[0];
+  @Override
+  public float width(final @NotNull CharSequence text, final @NotNull Style style, final @Nullable CX context) {
+    return FixedWidth.toPixels(this.fixedWidth(text, style, context));
   }
 
   @Override
-  public float width(final @NotNull String string, final @NotNull Style style, final @Nullable CX context) {
-    return (float) string.codePoints().mapToDouble(codepoint -> this.characterWidthFunction.apply(context).widthOf(codepoint, style)).sum();
+  public int fixedWidth(final @NotNull CharSequence text, final @NotNull Style style, final @Nullable CX context) {
+    return fixedWidth(this.characterWidthFunction.apply(context).font(style.font()), text, style);
+  }
+
+  @Override
+  public float width(final char @NotNull [] chars, final int offset, final int length, final @NotNull Style style, final @Nullable CX context) {
+    return FixedWidth.toPixels(this.fixedWidth(chars, offset, length, style, context));
+  }
+
+  @Override
+  public int fixedWidth(final char @NotNull [] chars, final int offset, final int length, final @NotNull Style style, final @Nullable CX context) {
+    if (offset < 0 || length < 0 || offset > chars.length - length)
+      throw new IndexOutOfBoundsException("Range [" + offset + ", " + offset + " + " + length + ") out of bounds for length " + chars.length);
+    final CharacterWidthFunction function = this.characterWidthFunction.apply(context).font(style.font());
+    final int end = offset + length;
+    int width = 0;
+    for (int i = offset; i < end; i++) {
+      final char c = chars[i];
+      if (Character.isHighSurrogate(c) && i + 1 < end) {
+        final char low = chars[i + 1];
+        if (Character.isLowSurrogate(low)) {
+          width += function.fixedWidthOf(Character.toCodePoint(c, low), style);
+          i++;
+          continue;
+        }
+      }
+      width += function.fixedWidthOf(c, style);
+    }
+    return width;
   }
 
   @Override
   public float width(final char c, final @NotNull Style style, final @Nullable CX context) {
-    return this.characterWidthFunction.apply(context).widthOf(c, style);
+    return this.characterWidthFunction.apply(context).font(style.font()).widthOf(c, style);
   }
 
   @Override
   public float width(final int codepoint, final @NotNull Style style, final @Nullable CX context) {
-    return this.characterWidthFunction.apply(context).widthOf(codepoint, style);
+    return this.characterWidthFunction.apply(context).font(style.font()).widthOf(codepoint, style);
+  }
+
+  @Override
+  public int fixedWidth(final int codepoint, final @NotNull Style style, final @Nullable CX context) {
+    return this.characterWidthFunction.apply(context).font(style.font()).fixedWidthOf(codepoint, style);
   }
-}
 
+  /**
+   * A text component with children, together with everything its width depends on: the decorations
+   * and font it inherits and the function measuring it. The component and function are compared by
+   * reference, so swapping the function, for example when reloading a profile, misses all entries.
+   *
+   * <p>Subtrees are their own cache values, carrying the width and the counts reported to telemetry
+   * once measured.</p>
+   */
+  private static final class Subtree {
+    private final Component component;
+    private final int decorations;
+    private final @Nullable Key font;
+    private final CharacterWidthFunction function;
+    private final int hash;
+    int width;
+    int nodes;
+    int characters;
+
+    Subtree(final @NotNull Component component, final int decorations, final @Nullable Key font, final @NotNull CharacterWidthFunction function) {
+      this.component = component;
+      this.decorations = decorations;
+      this.font = font;
+      this.function = function;
+      this.hash = 31 * (31 * (31 * System.identityHashCode(component) + decorations) + Objects.hashCode(font)) + System.identityHashCode(function);
+    }
+
+    @Override
+    public boolean equals(final Object other) {
+      if (this == other) return true;
+      if (!(other instanceof Subtree)) return false;
+      final Subtree that = (Subtree) other;
+      return this.component == that.component && this.decorations == that.decorations && Objects.equals(this.font, that.font) && this.function == that.function;
+    }
+
+    @Override
+    public int hashCode() {
+      return this.hash;
+    }
+  }
+
+  /**
+   * Sums the {@link FixedWidth fixed-point} width of flattened text, tracking only the width relevant
+   * parts of the styles when the function allows it.
+   *
+   * <p>The function for the current font is only resolved again when the font changes.</p>
+   */
+  static final class WidthListener implements FlattenerListener {
+    final CharacterWidthFunction function;
+    final StyleStack styles;
+    private CharacterWidthFunction active;
+    private Key activeFont;
+    int width;
+    int nodes;
+    int characters;
+
+    WidthListener(final @NotNull CharacterWidthFunction function) {
+      this.function = function;
+      this.styles = new StyleStack(function);
+      this.active = function.font(null);
+    }
+
+    /**
+     * Creates a listener continuing with the current style of another listener, starting at zero width.
+     *
+     * @param parent the listener holding the inherited style
+     */
+    WidthListener(final @NotNull WidthListener parent) {
+      this.function = parent.function;
+      this.styles = new StyleStack(parent.styles);
+      this.active = parent.active;
+      this.activeFont = parent.activeFont;
+    }
+
+    /**
+     * Adds the width and counts of a listener that measured part of the same tree.
+     *
+     * @param other the other listener
+     */
+    void add(final @NotNull WidthListener other) {
+      this.width += other.width;
+      this.nodes += other.nodes;
+      this.characters += other.characters;
+    }
+
+    @Override
+    public void pushStyle(final @NotNull Style style) {
+      this.styles.push(style);
+      this.nodes++;
+    }
+
+    @Override
+    public void component(final @NotNull String text) {
+      final Key font = this.styles.font();
+      if (font != this.activeFont) {
+        this.active = this.function.font(font);
+        this.activeFont = font;
+      }
+      this.width += PixelWidthSourceImpl.fixedWidth(this.active, text, this.styles.style());
+      this.characters += text.length();
+    }
+
+    @Override
+    public void popStyle(final @NotNull Style style) {
+      this.styles.pop();
+    }
+  }
+
+  static final class BuilderImpl<CX> implements ContextualPixelWidthSource.Builder<CX> {
+    private final Function<@Nullable CX, CharacterWidthFunction> function;
+    private ComponentFlattener flattener = ComponentFlattener.basic();
+    private @Nullable ForkJoinPool pool;
+    private int parallelThreshold = Integer.MAX_VALUE;
+    private int subtreeCacheSize;
+
+    BuilderImpl(final @NotNull Function<@Nullable CX, CharacterWidthFunction> function) {
+      this.function = Objects.requireNonNull(function, "function");
+    }
+
+    @Override
+    public ContextualPixelWidthSource.@NotNull Builder<CX> flattener(final @NotNull ComponentFlattener flattener) {
+      this.flattener = Objects.requireNonNull(flattener, "flattener");
+      return this;
+    }
+
+    @Override
+    public ContextualPixelWidthSource.@NotNull Builder<CX> parallel(final @NotNull ForkJoinPool pool, final int threshold) {
+      if (threshold < 2) throw new IllegalArgumentException("threshold must be at least 2, was " + threshold);
+      this.pool = Objects.requireNonNull(pool, "pool");
+      this.parallelThreshold = threshold;
+      return this;
+    }
+
+    @Override
+    public ContextualPixelWidthSource.@NotNull Builder<CX> subtreeCache(final int maximumSize) {
+      if (maximumSize < 1) throw new IllegalArgumentException("maximumSize must be positive, was " + maximumSize);
+      this.subtreeCacheSize = maximumSize;
+      return this;
+    }
+
+    @Override
+    public @NotNull ContextualPixelWidthSource<CX> build() {
+      return new PixelWidthSourceImpl<>(this.flattener, this.function, this.pool, this.parallelThreshold, this.subtreeCacheSize);
+    }
+  }
+}
@@ -0,0 +1,146 @@
+/*
+ * This file is part of pixel-width, licensed under the MIT License.
+ *
+ * Copyright (c) 2022 KingOfSquares
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package solar.squares.pixelwidth;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.stream.Stream;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Reloads a {@link ReloadablePixelWidthSource} on a daemon thread when a watched path changes.
+ */
+final class ProfileWatcher implements Closeable, Runnable {
+  // Packs are usually replaced by copying many files, wait for the copy to finish before reloading
+  private static final long QUIET_MILLIS = 500;
+
+  private final ReloadablePixelWidthSource source;
+  private final Path path;
+  private final @Nullable Path file;
+  private final WatchService service;
+  private final Thread thread;
+  private volatile boolean closed;
+
+  ProfileWatcher(final @NotNull ReloadablePixelWidthSource source, final @NotNull Path path) throws IOException {
+    this.source = source;
+    this.path = path.toAbsolutePath();
+    this.service = this.path.getFileSystem().newWatchService();
+    try {
+      if (Files.isDirectory(this.path)) {
+        this.file = null;
+        this.registerAll(this.path);
+      } else {
+        this.file = this.path.getFileName();
+        this.register(this.path.getParent());
+      }
+    } catch (final IOException e) {
+      this.service.close();
+      throw e;
+    }
+    this.thread = new Thread(this, "pixel-width-profile-watcher");
+    this.thread.setDaemon(true);
+    this.thread.start();
+  }
+
+  private void register(final Path directory) throws IOException {
+    directory.register(this.service, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_DELETE, StandardWatchEventKinds.ENTRY_MODIFY);
+  }
+
+  private void registerAll(final Path directory) throws IOException {
+    try (final Stream<Path> directories = Files.walk(directory)) {
+      for (final Path child : (Iterable<Path>) directories.filter(Files::isDirectory)::iterator) {
+        this.register(child);
+      }
+    }
+  }
+
+  @Override
+  public void run() {
+    try {
+      while (!this.closed) {
+        if (!this.drain(this.service.take())) continue;
+        WatchKey next;
+        while ((next = this.service.poll(QUIET_MILLIS, TimeUnit.MILLISECONDS)) != null) this.drain(next);
+        try {
+          final WidthProfile profile = this.source.reload();
+          Logging.log(Level.INFO, "Reloaded width profile " + profile.name() + " after changes in " + this.path);
+        } catch (final IOException | RuntimeException e) {
+          Logging.log(Level.WARNING, "Failed to reload width profile after changes in " + this.path + ", keeping the current profile: " + e);
+        }
+      }
+    } catch (final InterruptedException | ClosedWatchServiceException e) {
+      // closed
+    }
+  }
+
+  /**
+   * Handles the events of a key.
+   *
+   * @param key the signalled key
+   * @return whether any of the events should trigger a reload
+   */
+  private boolean drain(final WatchKey key) {
+    boolean relevant = false;
+    final Path directory = (Path) key.watchable();
+    for (final WatchEvent<?> event : key.pollEvents()) {
+      if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+        relevant = true;
+        continue;
+      }
+      final Path name = (Path) event.context();
+      if (this.file != null) {
+        relevant |= name.equals(this.file);
+        continue;
+      }
+      relevant = true;
+      final Path child = directory.resolve(name);
+      if (event.kind() == StandardWatchEventKinds.ENTRY_CREATE && Files.isDirectory(child)) {
+        try {
+          this.registerAll(child);
+        } catch (final IOException e) {
+          Logging.log(Level.WARNING, "Failed to watch new directory " + child + ": " + e);
+        }
+      }
+    }
+    key.reset();
+    return relevant;
+  }
+
+  @Override
+  public void close() throws IOException {
+    this.closed = true;
+    this.service.close();
+    this.thread.interrupt();
+  }
+}
@@ -0,0 +1,160 @@
+/*
+ * This file is part of pixel-width, licensed under the MIT License.
+ *
+ * Copyright (c) 2022 KingOfSquares
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package solar.squares.pixelwidth;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Objects;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * A pixel width source whose {@link WidthProfile} can be replaced while it is in use.
+ *
+ * <p>Swapping a profile is atomic: measurements never lock, and a measurement that started before a
+ * swap finishes with the old profile. Each profile gets its own width cache when caching is enabled,
+ * so cached widths of the old profile are dropped in the same swap.</p>
+ *
+ * @since 1.2.0
+ */
+public interface ReloadablePixelWidthSource extends PixelWidthSource {
+  /**
+   * Creates a reloadable source measuring with a profile, without a loader or cache.
+   *
+   * @param profile the initial profile
+   * @return a reloadable pixel width source
+   * @since 1.2.0
+   */
+  static @NotNull ReloadablePixelWidthSource reloadable(final @NotNull WidthProfile profile) {
+    return new ReloadablePixelWidthSourceImpl(Objects.requireNonNull(profile, "profile"), null, 0);
+  }
+
+  /**
+   * Creates a builder for a reloadable source.
+   *
+   * @return a builder
+   * @since 1.2.0
+   */
+  static @NotNull Builder builder() {
+    return new ReloadablePixelWidthSourceImpl.BuilderImpl();
+  }
+
+  /**
+   * Gets the profile currently used for measuring.
+   *
+   * @return the current profile
+   * @since 1.2.0
+   */
+  @NotNull WidthProfile profile();
+
+  /**
+   * Replaces the profile used for measuring.
+   *
+   * @param profile the new profile
+   * @return the previous profile
+   * @since 1.2.0
+   */
+  @NotNull WidthProfile swap(final @NotNull WidthProfile profile);
+
+  /**
+   * Loads a new profile with the loader of this source and swaps to it.
+   *
+   * <p>If loading fails the current profile stays in use.</p>
+   *
+   * @return the new profile
+   * @throws IOException if the profile can not be loaded
+   * @throws IllegalStateException if this source has no loader
+   * @since 1.2.0
+   */
+  @NotNull WidthProfile reload() throws IOException;
+
+  /**
+   * Reloads this source whenever a file in a directory changes.
+   *
+   * <p>Subdirectories are watched as well. If {@code path} is a file, such as a zipped resource pack,
+   * only changes to that file trigger a reload. Changes are collected until the path has been quiet
+   * for a moment, then the profile is reloaded on the watching thread. Failures are logged and leave
+   * the current profile in use.</p>
+   *
+   * @param path the directory or file to watch
+   * @return a handle that stops watching when closed
+   * @throws IOException if the path can not be watched
+   * @throws IllegalStateException if this source has no loader
+   * @since 1.2.0
+   */
+  @NotNull Closeable watch(final @NotNull Path path) throws IOException;
+
+  /**
+   * Gets the width cache of the current profile.
+   *
+   * @return the cache of the current profile, or {@code null} if caching is disabled
+   * @since 1.2.0
+   */
+  @Nullable CachedPixelWidthSource<?> cache();
+
+  /**
+   * A builder for {@link ReloadablePixelWidthSource}s.
+   *
+   * @since 1.2.0
+   */
+  interface Builder {
+    /**
+     * Sets the initial profile. If none is set, the loader is used to load it.
+     *
+     * @param profile the initial profile
+     * @return this builder
+     * @since 1.2.0
+     */
+    @NotNull Builder profile(final @NotNull WidthProfile profile);
+
+    /**
+     * Sets the loader used by {@link #reload()} and {@link #watch(Path)}.
+     *
+     * @param loader the profile loader
+     * @return this builder
+     * @since 1.2.0
+     */
+    @NotNull Builder loader(final @NotNull WidthProfile.Loader loader);
+
+    /**
+     * Caches component widths of each profile, see {@link CachedPixelWidthSource}.
+     *
+     * @param maximumSize the maximum number of cached widths per profile, {@code 0} to disable caching
+     * @return this builder
+     * @since 1.2.0
+     */
+    @NotNull Builder cache(final int maximumSize);
+
+    /**
+     * Builds the reloadable source.
+     *
+     * @return a reloadable pixel width source
+     * @throws IOException if the initial profile had to be loaded and that failed
+     * @throws IllegalStateException if neither an initial profile nor a loader is set
+     * @since 1.2.0
+     */
+    @NotNull ReloadablePixelWidthSource build() throws IOException;
+  }
+}
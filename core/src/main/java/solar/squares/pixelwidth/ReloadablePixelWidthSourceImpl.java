@@ -0,0 +1,206 @@
+/*
+ * This file is part of pixel-width, licensed under the MIT License.
+ *
+ * Copyright (c) 2022 KingOfSquares
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package solar.squares.pixelwidth;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicReference;
+import net.kyori.adventure.text.Component;
+import net.kyori.adventure.text.flattener.ComponentFlattener;
+import net.kyori.adventure.text.format.Style;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import solar.squares.pixelwidth.function.CharacterWidthFunction;
+
+/**
+ * A reloadable source holding its profile and the source measuring with it in one atomically swapped snapshot.
+ *
+ * <p>This is also a contextual source ignoring its context. Each of its methods reads the snapshot
+ * once, code needing several parts of a profile for one operation, like the flattener and the
+ * character width function, takes them from {@link solar.squares.pixelwidth.internal.Sources#snapshot(PixelWidthSource)}.</p>
+ */
+final class ReloadablePixelWidthSourceImpl implements ReloadablePixelWidthSource, ContextualPixelWidthSource<Object> {
+  private final AtomicReference<Snapshot> snapshot;
+  private final WidthProfile.Loader loader;
+  private final int cacheSize;
+  private final Object reloadLock = new Object();
+
+  ReloadablePixelWidthSourceImpl(final @NotNull WidthProfile profile, final WidthProfile.@Nullable Loader loader, final int cacheSize) {
+    this.loader = loader;
+    this.cacheSize = cacheSize;
+    this.snapshot = new AtomicReference<>(this.snapshot(profile));
+  }
+
+  private Snapshot snapshot(final WidthProfile profile) {
+    if (this.cacheSize == 0) return new Snapshot(profile, profile.source(), null);
+    final CachedPixelWidthSource<Object> cache = CachedPixelWidthSource.builder(profile.source()).maximumSize(this.cacheSize).build();
+    return new Snapshot(profile, cache, cache);
+  }
+
+  @Override
+  public @NotNull WidthProfile profile() {
+    return this.snapshot.get().profile;
+  }
+
+  @Override
+  public @NotNull WidthProfile swap(final @NotNull WidthProfile profile) {
+    Objects.requireNonNull(profile, "profile");
+    return this.snapshot.getAndSet(this.snapshot(profile)).profile;
+  }
+
+  @Override
+  public @NotNull WidthProfile reload() throws IOException {
+    if (this.loader == null) throw new IllegalStateException("This source has no profile loader");
+    synchronized (this.reloadLock) {
+      final WidthProfile profile = Objects.requireNonNull(this.loader.load(), "loaded profile");
+      this.swap(profile);
+      return profile;
+    }
+  }
+
+  @Override
+  public @NotNull Closeable watch(final @NotNull Path path) throws IOException {
+    if (this.loader == null) throw new IllegalStateException("This source has no profile loader");
+    return new ProfileWatcher(this, Objects.requireNonNull(path, "path"));
+  }
+
+  @Override
+  public @Nullable CachedPixelWidthSource<?> cache() {
+    return this.snapshot.get().cache;
+  }
+
+  @Override
+  public @NotNull CharacterWidthFunction characterWidthFunction(final @Nullable Object context) {
+    return this.snapshot.get().profile.function();
+  }
+
+  @Override
+  public @NotNull ComponentFlattener flattener() {
+    return this.snapshot.get().profile.flattener();
+  }
+
+  @Override
+  public float width(final @NotNull Component component, final @Nullable Object context) {
+    return this.snapshot.get().source.width(component);
+  }
+
+  @Override
+  public int fixedWidth(final @NotNull Component component, final @Nullable Object context) {
+    return this.snapshot.get().source.fixedWidth(component);
+  }
+
+  @Override
+  public float width(final @NotNull String string, final @NotNull Style style, final @Nullable Object context) {
+    return this.snapshot.get().source.width(string, style);
+  }
+
+  @Override
+  public int fixedWidth(final @NotNull String string, final @NotNull Style style, final @Nullable Object context) {
+    return this.snapshot.get().source.fixedWidth(string, style);
+  }
+
+  @Override
+  public float width(final @NotNull CharSequence text, final @NotNull Style style, final @Nullable Object context) {
+    return this.snapshot.get().source.width(text, style);
+  }
+
+  @Override
+  public int fixedWidth(final @NotNull CharSequence text, final @NotNull Style style, final @Nullable Object context) {
+    return this.snapshot.get().source.fixedWidth(text, style);
+  }
+
+  @Override
+  public float width(final char @NotNull [] chars, final int offset, final int length, final @NotNull Style style, final @Nullable Object context) {
+    return this.snapshot.get().source.width(chars, offset, length, style);
+  }
+
+  @Override
+  public int fixedWidth(final char @NotNull [] chars, final int offset, final int length, final @NotNull Style style, final @Nullable Object context) {
+    return this.snapshot.get().source.fixedWidth(chars, offset, length, style);
+  }
+
+  @Override
+  public float width(final char character, final @NotNull Style style, final @Nullable Object context) {
+    return this.snapshot.get().source.width(character, style);
+  }
+
+  @Override
+  public float width(final int codepoint, final @NotNull Style style, final @Nullable Object context) {
+    return this.snapshot.get().source.width(codepoint, style);
+  }
+
+  @Override
+  public int fixedWidth(final int codepoint, final @NotNull Style style, final @Nullable Object context) {
+    return this.snapshot.get().source.fixedWidth(codepoint, style);
+  }
+
+  /**
+   * A profile together with the, possibly caching, source measuring with it.
+   */
+  private static final class Snapshot {
+    final WidthProfile profile;
+    final PixelWidthSource source;
+    final CachedPixelWidthSource<Object> cache;
+
+    Snapshot(final @NotNull WidthProfile profile, final @NotNull PixelWidthSource source, final @Nullable CachedPixelWidthSource<Object> cache) {
+      this.profile = profile;
+      this.source = source;
+      this.cache = cache;
+    }
+  }
+
+  static final class BuilderImpl implements ReloadablePixelWidthSource.Builder {
+    private WidthProfile profile;
+    private WidthProfile.Loader loader;
+    private int cacheSize;
+
+    @Override
+    public ReloadablePixelWidthSource.@NotNull Builder profile(final @NotNull WidthProfile profile) {
+      this.profile = Objects.requireNonNull(profile, "profile");
+      return this;
+    }
+
+    @Override
+    public ReloadablePixelWidthSource.@NotNull Builder loader(final WidthProfile.@NotNull Loader loader) {
+      this.loader = Objects.requireNonNull(loader, "loader");
+      return this;
+    }
+
+    @Override
+    public ReloadablePixelWidthSource.@NotNull Builder cache(final int maximumSize) {
+      if (maximumSize < 0) throw new IllegalArgumentException("maximumSize must not be negative");
+      this.cacheSize = maximumSize;
+      return this;
+    }
+
+    @Override
+    public @NotNull ReloadablePixelWidthSource build() throws IOException {
+      if (this.profile != null) return new ReloadablePixelWidthSourceImpl(this.profile, this.loader, this.cacheSize);
+      if (this.loader == null) throw new IllegalStateException("Either an initial profile or a loader is required");
+      return new ReloadablePixelWidthSourceImpl(Objects.requireNonNull(this.loader.load(), "loaded profile"), this.loader, this.cacheSize);
+    }
+  }
+}
@@ -0,0 +1,212 @@
+/*
+ * This file is part of pixel-width, licensed under the MIT License.
+ *
+ * Copyright (c) 2022 KingOfSquares
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package solar.squares.pixelwidth;
+
+import java.util.Arrays;
+import net.kyori.adventure.key.Key;
+import net.kyori.adventure.text.format.Style;
+import net.kyori.adventure.text.format.TextDecoration;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import solar.squares.pixelwidth.function.CharacterWidthFunction;
+
+/**
+ * An incremental stack of the width relevant parts of merged styles.
+ *
+ * <p>Only {@link TextDecoration}s and the font are tracked, everything else (colors, events,
+ * insertions) can not change the width of text. Decoration states are packed into an {@code int}
+ * per level, so pushing is constant time regardless of depth, and the {@link Style} handed to
+ * character width functions is only built when text is measured with a new combination.</p>
+ *
+ * <p>Functions that do not declare {@link CharacterWidthFunction#decorationsAndFontOnly()} are
+ * handed the fully merged style instead, which a stack for them merges on every push.</p>
+ */
+final class StyleStack {
+  private static final TextDecoration[] DECORATIONS = TextDecoration.values();
+  private static final TextDecoration.State[] STATES = TextDecoration.State.values();
+  private static final int BITS_PER_DECORATION = 2;
+  private static final int DECORATION_MASK = (1 << BITS_PER_DECORATION) - 1;
+  // Styles without a font only depend on the packed decorations, so they are shared between all stacks
+  private static final Style[] PLAIN_STYLES = new Style[1 << (BITS_PER_DECORATION * DECORATIONS.length)];
+
+  private final boolean full;
+  private int[] decorations = new int[8];
+  private Key[] fonts = new Key[8];
+  private Style[] styles = new Style[8];
+  private int depth;
+
+  /**
+   * Creates a stack for measuring with a function.
+   *
+   * @param function the function the styles are handed to
+   */
+  StyleStack(final @NotNull CharacterWidthFunction function) {
+    this(!function.decorationsAndFontOnly());
+  }
+
+  /**
+   * Creates a stack.
+   *
+   * @param full whether to track the fully merged styles instead of only their width relevant parts
+   */
+  StyleStack(final boolean full) {
+    this.full = full;
+    this.styles[0] = Style.empty();
+  }
+
+  /**
+   * Creates a stack whose bottom level is the current level of another stack, for measuring part of
+   * a tree on another thread.
+   *
+   * @param parent the stack holding the inherited style
+   */
+  StyleStack(final @NotNull StyleStack parent) {
+    this.full = parent.full;
+    this.decorations[0] = parent.decorations[parent.depth];
+    this.fonts[0] = parent.fonts[parent.depth];
+    this.styles[0] = parent.styles[parent.depth];
+  }
+
+  /**
+   * Gets whether this stack tracks the fully merged styles.
+   *
+   * @return if the styles handed out are fully merged
+   */
+  boolean full() {
+    return this.full;
+  }
+
+  /**
+   * Pushes a style, merging it on top of the current level.
+   *
+   * @param style the style to push
+   */
+  void push(final @NotNull Style style) {
+    final int parentDecorations = this.decorations[this.depth];
+    final Key parentFont = this.fonts[this.depth];
+    int packed = parentDecorations;
+    for (int i = 0; i < DECORATIONS.length; i++) {
+      final TextDecoration.State state = style.decoration(DECORATIONS[i]);
+      if (state != TextDecoration.State.NOT_SET) {
+        final int shift = i * BITS_PER_DECORATION;
+        packed = packed & ~(DECORATION_MASK << shift) | state.ordinal() << shift;
+      }
+    }
+    final Key font = style.font() == null ? parentFont : style.font();
+
+    if (++this.depth == this.decorations.length) {
+      final int capacity = this.depth * 2;
+      this.decorations = Arrays.copyOf(this.decorations, capacity);
+      this.fonts = Arrays.copyOf(this.fonts, capacity);
+      this.styles = Arrays.copyOf(this.styles, capacity);
+    }
+    this.decorations[this.depth] = packed;
+    this.fonts[this.depth] = font;
+    if (this.full) {
+      this.styles[this.depth] = this.styles[this.depth - 1].merge(style);
+    } else {
+      this.styles[this.depth] = packed == parentDecorations && font == parentFont ? this.styles[this.depth - 1] : null;
+    }
+  }
+
+  /**
+   * Pops the current level.
+   */
+  void pop() {
+    this.fonts[this.depth] = null;
+    this.styles[this.depth] = null;
+    this.depth--;
+  }
+
+  /**
+   * Gets whether the current level is {@link TextDecoration#BOLD}.
+   *
+   * @return if the current level is bold
+   */
+  boolean bold() {
+    return this.decoration(TextDecoration.BOLD) == TextDecoration.State.TRUE;
+  }
+
+  /**
+   * Gets the state of a decoration on the current level.
+   *
+   * @param decoration a decoration
+   * @return the state of the decoration
+   */
+  TextDecoration.@NotNull State decoration(final @NotNull TextDecoration decoration) {
+    return STATES[this.decorations[this.depth] >>> decoration.ordinal() * BITS_PER_DECORATION & DECORATION_MASK];
+  }
+
+  /**
+   * Gets the decoration states of the current level, packed into an {@code int}.
+   *
+   * @return the packed decoration states
+   */
+  int decorations() {
+    return this.decorations[this.depth];
+  }
+
+  /**
+   * Gets the font of the current level.
+   *
+   * @return the font, or {@code null} if the default font is used
+   */
+  @Nullable Key font() {
+    return this.fonts[this.depth];
+  }
+
+  /**
+   * Gets a style holding the width relevant parts of the current level, or all of it if this stack
+   * tracks fully merged styles.
+   *
+   * @return a style
+   */
+  @NotNull Style style() {
+    Style style = this.styles[this.depth];
+    if (style == null) {
+      final int packed = this.decorations[this.depth];
+      final Key font = this.fonts[this.depth];
+      if (font == null) {
+        style = PLAIN_STYLES[packed];
+        if (style == null) {
+          style = build(packed, null);
+          PLAIN_STYLES[packed] = style;
+        }
+      } else {
+        style = build(packed, font);
+      }
+      this.styles[this.depth] = style;
+    }
+    return style;
+  }
+
+  private static Style build(final int packed, final @Nullable Key font) {
+    final Style.Builder builder = Style.style().font(font);
+    for (int i = 0; i < DECORATIONS.length; i++) {
+      final TextDecoration.State state = STATES[packed >>> i * BITS_PER_DECORATION & DECORATION_MASK];
+      if (state != TextDecoration.State.NOT_SET) builder.decoration(DECORATIONS[i], state);
+    }
+    return builder.build();
+  }
+}
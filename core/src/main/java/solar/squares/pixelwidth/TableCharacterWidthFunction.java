@@ -0,0 +1,175 @@
+/*
+ * This file is part of pixel-width, licensed under the MIT License.
+ *
+ * Copyright (c) 2022 KingOfSquares
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package solar.squares.pixelwidth;
+
+import java.util.Arrays;
+import java.util.Objects;
+import net.kyori.adventure.text.format.Style;
+import net.kyori.adventure.text.format.TextDecoration;
+import org.jetbrains.annotations.NotNull;
+import solar.squares.pixelwidth.function.CharacterWidthFunction;
+
+/**
+ * A character width function backed by a dense table indexed by codepoint.
+ *
+ * <p>Lookups are a single array access plus a bold check, which keeps the function small enough
+ * to be inlined into the width calculation loops of a {@link PixelWidthSource}. Codepoints outside
+ * the table, or without a width in it, are passed to {@link #handleMissing(int, Style)}.</p>
+ *
+ * <p>Strings are measured against a byte table of the Latin-1 widths until the first char that is not
+ * in it, which covers most chat text in a single tight loop.</p>
+ *
+ * @since 1.2.0
+ */
+public final class TableCharacterWidthFunction implements CharacterWidthFunction {
+  /**
+   * A table compiled from the same data as {@link DefaultCharacterWidthFunction}.
+   *
+   * @since 1.2.0
+   */
+  public static final TableCharacterWidthFunction DEFAULT = compileDefault();
+
+  private static final short NO_FIXED_WIDTH = Short.MIN_VALUE;
+  private static final int LATIN_1_SIZE = 0x100;
+
+  private final float[] widths;
+  private final float boldOffset;
+  // The widths in fixed-point units, NO_FIXED_WIDTH where missing or too wide for a short
+  private final short[] fixedWidths;
+  private final int fixedBoldOffset;
+  // The fixed-point widths of Latin-1, -1 where missing or too wide for a byte
+  private final byte[] latin1Widths = new byte[LATIN_1_SIZE];
+
+  private TableCharacterWidthFunction(final float @NotNull [] widths, final float boldOffset) {
+    this.widths = widths;
+    this.boldOffset = boldOffset;
+    this.fixedWidths = new short[widths.length];
+    for (int i = 0; i < widths.length; i++) {
+      final int fixed = FixedWidth.fromPixels(widths[i]);
+      this.fixedWidths[i] = Float.isNaN(widths[i]) || fixed <= NO_FIXED_WIDTH || fixed > Short.MAX_VALUE ? NO_FIXED_WIDTH : (short) fixed;
+    }
+    this.fixedBoldOffset = FixedWidth.fromPixels(boldOffset);
+    for (int c = 0; c < LATIN_1_SIZE; c++) {
+      final int fixed = c < this.fixedWidths.length ? this.fixedWidths[c] : NO_FIXED_WIDTH;
+      this.latin1Widths[c] = fixed >= 0 && fixed <= Byte.MAX_VALUE ? (byte) fixed : -1;
+    }
+  }
+
+  /**
+   * Creates a table backed character width function.
+   *
+   * <p>The index of each entry in {@code widths} is the codepoint it describes, entries that are
+   * {@link Float#NaN} are treated as missing. The array is copied.</p>
+   *
+   * @param widths the width of each codepoint, starting from codepoint {@code 0}
+   * @param boldOffset the width added to each character when it is {@link TextDecoration#BOLD}
+   * @return a character width function
+   * @since 1.2.0
+   */
+  public static @NotNull TableCharacterWidthFunction table(final float @NotNull [] widths, final float boldOffset) {
+    Objects.requireNonNull(widths, "widths");
+    return new TableCharacterWidthFunction(widths.clone(), boldOffset);
+  }
+
+  private static TableCharacterWidthFunction compileDefault() {
+    final float[] widths = new float[Character.MAX_VALUE + 1];
+    int length = 0;
+    for (int c = 0; c < widths.length; c++) {
+      final float width = DefaultCharacterWidthFunction.baseWidth(c);
+      if (width == -1) {
+        widths[c] = Float.NaN;
+      } else {
+        widths[c] = width;
+        length = c + 1;
+      }
+    }
+    return new TableCharacterWidthFunction(Arrays.copyOf(widths, length), 1);
+  }
+
+  @Override
+  public boolean decorationsAndFontOnly() {
+    return true;
+  }
+
+  @Override
+  public float widthOf(final int codepoint, final @NotNull Style style) {
+    if (codepoint >= 0 && codepoint < this.widths.length) {
+      final float width = this.widths[codepoint];
+      if (!Float.isNaN(width)) {
+        return style.hasDecoration(TextDecoration.BOLD) ? width + this.boldOffset : width;
+      }
+    }
+    return this.handleMissing(codepoint, style);
+  }
+
+  @Override
+  public int fixedWidthOf(final int codepoint, final @NotNull Style style) {
+    if (codepoint >= 0 && codepoint < this.fixedWidths.length) {
+      final int width = this.fixedWidths[codepoint];
+      if (width != NO_FIXED_WIDTH) {
+        return style.hasDecoration(TextDecoration.BOLD) ? width + this.fixedBoldOffset : width;
+      }
+    }
+    return FixedWidth.fromPixels(this.widthOf(codepoint, style));
+  }
+
+  /**
+   * Sums the fixed-point width of a string, in bulk while it is Latin-1.
+   *
+   * <p>The Latin-1 prefix of the string is summed from the byte table with the bold check done once, the
+   * rest, starting at the first char outside of Latin-1 or without a byte width, is measured by
+   * {@link #fixedWidthOf(int, Style)}.</p>
+   *
+   * @param string a string
+   * @param style the style of the string
+   * @return the width in fixed-point units
+   */
+  int fixedWidth(final @NotNull String string, final @NotNull Style style) {
+    final byte[] latin1 = this.latin1Widths;
+    final int length = string.length();
+    int width = 0;
+    int i = 0;
+    for (; i < length; i++) {
+      final char c = string.charAt(i);
+      if (c >= LATIN_1_SIZE) break;
+      final int w = latin1[c];
+      if (w < 0) break;
+      width += w;
+    }
+    if (style.hasDecoration(TextDecoration.BOLD)) width += i * this.fixedBoldOffset;
+    while (i < length) {
+      final char c = string.charAt(i++);
+      if (Character.isHighSurrogate(c) && i < length) {
+        final char low = string.charAt(i);
+        if (Character.isLowSurrogate(low)) {
+          width += this.fixedWidthOf(Character.toCodePoint(c, low), style);
+          i++;
+          continue;
+        }
+      }
+      width += this.fixedWidthOf(c, style);
+    }
+    return width;
+  }
+}
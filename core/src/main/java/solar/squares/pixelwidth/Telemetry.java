@@ -0,0 +1,109 @@
+/*
+ * This file is part of pixel-width, licensed under the MIT License.
+ *
+ * Copyright (c) 2022 KingOfSquares
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package solar.squares.pixelwidth;
+
+import org.jetbrains.annotations.ApiStatus;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Reports width measurement and layout operations to Java Flight Recorder.
+ *
+ * <p>This is the Java 8 version, which records nothing. On Java 11 and newer the multi-release jar
+ * replaces it with a version committing {@code jdk.jfr} events. The events are disabled by default,
+ * each {@code begin} method then returns {@code null} and callers skip gathering the event data.</p>
+ *
+ * @since 1.2.0
+ */
+@ApiStatus.Internal
+public final class Telemetry {
+
+  private Telemetry() {
+  }
+
+  /**
+   * Starts a component width event if it is enabled.
+   *
+   * @return the event, or {@code null} if it is disabled
+   * @since 1.2.0
+   */
+  public static @Nullable Object beginComponentWidth() {
+    return null;
+  }
+
+  /**
+   * Commits a component width event.
+   *
+   * @param event the event returned by {@link #beginComponentWidth()}
+   * @param nodes the number of components visited
+   * @param characters the number of characters measured
+   * @param width the measured width
+   * @param context the context of the measurement
+   * @since 1.2.0
+   */
+  public static void commitComponentWidth(final @Nullable Object event, final int nodes, final int characters, final float width, final @Nullable Object context) {
+  }
+
+  /**
+   * Starts a width cache lookup event if it is enabled.
+   *
+   * @return the event, or {@code null} if it is disabled
+   * @since 1.2.0
+   */
+  public static @Nullable Object beginCacheLookup() {
+    return null;
+  }
+
+  /**
+   * Commits a width cache lookup event.
+   *
+   * @param event the event returned by {@link #beginCacheLookup()}
+   * @param hit whether the width was cached
+   * @since 1.2.0
+   */
+  public static void commitCacheLookup(final @Nullable Object event, final boolean hit) {
+  }
+
+  /**
+   * Starts a centering event if it is enabled.
+   *
+   * @return the event, or {@code null} if it is disabled
+   * @since 1.2.0
+   */
+  public static @Nullable Object beginCenter() {
+    return null;
+  }
+
+  /**
+   * Commits a centering event.
+   *
+   * @param event the event returned by {@link #beginCenter()}
+   * @param componentWidth the width of the centered component
+   * @param goalWidth the width the component is centered in
+   * @param paddingWidth the width of the padding on each side
+   * @param synthesized whether the padding was built by a padding synthesizer
+   * @since 1.2.0
+   */
+  public static void commitCenter(final @Nullable Object event, final float componentWidth, final float goalWidth, final float paddingWidth, final boolean synthesized) {
+  }
+}
@@ -0,0 +1,427 @@
+/*
+ * This file is part of pixel-width, licensed under the MIT License.
+ *
+ * Copyright (c) 2022 KingOfSquares
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package solar.squares.pixelwidth;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import net.kyori.adventure.text.format.Style;
+import net.kyori.adventure.text.format.TextDecoration;
+import org.jetbrains.annotations.NotNull;
+import solar.squares.pixelwidth.function.CharacterWidthFunction;
+
+/**
+ * A character width function backed by a two-level trie covering all of Unicode.
+ *
+ * <p>Codepoints are split into blocks of 256, the first level maps each block to its widths and
+ * blocks with identical widths, including every block without any, share their storage. Widths are
+ * stored as a byte of half pixels, widths that do not fit in one are kept in a small sorted overflow
+ * table. Lookups are two array accesses, the same as a dense table that would need several megabytes
+ * to reach the supplementary planes.</p>
+ *
+ * @since 1.2.0
+ */
+public final class TrieCharacterWidthFunction implements CharacterWidthFunction {
+  static final int BLOCK_BITS = 8;
+  static final int BLOCK_SIZE = 1 << BLOCK_BITS;
+  static final int INDEX_SIZE = (Character.MAX_CODE_POINT >> BLOCK_BITS) + 1;
+  static final int MISSING = 0xFF;
+  static final int OVERFLOW = 0xFE;
+
+  private final char[] index;
+  private final byte[] blocks;
+  private final int[] overflowCodepoints;
+  private final float[] overflowWidths;
+  private final float boldOffset;
+  private final int fixedBoldOffset;
+
+  TrieCharacterWidthFunction(final char @NotNull [] index, final byte @NotNull [] blocks, final int @NotNull [] overflowCodepoints, final float @NotNull [] overflowWidths, final float boldOffset) {
+    this.index = index;
+    this.blocks = blocks;
+    this.overflowCodepoints = overflowCodepoints;
+    this.overflowWidths = overflowWidths;
+    this.boldOffset = boldOffset;
+    this.fixedBoldOffset = FixedWidth.fromPixels(boldOffset);
+  }
+
+  /**
+   * Creates a builder for a trie backed character width function.
+   *
+   * @return a builder
+   * @since 1.2.0
+   */
+  public static @NotNull Builder builder() {
+    return new Builder();
+  }
+
+  @Override
+  public boolean decorationsAndFontOnly() {
+    return true;
+  }
+
+  @Override
+  public float widthOf(final int codepoint, final @NotNull Style style) {
+    if (codepoint >= 0 && codepoint <= Character.MAX_CODE_POINT) {
+      final int value = this.blocks[this.index[codepoint >>> BLOCK_BITS] << BLOCK_BITS | codepoint & (BLOCK_SIZE - 1)] & 0xFF;
+      if (value < OVERFLOW) {
+        final float width = value * 0.5F;
+        return style.hasDecoration(TextDecoration.BOLD) ? width + this.boldOffset : width;
+      }
+      if (value == OVERFLOW) {
+        final float width = this.overflowWidths[Arrays.binarySearch(this.overflowCodepoints, codepoint)];
+        return style.hasDecoration(TextDecoration.BOLD) ? width + this.boldOffset : width;
+      }
+    }
+    return this.handleMissing(codepoint, style);
+  }
+
+  @Override
+  public int fixedWidthOf(final int codepoint, final @NotNull Style style) {
+    if (codepoint >= 0 && codepoint <= Character.MAX_CODE_POINT) {
+      final int value = this.blocks[this.index[codepoint >>> BLOCK_BITS] << BLOCK_BITS | codepoint & (BLOCK_SIZE - 1)] & 0xFF;
+      if (value < OVERFLOW) {
+        final int width = value * (FixedWidth.UNITS_PER_PIXEL / 2);
+        return style.hasDecoration(TextDecoration.BOLD) ? width + this.fixedBoldOffset : width;
+      }
+    }
+    return FixedWidth.fromPixels(this.widthOf(codepoint, style));
+  }
+
+  char[] index() {
+    return this.index;
+  }
+
+  byte[] blocks() {
+    return this.blocks;
+  }
+
+  int[] overflowCodepoints() {
+    return this.overflowCodepoints;
+  }
+
+  float[] overflowWidths() {
+    return this.overflowWidths;
+  }
+
+  float boldOffset() {
+    return this.boldOffset;
+  }
+
+  /**
+   * Gets a report of the memory used by this function.
+   *
+   * @return the footprint
+   * @since 1.2.0
+   */
+  public @NotNull Footprint footprint() {
+    final int[] uses = new int[this.blocks.length >> BLOCK_BITS];
+    for (final char block : this.index) uses[block]++;
+    int codepoints = 0;
+    for (int block = 0; block < uses.length; block++) {
+      if (uses[block] == 0) continue;
+      int defined = 0;
+      for (int c = block << BLOCK_BITS, end = c + BLOCK_SIZE; c < end; c++) {
+        if ((this.blocks[c] & 0xFF) != MISSING) defined++;
+      }
+      codepoints += defined * uses[block];
+    }
+    return new Footprint(codepoints, this.index.length, this.blocks.length >> BLOCK_BITS, this.overflowCodepoints.length,
+      this.index.length * 2L, this.blocks.length, this.overflowCodepoints.length * 8L);
+  }
+
+  /**
+   * A builder for {@link TrieCharacterWidthFunction}s.
+   *
+   * @since 1.2.0
+   */
+  public static final class Builder {
+    private final float[][] pages = new float[INDEX_SIZE][];
+    private float boldOffset = 1;
+
+    Builder() {
+    }
+
+    /**
+     * Sets the width of a codepoint, replacing any width set before.
+     *
+     * @param codepoint the codepoint
+     * @param width the width, {@link Float#NaN} to remove it
+     * @return this builder
+     * @since 1.2.0
+     */
+    public @NotNull Builder width(final int codepoint, final float width) {
+      if (codepoint < 0 || codepoint > Character.MAX_CODE_POINT) throw new IllegalArgumentException("Not a codepoint: " + codepoint);
+      float[] page = this.pages[codepoint >> BLOCK_BITS];
+      if (page == null) {
+        if (Float.isNaN(width)) return this;
+        page = new float[BLOCK_SIZE];
+        Arrays.fill(page, Float.NaN);
+        this.pages[codepoint >> BLOCK_BITS] = page;
+      }
+      page[codepoint & (BLOCK_SIZE - 1)] = width;
+      return this;
+    }
+
+    /**
+     * Sets the widths of consecutive codepoints.
+     *
+     * @param start the first codepoint
+     * @param widths the widths, entries that are {@link Float#NaN} are left unset
+     * @return this builder
+     * @since 1.2.0
+     */
+    public @NotNull Builder widths(final int start, final float @NotNull ... widths) {
+      for (int i = 0; i < widths.length; i++) {
+        if (!Float.isNaN(widths[i])) this.width(start + i, widths[i]);
+      }
+      return this;
+    }
+
+    /**
+     * Checks if a width has been set for a codepoint.
+     *
+     * @param codepoint the codepoint
+     * @return {@code true} if the codepoint has a width
+     * @since 1.2.0
+     */
+    public boolean contains(final int codepoint) {
+      if (codepoint < 0 || codepoint > Character.MAX_CODE_POINT) return false;
+      final float[] page = this.pages[codepoint >> BLOCK_BITS];
+      return page != null && !Float.isNaN(page[codepoint & (BLOCK_SIZE - 1)]);
+    }
+
+    /**
+     * Sets the width added to each character when it is {@link TextDecoration#BOLD}, {@code 1} by default.
+     *
+     * @param boldOffset the bold offset
+     * @return this builder
+     * @since 1.2.0
+     */
+    public @NotNull Builder boldOffset(final float boldOffset) {
+      this.boldOffset = boldOffset;
+      return this;
+    }
+
+    /**
+     * Builds the character width function.
+     *
+     * @return a character width function
+     * @since 1.2.0
+     */
+    public @NotNull TrieCharacterWidthFunction build() {
+      final char[] index = new char[INDEX_SIZE];
+      final Map<Block, Integer> shared = new HashMap<>();
+      byte[] blocks = new byte[BLOCK_SIZE * 4];
+      int blockCount = 0;
+      int overflowCount = 0;
+      int[] overflowCodepoints = new int[16];
+      float[] overflowWidths = new float[16];
+
+      final byte[] empty = new byte[BLOCK_SIZE];
+      Arrays.fill(empty, (byte) MISSING);
+      shared.put(new Block(empty), blockCount);
+      System.arraycopy(empty, 0, blocks, 0, BLOCK_SIZE);
+      blockCount++;
+
+      for (int p = 0; p < INDEX_SIZE; p++) {
+        final float[] page = this.pages[p];
+        if (page == null) continue; // index 0 is the empty block
+        final byte[] block = new byte[BLOCK_SIZE];
+        for (int i = 0; i < BLOCK_SIZE; i++) {
+          final float width = page[i];
+          final float halves = width * 2;
+          if (Float.isNaN(width)) {
+            block[i] = (byte) MISSING;
+          } else if (halves >= 0 && halves < OVERFLOW && halves == (int) halves) {
+            block[i] = (byte) halves;
+          } else {
+            block[i] = (byte) OVERFLOW;
+            if (overflowCount == overflowCodepoints.length) {
+              overflowCodepoints = Arrays.copyOf(overflowCodepoints, overflowCount * 2);
+              overflowWidths = Arrays.copyOf(overflowWidths, overflowCount * 2);
+            }
+            overflowCodepoints[overflowCount] = p << BLOCK_BITS | i; // pages are visited in order, so this stays sorted
+            overflowWidths[overflowCount++] = width;
+          }
+        }
+        final Block key = new Block(block);
+        Integer id = shared.get(key);
+        if (id == null) {
+          if (blockCount > Character.MAX_VALUE) throw new IllegalStateException("Too many distinct blocks");
+          id = blockCount++;
+          shared.put(key, id);
+          if (blocks.length < blockCount << BLOCK_BITS) blocks = Arrays.copyOf(blocks, blocks.length * 2);
+          System.arraycopy(block, 0, blocks, id << BLOCK_BITS, BLOCK_SIZE);
+        }
+        index[p] = (char) id.intValue();
+      }
+      return new TrieCharacterWidthFunction(index, Arrays.copyOf(blocks, blockCount << BLOCK_BITS),
+        Arrays.copyOf(overflowCodepoints, overflowCount), Arrays.copyOf(overflowWidths, overflowCount), this.boldOffset);
+    }
+  }
+
+  /**
+   * A block of widths compared by content.
+   */
+  private static final class Block {
+    private final byte[] widths;
+    private final int hash;
+
+    Block(final byte[] widths) {
+      this.widths = widths;
+      this.hash = Arrays.hashCode(widths);
+    }
+
+    @Override
+    public boolean equals(final Object other) {
+      return other instanceof Block && Arrays.equals(this.widths, ((Block) other).widths);
+    }
+
+    @Override
+    public int hashCode() {
+      return this.hash;
+    }
+  }
+
+  /**
+   * A report of the memory used by a {@link TrieCharacterWidthFunction}.
+   *
+   * @since 1.2.0
+   */
+  public static final class Footprint {
+    private final int codepoints;
+    private final int indexEntries;
+    private final int blocks;
+    private final int overflowEntries;
+    private final long indexBytes;
+    private final long blockBytes;
+    private final long overflowBytes;
+
+    Footprint(final int codepoints, final int indexEntries, final int blocks, final int overflowEntries, final long indexBytes, final long blockBytes, final long overflowBytes) {
+      this.codepoints = codepoints;
+      this.indexEntries = indexEntries;
+      this.blocks = blocks;
+      this.overflowEntries = overflowEntries;
+      this.indexBytes = indexBytes;
+      this.blockBytes = blockBytes;
+      this.overflowBytes = overflowBytes;
+    }
+
+    /**
+     * Gets the number of codepoints with a width.
+     *
+     * @return the number of codepoints
+     * @since 1.2.0
+     */
+    public int codepoints() {
+      return this.codepoints;
+    }
+
+    /**
+     * Gets the number of distinct blocks stored, including the shared empty block.
+     *
+     * @return the number of blocks
+     * @since 1.2.0
+     */
+    public int blocks() {
+      return this.blocks;
+    }
+
+    /**
+     * Gets the number of blocks that are stored once but used by several index entries.
+     *
+     * @return the number of blocks saved by sharing
+     * @since 1.2.0
+     */
+    public int sharedBlocks() {
+      return this.indexEntries - this.blocks;
+    }
+
+    /**
+     * Gets the number of widths that did not fit in a byte of half pixels.
+     *
+     * @return the number of overflow entries
+     * @since 1.2.0
+     */
+    public int overflowEntries() {
+      return this.overflowEntries;
+    }
+
+    /**
+     * Gets the size of the first level of the trie in bytes.
+     *
+     * @return the index size
+     * @since 1.2.0
+     */
+    public long indexBytes() {
+      return this.indexBytes;
+    }
+
+    /**
+     * Gets the size of the stored blocks in bytes.
+     *
+     * @return the block size
+     * @since 1.2.0
+     */
+    public long blockBytes() {
+      return this.blockBytes;
+    }
+
+    /**
+     * Gets the size of the overflow table in bytes.
+     *
+     * @return the overflow size
+     * @since 1.2.0
+     */
+    public long overflowBytes() {
+      return this.overflowBytes;
+    }
+
+    /**
+     * Gets the size of all tables in bytes, not counting object headers.
+     *
+     * @return the total size
+     * @since 1.2.0
+     */
+    public long totalBytes() {
+      return this.indexBytes + this.blockBytes + this.overflowBytes;
+    }
+
+    /**
+     * Gets the size a dense {@code float} table up to {@link Character#MAX_CODE_POINT} would need, for comparison.
+     *
+     * @return the dense table size
+     * @since 1.2.0
+     */
+    public long denseBytes() {
+      return (Character.MAX_CODE_POINT + 1L) * Float.BYTES;
+    }
+
+    @Override
+    public String toString() {
+      return "Footprint{codepoints=" + this.codepoints + ", blocks=" + this.blocks + ", sharedBlocks=" + this.sharedBlocks()
+        + ", overflowEntries=" + this.overflowEntries + ", totalBytes=" + this.totalBytes() + ", denseBytes=" + this.denseBytes() + "}";
+    }
+  }
+}
@@ -0,0 +1,86 @@
+/*
+ * This file is part of pixel-width, licensed under the MIT License.
+ *
+ * Copyright (c) 2022 KingOfSquares
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package solar.squares.pixelwidth;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * A weakly referenced map key compared by reference.
+ *
+ * <p>Look entries up with a {@link #lookup(Object) lookup key}, which holds the referent strongly
+ * for the duration of the lookup and compares equal to the weak key of the same referent.</p>
+ */
+final class WeakIdentityKey extends WeakReference<Object> {
+  private final int hash;
+
+  WeakIdentityKey(final @NotNull Object referent, final @NotNull ReferenceQueue<Object> queue) {
+    super(referent, queue);
+    this.hash = System.identityHashCode(referent);
+  }
+
+  /**
+   * Creates a key for looking up the entry of a referent.
+   *
+   * @param referent the referent
+   * @return a lookup key
+   */
+  static @NotNull Object lookup(final @NotNull Object referent) {
+    return new Lookup(referent);
+  }
+
+  @Override
+  public boolean equals(final Object other) {
+    if (this == other) return true;
+    if (other instanceof Lookup) return ((Lookup) other).referent == this.get();
+    return other instanceof WeakIdentityKey && this.get() != null && this.get() == ((WeakIdentityKey) other).get();
+  }
+
+  @Override
+  public int hashCode() {
+    return this.hash;
+  }
+
+  /**
+   * A strongly referenced referent only used for lookups.
+   */
+  private static final class Lookup {
+    private final Object referent;
+
+    Lookup(final @NotNull Object referent) {
+      this.referent = referent;
+    }
+
+    @Override
+    public boolean equals(final Object other) {
+      return other instanceof WeakIdentityKey && ((WeakIdentityKey) other).get() == this.referent;
+    }
+
+    @Override
+    public int hashCode() {
+      return System.identityHashCode(this.referent);
+    }
+  }
+}
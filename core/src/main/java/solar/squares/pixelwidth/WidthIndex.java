@@ -0,0 +1,380 @@
+/*
+ * This file is part of pixel-width, licensed under the MIT License.
+ *
+ * Copyright (c) 2022 KingOfSquares
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package solar.squares.pixelwidth;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import net.kyori.adventure.text.Component;
+import net.kyori.adventure.text.flattener.FlattenerListener;
+import net.kyori.adventure.text.format.Style;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import solar.squares.pixelwidth.function.CharacterWidthFunction;
+import solar.squares.pixelwidth.internal.Sources;
+
+/**
+ * The cumulative pixel widths of a text, measured once and queried many times.
+ *
+ * <p>Indices are UTF-16 indices into {@link #text()}, like those used by {@link String#substring(int, int)}.
+ * The width of a surrogate pair is counted at its high surrogate, so ranges should not split pairs.</p>
+ *
+ * <p>Widths are summed as {@link FixedWidth fixed-point widths}, so the width of a range is the same
+ * wherever it starts in the text.</p>
+ *
+ * <p>An index built from a component holds the flattened text of the component and the runs of
+ * fully merged styles it consists of, so parts of it can be turned back into styled components.</p>
+ *
+ * @since 1.2.0
+ */
+public final class WidthIndex {
+  private final String text;
+  private final int[] offsets;
+  private final int[] runStarts;
+  private final Style[] runStyles;
+
+  private WidthIndex(final @NotNull String text, final int @NotNull [] offsets, final int @NotNull [] runStarts, final @NotNull Style @NotNull [] runStyles) {
+    this.text = text;
+    this.offsets = offsets;
+    this.runStarts = runStarts;
+    this.runStyles = runStyles;
+  }
+
+  /**
+   * Measures a string without any context.
+   *
+   * @param source a pixel width source
+   * @param text   a string
+   * @param style  the style of the string
+   * @return a width index of the string
+   * @since 1.2.0
+   */
+  public static @NotNull WidthIndex widthIndex(final @NotNull PixelWidthSource source, final @NotNull String text, final @NotNull Style style) {
+    return of(Sources.function(source), text, style);
+  }
+
+  /**
+   * Measures a string, given a context.
+   *
+   * @param source  a pixel width source
+   * @param text    a string
+   * @param style   the style of the string
+   * @param context the context of this calculation
+   * @param <CX>    a context type (player, server, locale)
+   * @return a width index of the string
+   * @since 1.2.0
+   */
+  public static <CX> @NotNull WidthIndex widthIndex(final @NotNull ContextualPixelWidthSource<CX> source, final @NotNull String text, final @NotNull Style style, final @Nullable CX context) {
+    return of(Sources.function(source, context), text, style);
+  }
+
+  /**
+   * Flattens and measures a component without any context.
+   *
+   * @param source    a pixel width source
+   * @param component a component
+   * @return a width index of the component
+   * @since 1.2.0
+   */
+  public static @NotNull WidthIndex widthIndex(final @NotNull PixelWidthSource source, final @NotNull Component component) {
+    final PixelWidthSource snapshot = Sources.snapshot(source);
+    return of(snapshot, Sources.function(snapshot), component);
+  }
+
+  /**
+   * Flattens and measures a component, given a context.
+   *
+   * @param source    a pixel width source
+   * @param component a component
+   * @param context   the context of this calculation
+   * @param <CX>      a context type (player, server, locale)
+   * @return a width index of the component
+   * @since 1.2.0
+   */
+  public static <CX> @NotNull WidthIndex widthIndex(final @NotNull ContextualPixelWidthSource<CX> source, final @NotNull Component component, final @Nullable CX context) {
+    final ContextualPixelWidthSource<CX> snapshot = Sources.snapshot(source);
+    return of(snapshot, Sources.function(snapshot, context), component);
+  }
+
+  private static WidthIndex of(final @NotNull CharacterWidthFunction function, final @NotNull String text, final @NotNull Style style) {
+    Objects.requireNonNull(text, "text");
+    Objects.requireNonNull(style, "style");
+    final Builder builder = new Builder(function, text.length());
+    builder.append(text, style);
+    return builder.build();
+  }
+
+  private static WidthIndex of(final @NotNull PixelWidthSource source, final @NotNull CharacterWidthFunction function, final @NotNull Component component) {
+    Objects.requireNonNull(component, "component");
+    final Builder builder = new Builder(function, 16);
+    source.flattener().flatten(component, builder);
+    return builder.build();
+  }
+
+  /**
+   * Gets the measured text.
+   *
+   * @return the text
+   * @since 1.2.0
+   */
+  public @NotNull String text() {
+    return this.text;
+  }
+
+  /**
+   * Gets the length of the measured text.
+   *
+   * @return the number of UTF-16 chars
+   * @since 1.2.0
+   */
+  public int length() {
+    return this.text.length();
+  }
+
+  /**
+   * Gets the width of the whole text.
+   *
+   * @return the pixel width
+   * @since 1.2.0
+   */
+  public float width() {
+    return FixedWidth.toPixels(this.offsets[this.text.length()]);
+  }
+
+  /**
+   * Gets the width of a range of the text.
+   *
+   * @param from the start index, inclusive
+   * @param to   the end index, exclusive
+   * @return the pixel width of the range
+   * @throws IndexOutOfBoundsException if the range is outside of the text
+   * @since 1.2.0
+   */
+  public float width(final int from, final int to) {
+    if (from < 0 || from > to || to > this.text.length())
+      throw new IndexOutOfBoundsException("Range [" + from + ", " + to + ") out of bounds for length " + this.text.length());
+    return FixedWidth.toPixels(this.offsets[to] - this.offsets[from]);
+  }
+
+  /**
+   * Gets the pixel offset at which the char at an index starts.
+   *
+   * @param index an index, {@link #length()} for the end of the text
+   * @return the width of everything before the index
+   * @throws IndexOutOfBoundsException if the index is outside of the text
+   * @since 1.2.0
+   */
+  public float offset(final int index) {
+    return FixedWidth.toPixels(this.fixedOffset(index));
+  }
+
+  /**
+   * Gets the index of the char covering a pixel offset.
+   *
+   * @param x a pixel offset from the start of the text
+   * @return the index of the char covering the offset, {@code -1} if it is before the text
+   *     and {@link #length()} if it is after it
+   * @since 1.2.0
+   */
+  public int indexAt(final float x) {
+    if (x < 0) return -1;
+    // the last char starting at or before x
+    final int units = FixedWidth.fromPixelsFloor(x);
+    final int index = this.lastOffsetAtMost(units, 0);
+    return index == this.text.length() || units >= this.offsets[this.text.length()] ? this.text.length() : index;
+  }
+
+  /**
+   * Gets the end of the longest range starting at {@code from} that is at most {@code maxWidth} wide.
+   *
+   * @param from     the start index, inclusive
+   * @param maxWidth the maximum pixel width of the range
+   * @return the end index of the range, exclusive
+   * @throws IndexOutOfBoundsException if the index is outside of the text
+   * @since 1.2.0
+   */
+  public int fit(final int from, final float maxWidth) {
+    final long limit = (long) this.fixedOffset(from) + FixedWidth.fromPixelsFloor(maxWidth);
+    int end = this.lastOffsetAtMost(limit, from);
+    // don't end between the two halves of a surrogate pair
+    if (end > from && end < this.text.length() && Character.isLowSurrogate(this.text.charAt(end))) end--;
+    return end;
+  }
+
+  private int fixedOffset(final int index) {
+    if (index < 0 || index > this.text.length())
+      throw new IndexOutOfBoundsException("Index " + index + " out of bounds for length " + this.text.length());
+    return this.offsets[index];
+  }
+
+  private int lastOffsetAtMost(final long value, final int from) {
+    int low = from;
+    int high = this.text.length();
+    while (low < high) {
+      final int middle = (low + high + 1) >>> 1;
+      if (this.offsets[middle] <= value) {
+        low = middle;
+      } else {
+        high = middle - 1;
+      }
+    }
+    return low;
+  }
+
+  /**
+   * Gets the number of style runs in the text.
+   *
+   * @return the number of runs
+   * @since 1.2.0
+   */
+  public int runCount() {
+    return this.runStyles.length;
+  }
+
+  /**
+   * Gets the index at which a style run starts.
+   *
+   * @param run a run
+   * @return the start index of the run, inclusive
+   * @since 1.2.0
+   */
+  public int runStart(final int run) {
+    return this.runStarts[run];
+  }
+
+  /**
+   * Gets the index at which a style run ends.
+   *
+   * @param run a run
+   * @return the end index of the run, exclusive
+   * @since 1.2.0
+   */
+  public int runEnd(final int run) {
+    return run + 1 == this.runStyles.length ? this.text.length() : this.runStarts[run + 1];
+  }
+
+  /**
+   * Gets the fully merged style of a style run.
+   *
+   * @param run a run
+   * @return the style of the run
+   * @since 1.2.0
+   */
+  public @NotNull Style runStyle(final int run) {
+    return this.runStyles[run];
+  }
+
+  /**
+   * Gets the style run containing an index.
+   *
+   * @param index an index
+   * @return the run containing the index
+   * @throws IndexOutOfBoundsException if the index is outside of the text
+   * @since 1.2.0
+   */
+  public int runAt(final int index) {
+    if (index < 0 || index >= this.text.length())
+      throw new IndexOutOfBoundsException("Index " + index + " out of bounds for length " + this.text.length());
+    final int run = Arrays.binarySearch(this.runStarts, index);
+    return run >= 0 ? run : -run - 2;
+  }
+
+  /**
+   * Collects flattened text, its style runs and cumulative widths.
+   */
+  private static final class Builder implements FlattenerListener {
+    private final CharacterWidthFunction function;
+    private final StringBuilder text;
+    private final List<Style> styles = new ArrayList<>();
+    private int[] offsets;
+    private int[] runStarts = new int[4];
+    private Style[] runStyles = new Style[4];
+    private int runs;
+
+    Builder(final @NotNull CharacterWidthFunction function, final int capacity) {
+      this.function = function;
+      this.text = new StringBuilder(capacity);
+      this.offsets = new int[capacity + 1];
+      this.styles.add(Style.empty());
+    }
+
+    @Override
+    public void pushStyle(final @NotNull Style style) {
+      this.styles.add(this.styles.get(this.styles.size() - 1).merge(style));
+    }
+
+    @Override
+    public void component(final @NotNull String text) {
+      this.append(text, this.styles.get(this.styles.size() - 1));
+    }
+
+    @Override
+    public void popStyle(final @NotNull Style style) {
+      this.styles.remove(this.styles.size() - 1);
+    }
+
+    void append(final @NotNull String string, final @NotNull Style style) {
+      final int length = string.length();
+      if (length == 0) return;
+      final int start = this.text.length();
+      if (this.runs == 0 || !this.runStyles[this.runs - 1].equals(style)) {
+        if (this.runs == this.runStarts.length) {
+          this.runStarts = Arrays.copyOf(this.runStarts, this.runs * 2);
+          this.runStyles = Arrays.copyOf(this.runStyles, this.runs * 2);
+        }
+        this.runStarts[this.runs] = start;
+        this.runStyles[this.runs++] = style;
+      }
+      this.text.append(string);
+      if (this.offsets.length <= start + length) {
+        this.offsets = Arrays.copyOf(this.offsets, Math.max(this.offsets.length * 2, start + length + 1));
+      }
+      final CharacterWidthFunction function = this.function.font(style.font());
+      int offset = this.offsets[start];
+      for (int i = 0; i < length; i++) {
+        final char c = string.charAt(i);
+        if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(string.charAt(i + 1))) {
+          offset += function.fixedWidthOf(Character.toCodePoint(c, string.charAt(i + 1)), style);
+          this.offsets[start + i + 1] = offset;
+          this.offsets[start + i + 2] = offset;
+          i++;
+        } else {
+          offset += function.fixedWidthOf(c, style);
+          this.offsets[start + i + 1] = offset;
+        }
+      }
+    }
+
+    @NotNull WidthIndex build() {
+      final int length = this.text.length();
+      return new WidthIndex(
+        this.text.toString(),
+        this.offsets.length == length + 1 ? this.offsets : Arrays.copyOf(this.offsets, length + 1),
+        Arrays.copyOf(this.runStarts, this.runs),
+        Arrays.copyOf(this.runStyles, this.runs)
+      );
+    }
+  }
+}
@@ -0,0 +1,168 @@
+/*
+ * This file is part of pixel-width, licensed under the MIT License.
+ *
+ * Copyright (c) 2022 KingOfSquares
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package solar.squares.pixelwidth;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Objects;
+import net.kyori.adventure.text.flattener.ComponentFlattener;
+import org.jetbrains.annotations.NotNull;
+import solar.squares.pixelwidth.function.CharacterWidthFunction;
+import solar.squares.pixelwidth.pack.ResourcePackFonts;
+
+/**
+ * An immutable snapshot of everything used to measure text: the character width function and the
+ * flattener.
+ *
+ * <p>A {@link ReloadablePixelWidthSource} measures with one profile at a time and swaps it for a new
+ * one as a whole, for example after a resource pack was updated.</p>
+ *
+ * @since 1.2.0
+ */
+public final class WidthProfile {
+  private final String name;
+  private final ComponentFlattener flattener;
+  private final CharacterWidthFunction function;
+  private final PixelWidthSource source;
+
+  private WidthProfile(final @NotNull String name, final @NotNull ComponentFlattener flattener, final @NotNull CharacterWidthFunction function) {
+    this.name = name;
+    this.flattener = flattener;
+    this.function = function;
+    this.source = PixelWidthSource.pixelWidth(flattener, function);
+  }
+
+  /**
+   * Creates a profile measuring with a character width function and the basic flattener.
+   *
+   * @param name a name describing the profile, used in logs
+   * @param function the character width function
+   * @return a profile
+   * @since 1.2.0
+   */
+  public static @NotNull WidthProfile widthProfile(final @NotNull String name, final @NotNull CharacterWidthFunction function) {
+    return widthProfile(name, ComponentFlattener.basic(), function);
+  }
+
+  /**
+   * Creates a profile measuring with a character width function and a flattener.
+   *
+   * @param name a name describing the profile, used in logs
+   * @param flattener the flattener
+   * @param function the character width function
+   * @return a profile
+   * @since 1.2.0
+   */
+  public static @NotNull WidthProfile widthProfile(final @NotNull String name, final @NotNull ComponentFlattener flattener, final @NotNull CharacterWidthFunction function) {
+    return new WidthProfile(Objects.requireNonNull(name, "name"), Objects.requireNonNull(flattener, "flattener"), Objects.requireNonNull(function, "function"));
+  }
+
+  /**
+   * Creates a profile measuring with the fonts of a resource pack.
+   *
+   * @param pack a resource pack directory or zip file
+   * @return a profile
+   * @throws IOException if the pack can not be loaded
+   * @see ResourcePackFonts#load(Path)
+   * @since 1.2.0
+   */
+  public static @NotNull WidthProfile resourcePack(final @NotNull Path pack) throws IOException {
+    return widthProfile(pack.toString(), FontRegistry.builder().fonts(ResourcePackFonts.load(pack)).build());
+  }
+
+  /**
+   * Creates a profile measuring with the fonts of a width table file.
+   *
+   * @param file a width table file
+   * @return a profile
+   * @throws IOException if the file can not be opened
+   * @see WidthTableFile#open(Path)
+   * @since 1.2.0
+   */
+  public static @NotNull WidthProfile widthTable(final @NotNull Path file) throws IOException {
+    return widthProfile(file.toString(), FontRegistry.builder().fonts(WidthTableFile.open(file)).build());
+  }
+
+  /**
+   * Gets the name describing this profile.
+   *
+   * @return the name
+   * @since 1.2.0
+   */
+  public @NotNull String name() {
+    return this.name;
+  }
+
+  /**
+   * Gets the flattener of this profile.
+   *
+   * @return the flattener
+   * @since 1.2.0
+   */
+  public @NotNull ComponentFlattener flattener() {
+    return this.flattener;
+  }
+
+  /**
+   * Gets the character width function of this profile.
+   *
+   * @return the character width function
+   * @since 1.2.0
+   */
+  public @NotNull CharacterWidthFunction function() {
+    return this.function;
+  }
+
+  /**
+   * Gets a pixel width source measuring with this profile.
+   *
+   * @return the pixel width source
+   * @since 1.2.0
+   */
+  public @NotNull PixelWidthSource source() {
+    return this.source;
+  }
+
+  @Override
+  public String toString() {
+    return "WidthProfile{" + this.name + "}";
+  }
+
+  /**
+   * Loads a profile, for example from a resource pack.
+   *
+   * @since 1.2.0
+   */
+  @FunctionalInterface
+  public interface Loader {
+    /**
+     * Loads a new profile.
+     *
+     * @return the profile
+     * @throws IOException if the profile can not be loaded
+     * @since 1.2.0
+     */
+    @NotNull WidthProfile load() throws IOException;
+  }
+}
@@ -0,0 +1,258 @@
+/*
+ * This file is part of pixel-width, licensed under the MIT License.
+ *
+ * Copyright (c) 2022 KingOfSquares
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package solar.squares.pixelwidth;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.zip.CRC32;
+import net.kyori.adventure.key.InvalidKeyException;
+import net.kyori.adventure.key.Key;
+import org.jetbrains.annotations.NotNull;
+import solar.squares.pixelwidth.function.CharacterWidthFunction;
+
+/**
+ * Reads and writes precompiled width tables.
+ *
+ * <p>A width table file stores the tries of several fonts so they can be used without parsing a
+ * resource pack again. Opening a file maps it read-only into memory and only validates its header
+ * and the bounds of each font's data, the widths themselves are read straight from the mapping, so
+ * JVMs on the same host opening the same file share its pages and opening takes the same time for
+ * any file size. The checksum and trie index are only verified when asked to, see
+ * {@link #open(Path, boolean)}.</p>
+ *
+ * <p>All values are big-endian. The file starts with a 16 byte header:</p>
+ * <ul>
+ *   <li>{@code int} magic, the ASCII bytes {@code PXWT}</li>
+ *   <li>{@code short} format version, currently {@value #VERSION}</li>
+ *   <li>{@code short} reserved, {@code 0}</li>
+ *   <li>{@code int} number of fonts</li>
+ *   <li>{@code int} CRC32 of everything after the header</li>
+ * </ul>
+ * <p>followed by a directory entry for each font:</p>
+ * <ul>
+ *   <li>{@code short} length and UTF-8 bytes of the font key as {@code namespace:value}</li>
+ *   <li>{@code float} bold offset</li>
+ *   <li>{@code int} number of blocks</li>
+ *   <li>{@code int} number of overflow entries</li>
+ *   <li>{@code int} file offset of the font data, aligned to 4 bytes</li>
+ * </ul>
+ * <p>The data of a font is the trie index as one {@code char} block number per 256 codepoints, the
+ * blocks as one byte of half pixels per codepoint, then the sorted overflow codepoints as
+ * {@code int}s and their widths as {@code float}s. See {@link TrieCharacterWidthFunction}.</p>
+ *
+ * @since 1.2.0
+ */
+public final class WidthTableFile {
+  /**
+   * The version of the format written by this class.
+   *
+   * @since 1.2.0
+   */
+  public static final int VERSION = 1;
+  static final int MAGIC = 0x50585754; // PXWT
+  static final int HEADER_SIZE = 16;
+  static final int INDEX_BYTES = TrieCharacterWidthFunction.INDEX_SIZE * Character.BYTES;
+
+  private WidthTableFile() {
+  }
+
+  /**
+   * Writes the tries of several fonts to a file.
+   *
+   * <p>The file is written next to its destination and then moved into place, so a JVM opening it
+   * concurrently sees either the old or the new file.</p>
+   *
+   * @param file the file to write
+   * @param fonts the tries of each font
+   * @throws IOException if the file can not be written
+   * @since 1.2.0
+   */
+  public static void write(final @NotNull Path file, final @NotNull Map<Key, TrieCharacterWidthFunction> fonts) throws IOException {
+    Objects.requireNonNull(file, "file");
+    Objects.requireNonNull(fonts, "fonts");
+    final List<byte[]> keys = new ArrayList<>(fonts.size());
+    int directorySize = 0;
+    for (final Key font : fonts.keySet()) {
+      final byte[] key = font.asString().getBytes(StandardCharsets.UTF_8);
+      if (key.length > Short.MAX_VALUE) throw new IOException("Font key too long: " + font.asString());
+      keys.add(key);
+      directorySize += Short.BYTES + key.length + Float.BYTES + Integer.BYTES * 3;
+    }
+
+    final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    final DataOutputStream out = new DataOutputStream(bytes);
+    int offset = align(HEADER_SIZE + directorySize);
+    int i = 0;
+    for (final TrieCharacterWidthFunction trie : fonts.values()) {
+      final byte[] key = keys.get(i++);
+      out.writeShort(key.length);
+      out.write(key);
+      out.writeFloat(trie.boldOffset());
+      out.writeInt(trie.blocks().length >> TrieCharacterWidthFunction.BLOCK_BITS);
+      out.writeInt(trie.overflowCodepoints().length);
+      out.writeInt(offset);
+      offset += INDEX_BYTES + trie.blocks().length + trie.overflowCodepoints().length * (Integer.BYTES + Float.BYTES);
+    }
+    while (HEADER_SIZE + out.size() < align(HEADER_SIZE + directorySize)) out.writeByte(0);
+    for (final TrieCharacterWidthFunction trie : fonts.values()) {
+      for (final char block : trie.index()) out.writeChar(block);
+      out.write(trie.blocks());
+      for (final int codepoint : trie.overflowCodepoints()) out.writeInt(codepoint);
+      for (final float width : trie.overflowWidths()) out.writeFloat(width);
+    }
+    out.flush();
+    final byte[] body = bytes.toByteArray();
+    final CRC32 crc = new CRC32();
+    crc.update(body, 0, body.length);
+
+    final ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+    header.putInt(MAGIC).putShort((short) VERSION).putShort((short) 0).putInt(fonts.size()).putInt((int) crc.getValue());
+    final Path directory = file.toAbsolutePath().getParent();
+    final Path temporary = Files.createTempFile(directory, file.getFileName().toString(), ".tmp");
+    try {
+      try (final FileChannel channel = FileChannel.open(temporary, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+        header.flip();
+        final ByteBuffer data = ByteBuffer.wrap(body);
+        while (header.hasRemaining() || data.hasRemaining()) channel.write(new ByteBuffer[] {header, data});
+        channel.force(true);
+      }
+      try {
+        Files.move(temporary, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+      } catch (final IOException e) {
+        Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING);
+      }
+    } finally {
+      Files.deleteIfExists(temporary);
+    }
+  }
+
+  /**
+   * Opens a width table file, only validating its header and font directory.
+   *
+   * <p>The file is mapped read-only and stays mapped for as long as any of the returned functions
+   * is reachable.</p>
+   *
+   * @param file the file to open
+   * @return the character width function of each font in the file
+   * @throws IOException if the file can not be read, is corrupt or has an unsupported version
+   * @since 1.2.0
+   */
+  public static @NotNull Map<Key, CharacterWidthFunction> open(final @NotNull Path file) throws IOException {
+    return open(file, false);
+  }
+
+  /**
+   * Opens a width table file.
+   *
+   * <p>The file is mapped read-only and stays mapped for as long as any of the returned functions
+   * is reachable. Verifying reads the whole file once to check its checksum and the trie index of
+   * every font, which is worth it for files that were copied or downloaded, but not for a file this
+   * process just wrote.</p>
+   *
+   * @param file the file to open
+   * @param verify whether to verify the checksum and trie indices
+   * @return the character width function of each font in the file
+   * @throws IOException if the file can not be read, is corrupt or has an unsupported version
+   * @since 1.2.0
+   */
+  public static @NotNull Map<Key, CharacterWidthFunction> open(final @NotNull Path file, final boolean verify) throws IOException {
+    Objects.requireNonNull(file, "file");
+    final MappedByteBuffer buffer;
+    try (final FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      final long size = channel.size();
+      if (size < HEADER_SIZE || size > Integer.MAX_VALUE) throw new IOException(file + " is not a width table file");
+      buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+    }
+    return read(buffer, file.toString(), verify);
+  }
+
+  static @NotNull Map<Key, CharacterWidthFunction> read(final @NotNull ByteBuffer buffer, final @NotNull String name, final boolean verify) throws IOException {
+    if (buffer.limit() < HEADER_SIZE || buffer.getInt(0) != MAGIC) throw new IOException(name + " is not a width table file");
+    final int version = buffer.getShort(4);
+    if (version != VERSION) throw new IOException(name + " has format version " + version + ", only version " + VERSION + " is supported");
+    final int fonts = buffer.getInt(8);
+    if (verify) {
+      final CRC32 crc = new CRC32();
+      final ByteBuffer body = buffer.duplicate();
+      body.position(HEADER_SIZE);
+      crc.update(body);
+      if ((int) crc.getValue() != buffer.getInt(12)) throw new IOException(name + " is corrupt, checksum mismatch");
+    }
+
+    final Map<Key, CharacterWidthFunction> functions = new LinkedHashMap<>();
+    int position = HEADER_SIZE;
+    try {
+      for (int i = 0; i < fonts; i++) {
+        final byte[] key = new byte[buffer.getShort(position) & 0xFFFF];
+        position += Short.BYTES;
+        for (int b = 0; b < key.length; b++) key[b] = buffer.get(position + b);
+        position += key.length;
+        final float boldOffset = buffer.getFloat(position);
+        final int blocks = buffer.getInt(position + 4);
+        final int overflow = buffer.getInt(position + 8);
+        final int offset = buffer.getInt(position + 12);
+        position += Float.BYTES + Integer.BYTES * 3;
+
+        final long end = offset + (long) INDEX_BYTES + ((long) blocks << TrieCharacterWidthFunction.BLOCK_BITS) + overflow * (long) (Integer.BYTES + Float.BYTES);
+        if (offset < position || blocks <= 0 || overflow < 0 || end > buffer.limit()) throw new IOException(name + " is corrupt, font data out of bounds");
+        // unverified block numbers are checked by the function on each lookup instead
+        for (int block = 0; verify && block < TrieCharacterWidthFunction.INDEX_SIZE; block++) {
+          if (buffer.getChar(offset + block * Character.BYTES) >= blocks) throw new IOException(name + " is corrupt, block out of bounds");
+        }
+        functions.put(key(key, name), new MappedCharacterWidthFunction(buffer, offset, blocks, overflow, boldOffset));
+      }
+    } catch (final IndexOutOfBoundsException e) {
+      throw new IOException(name + " is corrupt, font directory out of bounds", e);
+    }
+    return Collections.unmodifiableMap(functions);
+  }
+
+  private static @NotNull Key key(final byte @NotNull [] key, final @NotNull String name) throws IOException {
+    final String string = new String(key, StandardCharsets.UTF_8);
+    try {
+      return Key.key(string);
+    } catch (final InvalidKeyException e) {
+      throw new IOException(name + " is corrupt, invalid font key " + string, e);
+    }
+  }
+
+  private static int align(final int offset) {
+    return (offset + 3) & ~3;
+  }
+}
@@ -23,9 +23,12 @@
  */
 package solar.squares.pixelwidth.function;
 
-import java.util.logging.Level;
+import net.kyori.adventure.key.Key;
 import net.kyori.adventure.text.format.Style;
-import solar.squares.pixelwidth.Logging;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import solar.squares.pixelwidth.FixedWidth;
+import solar.squares.pixelwidth.MissingGlyphs;
 
 /**
  * A function that takes a character(represented by its UTF-16 codepoint) and a {@link Style} and returns
@@ -41,18 +44,75 @@ public interface CharacterWidthFunction {
    * Gets the width for the given character(represented by its UTF-16 codepoint). {@code char}s will
    * automatically be converted to codepoints.
    *
+   * <p>The style is the fully merged style of the character, unless this function declares
+   * {@link #decorationsAndFontOnly()}, in which case measuring code may hand it a style holding only
+   * the decorations and font.</p>
+   *
+   * <p>When text is measured the width is rounded to the nearest {@link FixedWidth fixed-point}
+   * unit, an eighth of a pixel, through {@link #fixedWidthOf(int, Style)}, so finer widths do not
+   * add up exactly.</p>
+   *
    * @since 1.0.0
    */
   float widthOf(final int codepoint, final Style style);
 
+  /**
+   * Gets the width for the given character(represented by its UTF-16 codepoint) in {@link FixedWidth fixed-point}
+   * units.
+   *
+   * <p>Measuring code sums these instead of {@link #widthOf(int, Style)}, functions that store their
+   * widths as integers should override this to skip the conversion.</p>
+   *
+   * @param codepoint a codepoint
+   * @param style     the style of the character
+   * @return the width in fixed-point units
+   * @since 1.2.0
+   */
+  default int fixedWidthOf(final int codepoint, final Style style) {
+    return FixedWidth.fromPixels(this.widthOf(codepoint, style));
+  }
+
+  /**
+   * Gets whether this function only reads the {@link net.kyori.adventure.text.format.TextDecoration decorations}
+   * and the {@link Style#font() font} of the styles it is given.
+   *
+   * <p>Measuring code can then track just those parts of nested styles and skip merging the rest,
+   * colors, events and insertions included. Functions that return {@code false}, the default, are
+   * handed the fully merged style of every character.</p>
+   *
+   * @return if only the decorations and font of a style affect the widths of this function
+   * @since 1.2.0
+   */
+  default boolean decorationsAndFontOnly() {
+    return false;
+  }
+
+  /**
+   * Gets the function that measures text in a font.
+   *
+   * <p>Measuring code calls this once for each run of text with the same font and uses the result for
+   * every character in it, so functions covering several fonts can skip resolving the font of each
+   * character. Functions that only know one font return themselves.</p>
+   *
+   * @param font the font of the text, {@code null} for the default font
+   * @return the function for the font
+   * @since 1.2.0
+   */
+  default @NotNull CharacterWidthFunction font(final @Nullable Key font) {
+    return this;
+  }
+
   /**
    * Should be called in {@link #widthOf(int, Style)} when a non-supported codepoint is given.
    *
+   * <p>The codepoint is recorded in the {@link MissingGlyphs#tracker() missing glyph tracker}, which
+   * logs a periodic summary instead of a warning per character.</p>
+   *
    * @return a
    * @since 1.1.0
    */
   default float handleMissing(final int codepoint, final Style style) {
-    Logging.log(Level.WARNING, this.getClass().getSimpleName() + " missing character \"" + (char) codepoint + "\"");
+    MissingGlyphs.tracker().record(codepoint);
     return 6F; //guesstimate
   }
 }
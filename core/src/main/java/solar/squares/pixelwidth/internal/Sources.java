@@ -0,0 +1,103 @@
+/*
+ * This file is part of pixel-width, licensed under the MIT License.
+ *
+ * Copyright (c) 2022 KingOfSquares
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package solar.squares.pixelwidth.internal;
+
+import org.jetbrains.annotations.ApiStatus;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import solar.squares.pixelwidth.ContextualPixelWidthSource;
+import solar.squares.pixelwidth.PixelWidthSource;
+import solar.squares.pixelwidth.ReloadablePixelWidthSource;
+import solar.squares.pixelwidth.function.CharacterWidthFunction;
+
+/**
+ * Resolves what a pixel width source measures with, for the core and utils modules.
+ *
+ * <p>Not part of the API, this class may change or disappear in any release.</p>
+ *
+ * @since 1.2.0
+ */
+@ApiStatus.Internal
+public final class Sources {
+  private Sources() {
+  }
+
+  /**
+   * Gets a source that keeps measuring with the profile a source currently has, so an operation
+   * resolving both the flattener and the function of a {@link ReloadablePixelWidthSource} gets them
+   * from the same profile.
+   *
+   * @param source a pixel width source
+   * @return the source of the current profile of a reloadable source, otherwise the source itself
+   * @since 1.2.0
+   */
+  public static @NotNull PixelWidthSource snapshot(final @NotNull PixelWidthSource source) {
+    return source instanceof ReloadablePixelWidthSource ? ((ReloadablePixelWidthSource) source).profile().source() : source;
+  }
+
+  /**
+   * Gets a source that keeps measuring with the profile a source currently has, so an operation
+   * resolving both the flattener and the function of a {@link ReloadablePixelWidthSource} gets them
+   * from the same profile.
+   *
+   * @param source  a pixel width source
+   * @param <CX>    a context type (player, server, locale)
+   * @return the source of the current profile of a reloadable source, otherwise the source itself
+   * @since 1.2.0
+   */
+  @SuppressWarnings("unchecked")
+  public static <CX> @NotNull ContextualPixelWidthSource<CX> snapshot(final @NotNull ContextualPixelWidthSource<CX> source) {
+    // profile sources measure the same in every context
+    return source instanceof ReloadablePixelWidthSource ? (ContextualPixelWidthSource<CX>) ((ReloadablePixelWidthSource) source).profile().source() : source;
+  }
+
+  /**
+   * Gets a function measuring codepoints the same way a source does without any context.
+   *
+   * @param source a pixel width source
+   * @return a character width function
+   * @since 1.2.0
+   */
+  @SuppressWarnings("unchecked")
+  public static @NotNull CharacterWidthFunction function(final @NotNull PixelWidthSource source) {
+    if (source instanceof ContextualPixelWidthSource) {
+      return function((ContextualPixelWidthSource<Object>) source, null);
+    }
+    return source::width;
+  }
+
+  /**
+   * Gets a function measuring codepoints the same way a source does, given a context.
+   *
+   * @param source  a pixel width source
+   * @param context a context
+   * @param <CX>    a context type (player, server, locale)
+   * @return a character width function
+   * @since 1.2.0
+   */
+  public static <CX> @NotNull CharacterWidthFunction function(final @NotNull ContextualPixelWidthSource<CX> source, final @Nullable CX context) {
+    final CharacterWidthFunction function = source.characterWidthFunction(context);
+    return function != null ? function : (codepoint, style) -> source.width(codepoint, style, context);
+  }
+}
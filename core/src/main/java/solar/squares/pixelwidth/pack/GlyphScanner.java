@@ -0,0 +1,345 @@
+/*
+ * This file is part of pixel-width, licensed under the MIT License.
+ *
+ * Copyright (c) 2022 KingOfSquares
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package solar.squares.pixelwidth.pack;
+
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.InflaterInputStream;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Measures the glyph cells of a font atlas directly from a PNG stream.
+ *
+ * <p>Rows are inflated and unfiltered one at a time and only the rightmost opaque column of each
+ * cell is kept, so an atlas is never decoded into an image. Pixels are opaque when their alpha is not
+ * zero, images without an alpha channel are opaque everywhere unless a {@code tRNS} chunk says
+ * otherwise, matching how the client reads font textures as RGBA.</p>
+ */
+final class GlyphScanner {
+  private static final byte[] SIGNATURE = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'};
+
+  private GlyphScanner() {
+  }
+
+  /**
+   * Scans a PNG atlas split into a grid of cells.
+   *
+   * @param stream the PNG data
+   * @param rows the number of cell rows
+   * @param columns the number of cell columns
+   * @return the scanned atlas
+   * @throws IOException if the stream is not a supported PNG
+   */
+  static @NotNull Atlas scan(final @NotNull InputStream stream, final int rows, final int columns) throws IOException {
+    final DataInputStream in = new DataInputStream(stream);
+    final byte[] signature = new byte[SIGNATURE.length];
+    in.readFully(signature);
+    for (int i = 0; i < SIGNATURE.length; i++) {
+      if (signature[i] != SIGNATURE[i]) throw new IOException("Not a PNG file");
+    }
+
+    int width = -1;
+    int height = -1;
+    int bitDepth = 0;
+    int colorType = 0;
+    byte[] paletteAlpha = null;
+    int[] transparent = null;
+    while (true) {
+      final int length = in.readInt();
+      final String type = chunkType(in);
+      if (type.equals("IHDR")) {
+        width = in.readInt();
+        height = in.readInt();
+        bitDepth = in.readUnsignedByte();
+        colorType = in.readUnsignedByte();
+        in.readUnsignedByte(); // compression, only deflate is defined
+        in.readUnsignedByte(); // filter method, only adaptive is defined
+        if (in.readUnsignedByte() != 0) throw new IOException("Interlaced PNGs are not supported");
+        skip(in, length - 13);
+      } else if (type.equals("tRNS")) {
+        if (colorType == 3) {
+          paletteAlpha = new byte[length];
+          in.readFully(paletteAlpha);
+        } else {
+          transparent = new int[length / 2];
+          for (int i = 0; i < transparent.length; i++) transparent[i] = in.readUnsignedShort();
+          skip(in, length % 2);
+        }
+      } else if (type.equals("IDAT")) {
+        if (width <= 0 || height <= 0) throw new IOException("Missing IHDR chunk");
+        final Atlas atlas = new Atlas(width, height, rows, columns);
+        final Image image = new Image(width, bitDepth, colorType, paletteAlpha, transparent);
+        image.read(new InflaterInputStream(new ImageData(in, length)), atlas);
+        return atlas;
+      } else if (type.equals("IEND")) {
+        throw new IOException("Missing IDAT chunk");
+      } else {
+        skip(in, length);
+      }
+      in.readInt(); // crc
+    }
+  }
+
+  private static String chunkType(final DataInputStream in) throws IOException {
+    final byte[] type = new byte[4];
+    in.readFully(type);
+    return new String(type, StandardCharsets.US_ASCII);
+  }
+
+  private static void skip(final InputStream in, final long count) throws IOException {
+    long remaining = count;
+    while (remaining > 0) {
+      final long skipped = in.skip(remaining);
+      if (skipped <= 0) {
+        if (in.read() < 0) throw new EOFException();
+        remaining--;
+      } else {
+        remaining -= skipped;
+      }
+    }
+  }
+
+  /**
+   * The cell grid of an atlas and the opaque width of each cell.
+   */
+  static final class Atlas {
+    final int cellWidth;
+    final int cellHeight;
+    private final int columns;
+    private final int[] widths;
+
+    Atlas(final int width, final int height, final int rows, final int columns) throws IOException {
+      if (rows <= 0 || columns <= 0) throw new IOException("A glyph atlas needs at least one row and column");
+      this.cellWidth = width / columns;
+      this.cellHeight = height / rows;
+      if (this.cellWidth == 0 || this.cellHeight == 0) throw new IOException("Image of " + width + "x" + height + " is too small for " + columns + "x" + rows + " glyphs");
+      this.columns = columns;
+      this.widths = new int[rows * columns];
+    }
+
+    /**
+     * Gets the width of a cell up to and including its rightmost opaque column.
+     *
+     * @param row the cell row
+     * @param column the cell column
+     * @return the opaque width, {@code 0} if the cell is empty
+     */
+    int width(final int row, final int column) {
+      return this.widths[row * this.columns + column];
+    }
+
+    void opaque(final int x, final int y) {
+      final int column = x / this.cellWidth;
+      final int row = y / this.cellHeight;
+      if (column >= this.columns || row * this.columns >= this.widths.length) return; // outside the grid
+      final int index = row * this.columns + column;
+      final int width = x - column * this.cellWidth + 1;
+      if (width > this.widths[index]) this.widths[index] = width;
+    }
+  }
+
+  /**
+   * Decodes rows of pixels and reports opaque ones to an atlas.
+   */
+  private static final class Image {
+    private final int width;
+    private final int bitDepth;
+    private final int colorType;
+    private final int channels;
+    private final byte[] paletteAlpha;
+    private final int[] transparent;
+
+    Image(final int width, final int bitDepth, final int colorType, final byte[] paletteAlpha, final int[] transparent) throws IOException {
+      this.width = width;
+      this.bitDepth = bitDepth;
+      this.colorType = colorType;
+      switch (colorType) {
+        case 0:
+        case 3:
+          this.channels = 1;
+          break;
+        case 2:
+          this.channels = 3;
+          break;
+        case 4:
+          this.channels = 2;
+          break;
+        case 6:
+          this.channels = 4;
+          break;
+        default:
+          throw new IOException("Unknown PNG color type " + colorType);
+      }
+      if (bitDepth != 1 && bitDepth != 2 && bitDepth != 4 && bitDepth != 8 && bitDepth != 16) throw new IOException("Unknown PNG bit depth " + bitDepth);
+      this.paletteAlpha = paletteAlpha;
+      this.transparent = transparent;
+    }
+
+    void read(final InputStream data, final Atlas atlas) throws IOException {
+      final int bitsPerPixel = this.channels * this.bitDepth;
+      final int stride = Math.max(1, bitsPerPixel / 8);
+      final int rowLength = (int) (((long) this.width * bitsPerPixel + 7) / 8);
+      byte[] previous = new byte[rowLength];
+      byte[] current = new byte[rowLength];
+      final int height = atlas.cellHeight * (atlas.widths.length / atlas.columns);
+      for (int y = 0; y < height; y++) {
+        final int filter = data.read();
+        if (filter < 0) throw new EOFException("PNG image data ended early");
+        readFully(data, current);
+        unfilter(filter, current, previous, stride);
+        for (int x = 0; x < this.width; x++) {
+          if (this.opaque(current, x)) atlas.opaque(x, y);
+        }
+        final byte[] swap = previous;
+        previous = current;
+        current = swap;
+      }
+    }
+
+    private static void readFully(final InputStream in, final byte[] buffer) throws IOException {
+      int offset = 0;
+      while (offset < buffer.length) {
+        final int read = in.read(buffer, offset, buffer.length - offset);
+        if (read < 0) throw new EOFException("PNG image data ended early");
+        offset += read;
+      }
+    }
+
+    private static void unfilter(final int filter, final byte[] row, final byte[] previous, final int stride) throws IOException {
+      switch (filter) {
+        case 0:
+          return;
+        case 1:
+          for (int i = stride; i < row.length; i++) row[i] += row[i - stride];
+          return;
+        case 2:
+          for (int i = 0; i < row.length; i++) row[i] += previous[i];
+          return;
+        case 3:
+          for (int i = 0; i < row.length; i++) {
+            final int left = i >= stride ? row[i - stride] & 0xFF : 0;
+            row[i] += (left + (previous[i] & 0xFF)) >>> 1;
+          }
+          return;
+        case 4:
+          for (int i = 0; i < row.length; i++) {
+            final int left = i >= stride ? row[i - stride] & 0xFF : 0;
+            final int up = previous[i] & 0xFF;
+            final int upLeft = i >= stride ? previous[i - stride] & 0xFF : 0;
+            row[i] += paeth(left, up, upLeft);
+          }
+          return;
+        default:
+          throw new IOException("Unknown PNG filter type " + filter);
+      }
+    }
+
+    private static int paeth(final int a, final int b, final int c) {
+      final int p = a + b - c;
+      final int pa = Math.abs(p - a);
+      final int pb = Math.abs(p - b);
+      final int pc = Math.abs(p - c);
+      if (pa <= pb && pa <= pc) return a;
+      return pb <= pc ? b : c;
+    }
+
+    private int sample(final byte[] row, final int x, final int channel) {
+      if (this.bitDepth == 16) {
+        final int index = (x * this.channels + channel) * 2;
+        return (row[index] & 0xFF) << 8 | row[index + 1] & 0xFF;
+      }
+      if (this.bitDepth == 8) return row[x * this.channels + channel] & 0xFF;
+      // sub-byte depths only exist for single channel images
+      final int bit = x * this.bitDepth;
+      final int shift = 8 - this.bitDepth - (bit & 7);
+      return (row[bit >>> 3] >>> shift) & ((1 << this.bitDepth) - 1);
+    }
+
+    private boolean opaque(final byte[] row, final int x) {
+      switch (this.colorType) {
+        case 3:
+          final int index = this.sample(row, x, 0);
+          return this.paletteAlpha == null || index >= this.paletteAlpha.length || this.paletteAlpha[index] != 0;
+        case 4:
+          return this.sample(row, x, 1) != 0;
+        case 6:
+          return this.sample(row, x, 3) != 0;
+        default:
+          if (this.transparent == null) return true;
+          for (int channel = 0; channel < this.channels; channel++) {
+            if (channel >= this.transparent.length || this.sample(row, x, channel) != this.transparent[channel]) return true;
+          }
+          return false;
+      }
+    }
+  }
+
+  /**
+   * Streams the payload of consecutive {@code IDAT} chunks.
+   */
+  private static final class ImageData extends InputStream {
+    private final DataInputStream in;
+    private int remaining;
+    private boolean done;
+
+    ImageData(final DataInputStream in, final int length) {
+      this.in = in;
+      this.remaining = length;
+    }
+
+    private boolean advance() throws IOException {
+      while (this.remaining == 0) {
+        if (this.done) return false;
+        this.in.readInt(); // crc
+        final int length = this.in.readInt();
+        if (!chunkType(this.in).equals("IDAT")) {
+          this.done = true;
+          return false;
+        }
+        this.remaining = length;
+      }
+      return true;
+    }
+
+    @Override
+    public int read() throws IOException {
+      if (!this.advance()) return -1;
+      this.remaining--;
+      return this.in.read();
+    }
+
+    @Override
+    public int read(final byte @NotNull [] buffer, final int offset, final int length) throws IOException {
+      if (length == 0) return 0;
+      if (!this.advance()) return -1;
+      final int read = this.in.read(buffer, offset, Math.min(length, this.remaining));
+      if (read < 0) throw new EOFException("PNG chunk ended early");
+      this.remaining -= read;
+      return read;
+    }
+  }
+}
@@ -0,0 +1,194 @@
+/*
+ * This file is part of pixel-width, licensed under the MIT License.
+ *
+ * Copyright (c) 2022 KingOfSquares
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package solar.squares.pixelwidth.pack;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * A minimal JSON reader for font definitions, producing maps, lists, strings, doubles, booleans and {@code null}.
+ */
+final class Json {
+  private final String input;
+  private int position;
+
+  private Json(final @NotNull String input) {
+    this.input = input;
+  }
+
+  static @Nullable Object parse(final @NotNull String input) throws IOException {
+    final Json json = new Json(input);
+    // editors on Windows like to save resource pack files with a byte order mark
+    if (input.startsWith("\uFEFF")) json.position = 1;
+    final Object value = json.value();
+    json.whitespace();
+    if (json.position != input.length()) throw json.error("Unexpected trailing content");
+    return value;
+  }
+
+  private IOException error(final String message) {
+    return new IOException(message + " at position " + this.position);
+  }
+
+  private void whitespace() {
+    while (this.position < this.input.length() && Character.isWhitespace(this.input.charAt(this.position))) this.position++;
+  }
+
+  private char peek() throws IOException {
+    this.whitespace();
+    if (this.position >= this.input.length()) throw this.error("Unexpected end of input");
+    return this.input.charAt(this.position);
+  }
+
+  private void expect(final char c) throws IOException {
+    if (this.peek() != c) throw this.error("Expected '" + c + "'");
+    this.position++;
+  }
+
+  private @Nullable Object value() throws IOException {
+    final char c = this.peek();
+    switch (c) {
+      case '{':
+        return this.object();
+      case '[':
+        return this.array();
+      case '"':
+        return this.string();
+      case 't':
+        return this.literal("true", Boolean.TRUE);
+      case 'f':
+        return this.literal("false", Boolean.FALSE);
+      case 'n':
+        return this.literal("null", null);
+      default:
+        return this.number();
+    }
+  }
+
+  private @Nullable Object literal(final @NotNull String literal, final @Nullable Object value) throws IOException {
+    if (!this.input.startsWith(literal, this.position)) throw this.error("Unexpected token");
+    this.position += literal.length();
+    return value;
+  }
+
+  private @NotNull Map<String, Object> object() throws IOException {
+    this.expect('{');
+    final Map<String, Object> map = new LinkedHashMap<>();
+    if (this.peek() == '}') {
+      this.position++;
+      return map;
+    }
+    while (true) {
+      if (this.peek() != '"') throw this.error("Expected a key");
+      final String key = this.string();
+      this.expect(':');
+      map.put(key, this.value());
+      if (this.peek() == ',') {
+        this.position++;
+      } else {
+        this.expect('}');
+        return map;
+      }
+    }
+  }
+
+  private @NotNull List<Object> array() throws IOException {
+    this.expect('[');
+    final List<Object> list = new ArrayList<>();
+    if (this.peek() == ']') {
+      this.position++;
+      return list;
+    }
+    while (true) {
+      list.add(this.value());
+      if (this.peek() == ',') {
+        this.position++;
+      } else {
+        this.expect(']');
+        return list;
+      }
+    }
+  }
+
+  private @NotNull String string() throws IOException {
+    this.expect('"');
+    final StringBuilder builder = new StringBuilder();
+    while (true) {
+      if (this.position >= this.input.length()) throw this.error("Unterminated string");
+      final char c = this.input.charAt(this.position++);
+      if (c == '"') return builder.toString();
+      if (c != '\\') {
+        builder.append(c);
+        continue;
+      }
+      if (this.position >= this.input.length()) throw this.error("Unterminated string");
+      final char escaped = this.input.charAt(this.position++);
+      switch (escaped) {
+        case 'b':
+          builder.append('\b');
+          break;
+        case 'f':
+          builder.append('\f');
+          break;
+        case 'n':
+          builder.append('\n');
+          break;
+        case 'r':
+          builder.append('\r');
+          break;
+        case 't':
+          builder.append('\t');
+          break;
+        case 'u':
+          if (this.position + 4 > this.input.length()) throw this.error("Invalid unicode escape");
+          try {
+            builder.append((char) Integer.parseInt(this.input.substring(this.position, this.position + 4), 16));
+          } catch (final NumberFormatException e) {
+            throw this.error("Invalid unicode escape");
+          }
+          this.position += 4;
+          break;
+        default:
+          builder.append(escaped);
+          break;
+      }
+    }
+  }
+
+  private @NotNull Double number() throws IOException {
+    final int start = this.position;
+    while (this.position < this.input.length() && "+-0123456789.eE".indexOf(this.input.charAt(this.position)) >= 0) this.position++;
+    if (start == this.position) throw this.error("Unexpected character '" + this.input.charAt(start) + "'");
+    try {
+      return Double.valueOf(this.input.substring(start, this.position));
+    } catch (final NumberFormatException e) {
+      throw this.error("Invalid number");
+    }
+  }
+}
@@ -0,0 +1,344 @@
+/*
+ * This file is part of pixel-width, licensed under the MIT License.
+ *
+ * Copyright (c) 2022 KingOfSquares
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package solar.squares.pixelwidth.pack;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.logging.Level;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import net.kyori.adventure.key.Key;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import solar.squares.pixelwidth.Logging;
+import solar.squares.pixelwidth.TrieCharacterWidthFunction;
+import solar.squares.pixelwidth.WidthTableFile;
+
+/**
+ * Builds character width functions from the fonts of a Minecraft resource pack.
+ *
+ * <p>Every {@code assets/<namespace>/font/<path>.json} in the pack becomes a font with the key
+ * {@code <namespace>:<path>}. The {@code bitmap}, {@code space} and {@code reference} providers are
+ * supported and, like the client, the first provider of a font that defines a codepoint decides its
+ * width. Bitmap glyphs are measured the way the client measures them: the opaque width of the glyph
+ * cell, scaled by the provider {@code height}, rounded and plus one pixel of spacing.</p>
+ *
+ * <p>Other provider types, such as {@code ttf} and {@code unihex}, have no fixed pixel widths and are
+ * skipped with a warning.</p>
+ *
+ * @since 1.2.0
+ */
+public final class ResourcePackFonts {
+  private static final String ASSETS = "assets/";
+  private static final String FONT = "/font/";
+  private static final String JSON = ".json";
+  private static final int DEFAULT_HEIGHT = 8;
+  private static final float BOLD_OFFSET = 1;
+
+  private final PackFiles files;
+  private final Map<Key, Widths> resolved = new HashMap<>();
+  private final Set<Key> resolving = new HashSet<>();
+
+  private ResourcePackFonts(final @NotNull PackFiles files) {
+    this.files = files;
+  }
+
+  /**
+   * Loads the fonts of a resource pack.
+   *
+   * @param pack a resource pack directory or zip file
+   * @return the character width function of each font in the pack
+   * @throws IOException if the pack or one of its font definitions cannot be read
+   * @since 1.2.0
+   */
+  public static @NotNull Map<Key, TrieCharacterWidthFunction> load(final @NotNull Path pack) throws IOException {
+    Objects.requireNonNull(pack, "pack");
+    if (Files.isDirectory(pack)) return new ResourcePackFonts(new DirectoryFiles(pack)).load();
+    try (final ZipFile zip = new ZipFile(pack.toFile())) {
+      return new ResourcePackFonts(new ZipFiles(zip)).load();
+    }
+  }
+
+  /**
+   * Loads the fonts of a resource pack and writes them to a {@link WidthTableFile width table file}.
+   *
+   * <p>The file can then be opened with {@link WidthTableFile#open(Path)} instead of loading the
+   * pack again.</p>
+   *
+   * @param pack a resource pack directory or zip file
+   * @param output the width table file to write
+   * @return the character width function of each font in the pack
+   * @throws IOException if the pack can not be read or the file can not be written
+   * @since 1.2.0
+   */
+  public static @NotNull Map<Key, TrieCharacterWidthFunction> compile(final @NotNull Path pack, final @NotNull Path output) throws IOException {
+    final Map<Key, TrieCharacterWidthFunction> fonts = load(pack);
+    WidthTableFile.write(output, fonts);
+    return fonts;
+  }
+
+  private Map<Key, TrieCharacterWidthFunction> load() throws IOException {
+    final Map<Key, TrieCharacterWidthFunction> fonts = new LinkedHashMap<>();
+    for (final String path : this.files.list()) {
+      final Key font = fontKey(path);
+      if (font != null) fonts.put(font, this.resolve(font).compile());
+    }
+    return Collections.unmodifiableMap(fonts);
+  }
+
+  static @Nullable Key fontKey(final @NotNull String path) {
+    if (!path.startsWith(ASSETS) || !path.endsWith(JSON)) return null;
+    final int font = path.indexOf(FONT, ASSETS.length());
+    if (font < 0 || path.indexOf('/', ASSETS.length()) != font) return null;
+    return Key.key(path.substring(ASSETS.length(), font), path.substring(font + FONT.length(), path.length() - JSON.length()));
+  }
+
+  private static String fontPath(final Key font) {
+    return ASSETS + font.namespace() + FONT + font.value() + JSON;
+  }
+
+  private static String texturePath(final Key texture) {
+    return ASSETS + texture.namespace() + "/textures/" + texture.value();
+  }
+
+  private @NotNull Widths resolve(final @NotNull Key font) throws IOException {
+    final Widths existing = this.resolved.get(font);
+    if (existing != null) return existing;
+    final Widths widths = new Widths();
+    if (!this.resolving.add(font)) {
+      Logging.log(Level.WARNING, "Font " + font.asString() + " references itself, ignoring the cycle");
+      return widths;
+    }
+    try (final InputStream stream = this.files.open(fontPath(font))) {
+      if (stream == null) {
+        Logging.log(Level.WARNING, "Font " + font.asString() + " is referenced but does not exist");
+      } else {
+        final Object providers = object(Json.parse(new String(readAll(stream), StandardCharsets.UTF_8))).get("providers");
+        if (!(providers instanceof List<?>)) throw new IOException("Font " + font.asString() + " has no providers list");
+        for (final Object provider : (List<?>) providers) {
+          this.provider(font, object(provider), widths);
+        }
+      }
+    } finally {
+      this.resolving.remove(font);
+    }
+    this.resolved.put(font, widths);
+    return widths;
+  }
+
+  private void provider(final Key font, final Map<?, ?> provider, final Widths widths) throws IOException {
+    final Object type = provider.get("type");
+    if ("bitmap".equals(type)) {
+      this.bitmap(font, provider, widths);
+    } else if ("space".equals(type)) {
+      final Object advances = provider.get("advances");
+      if (!(advances instanceof Map<?, ?>)) throw new IOException("Space provider in " + font.asString() + " has no advances");
+      for (final Map.Entry<?, ?> entry : ((Map<?, ?>) advances).entrySet()) {
+        final String character = (String) entry.getKey();
+        if (character.codePointCount(0, character.length()) != 1) throw new IOException("Space provider in " + font.asString() + " has an advance for more than one character: " + character);
+        widths.putIfAbsent(character.codePointAt(0), number(entry.getValue(), "advance").floatValue());
+      }
+    } else if ("reference".equals(type)) {
+      final Object id = provider.get("id");
+      if (!(id instanceof String)) throw new IOException("Reference provider in " + font.asString() + " has no id");
+      widths.putAllAbsent(this.resolve(Key.key((String) id)));
+    } else {
+      Logging.log(Level.WARNING, "Skipping " + type + " provider in font " + font.asString() + ", only bitmap, space and reference providers have fixed widths");
+    }
+  }
+
+  private void bitmap(final Key font, final Map<?, ?> provider, final Widths widths) throws IOException {
+    final Object file = provider.get("file");
+    final Object chars = provider.get("chars");
+    if (!(file instanceof String) || !(chars instanceof List<?>) || ((List<?>) chars).isEmpty()) throw new IOException("Bitmap provider in " + font.asString() + " needs a file and chars");
+    final List<int[]> rows = new ArrayList<>();
+    for (final Object row : (List<?>) chars) {
+      if (!(row instanceof String)) throw new IOException("Bitmap provider in " + font.asString() + " has a non-string chars row");
+      final int[] codepoints = ((String) row).codePoints().toArray();
+      if (!rows.isEmpty() && codepoints.length != rows.get(0).length) throw new IOException("Bitmap provider in " + font.asString() + " has rows of different lengths");
+      rows.add(codepoints);
+    }
+    final int columns = rows.get(0).length;
+    final int height = provider.containsKey("height") ? number(provider.get("height"), "height").intValue() : DEFAULT_HEIGHT;
+
+    final GlyphScanner.Atlas atlas;
+    try (final InputStream texture = this.files.open(texturePath(Key.key((String) file)))) {
+      if (texture == null) {
+        Logging.log(Level.WARNING, "Skipping bitmap provider in font " + font.asString() + ", texture " + file + " does not exist");
+        return;
+      }
+      atlas = GlyphScanner.scan(texture, rows.size(), columns);
+    }
+    final float scale = (float) height / atlas.cellHeight;
+    for (int row = 0; row < rows.size(); row++) {
+      final int[] codepoints = rows.get(row);
+      for (int column = 0; column < columns; column++) {
+        final int codepoint = codepoints[column];
+        if (codepoint == 0) continue; // empty cell
+        widths.putIfAbsent(codepoint, (int) (0.5F + atlas.width(row, column) * scale) + 1);
+      }
+    }
+  }
+
+  private static Map<?, ?> object(final Object value) throws IOException {
+    if (!(value instanceof Map<?, ?>)) throw new IOException("Expected a JSON object");
+    return (Map<?, ?>) value;
+  }
+
+  private static Number number(final Object value, final String name) throws IOException {
+    if (!(value instanceof Number)) throw new IOException("Expected " + name + " to be a number");
+    return (Number) value;
+  }
+
+  private static byte[] readAll(final InputStream stream) throws IOException {
+    final ByteArrayOutputStream out = new ByteArrayOutputStream();
+    final byte[] buffer = new byte[8192];
+    int read;
+    while ((read = stream.read(buffer)) >= 0) out.write(buffer, 0, read);
+    return out.toByteArray();
+  }
+
+  /**
+   * Collects codepoint widths, keeping the first width set for each codepoint.
+   */
+  static final class Widths {
+    private static final int PAGE_BITS = 8;
+    private static final int PAGE_SIZE = 1 << PAGE_BITS;
+
+    private final float[][] pages = new float[(Character.MAX_CODE_POINT >> PAGE_BITS) + 1][];
+
+    void putIfAbsent(final int codepoint, final float width) {
+      float[] page = this.pages[codepoint >> PAGE_BITS];
+      if (page == null) {
+        page = new float[PAGE_SIZE];
+        Arrays.fill(page, Float.NaN);
+        this.pages[codepoint >> PAGE_BITS] = page;
+      }
+      final int index = codepoint & (PAGE_SIZE - 1);
+      if (Float.isNaN(page[index])) page[index] = width;
+    }
+
+    void putAllAbsent(final Widths other) {
+      for (int p = 0; p < other.pages.length; p++) {
+        final float[] page = other.pages[p];
+        if (page == null) continue;
+        for (int i = 0; i < PAGE_SIZE; i++) {
+          if (!Float.isNaN(page[i])) this.putIfAbsent(p << PAGE_BITS | i, page[i]);
+        }
+      }
+    }
+
+    TrieCharacterWidthFunction compile() {
+      final TrieCharacterWidthFunction.Builder builder = TrieCharacterWidthFunction.builder().boldOffset(BOLD_OFFSET);
+      for (int p = 0; p < this.pages.length; p++) {
+        if (this.pages[p] != null) builder.widths(p << PAGE_BITS, this.pages[p]);
+      }
+      return builder.build();
+    }
+  }
+
+  /**
+   * The files of a resource pack.
+   */
+  private interface PackFiles {
+    @NotNull List<String> list() throws IOException;
+
+    @Nullable InputStream open(@NotNull String path) throws IOException;
+  }
+
+  private static final class DirectoryFiles implements PackFiles {
+    private final Path root;
+
+    DirectoryFiles(final Path root) {
+      this.root = root;
+    }
+
+    @Override
+    public @NotNull List<String> list() throws IOException {
+      final Path assets = this.root.resolve("assets");
+      if (!Files.isDirectory(assets)) return Collections.emptyList();
+      final List<String> paths = new ArrayList<>();
+      try (final Stream<Path> walk = Files.walk(assets)) {
+        walk.filter(Files::isRegularFile).forEach(path -> {
+          final StringBuilder relative = new StringBuilder();
+          for (final Path part : this.root.relativize(path)) {
+            if (relative.length() > 0) relative.append('/');
+            relative.append(part);
+          }
+          paths.add(relative.toString());
+        });
+      }
+      Collections.sort(paths);
+      return paths;
+    }
+
+    @Override
+    public @Nullable InputStream open(final @NotNull String path) throws IOException {
+      final Path file = this.root.resolve(path);
+      return Files.isRegularFile(file) ? Files.newInputStream(file) : null;
+    }
+  }
+
+  private static final class ZipFiles implements PackFiles {
+    private final ZipFile zip;
+
+    ZipFiles(final ZipFile zip) {
+      this.zip = zip;
+    }
+
+    @Override
+    public @NotNull List<String> list() {
+      final List<String> paths = new ArrayList<>();
+      final Enumeration<? extends ZipEntry> entries = this.zip.entries();
+      while (entries.hasMoreElements()) {
+        final ZipEntry entry = entries.nextElement();
+        if (!entry.isDirectory()) paths.add(entry.getName());
+      }
+      Collections.sort(paths);
+      return paths;
+    }
+
+    @Override
+    public @Nullable InputStream open(final @NotNull String path) throws IOException {
+      final ZipEntry entry = this.zip.getEntry(path);
+      return entry == null ? null : this.zip.getInputStream(entry);
+    }
+  }
+}
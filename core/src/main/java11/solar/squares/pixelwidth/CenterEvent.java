@@ -0,0 +1,57 @@
+/*
+ * This file is part of pixel-width, licensed under the MIT License.
+ *
+ * Copyright (c) 2022 KingOfSquares
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package solar.squares.pixelwidth;
+
+// CHECKSTYLE:OFF
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+// CHECKSTYLE:ON
+
+/**
+ * A component was centered, measuring the component is reported by separate component width events.
+ */
+@Name("solar.squares.pixelwidth.Center")
+@Label("Center Component")
+@Category("Pixel Width")
+@Description("A component was centered, measuring the component is reported by separate component width events")
+@Enabled(false)
+final class CenterEvent extends Event {
+  @Label("Component Width")
+  float componentWidth;
+
+  @Label("Goal Width")
+  float goalWidth;
+
+  @Label("Padding Width")
+  @Description("The width of the padding on each side")
+  float paddingWidth;
+
+  @Label("Synthesized")
+  @Description("Whether the padding was built by a padding synthesizer")
+  boolean synthesized;
+}
@@ -0,0 +1,147 @@
+/*
+ * This file is part of pixel-width, licensed under the MIT License.
+ *
+ * Copyright (c) 2022 KingOfSquares
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package solar.squares.pixelwidth;
+
+// CHECKSTYLE:OFF
+import jdk.jfr.EventType;
+// CHECKSTYLE:ON
+import org.jetbrains.annotations.ApiStatus;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Reports width measurement and layout operations to Java Flight Recorder.
+ *
+ * <p>The events are disabled by default. While they are, each {@code begin} method is a check of the
+ * event type and returns {@code null}, so callers skip gathering the event data.</p>
+ *
+ * @since 1.2.0
+ */
+@ApiStatus.Internal
+public final class Telemetry {
+  private static final EventType COMPONENT_WIDTH = EventType.getEventType(ComponentWidthEvent.class);
+  private static final EventType CACHE_LOOKUP = EventType.getEventType(WidthCacheEvent.class);
+  private static final EventType CENTER = EventType.getEventType(CenterEvent.class);
+
+  private Telemetry() {
+  }
+
+  /**
+   * Starts a component width event if it is enabled.
+   *
+   * @return the event, or {@code null} if it is disabled
+   * @since 1.2.0
+   */
+  public static @Nullable Object beginComponentWidth() {
+    if (!COMPONENT_WIDTH.isEnabled()) return null;
+    final ComponentWidthEvent event = new ComponentWidthEvent();
+    event.begin();
+    return event;
+  }
+
+  /**
+   * Commits a component width event.
+   *
+   * @param event the event returned by {@link #beginComponentWidth()}
+   * @param nodes the number of components visited
+   * @param characters the number of characters measured
+   * @param width the measured width
+   * @param context the context of the measurement
+   * @since 1.2.0
+   */
+  public static void commitComponentWidth(final @Nullable Object event, final int nodes, final int characters, final float width, final @Nullable Object context) {
+    if (!(event instanceof ComponentWidthEvent)) return;
+    final ComponentWidthEvent widthEvent = (ComponentWidthEvent) event;
+    widthEvent.end();
+    if (!widthEvent.shouldCommit()) return;
+    widthEvent.nodes = nodes;
+    widthEvent.characters = characters;
+    widthEvent.width = width;
+    widthEvent.contextType = context == null ? null : context.getClass().getName();
+    widthEvent.commit();
+  }
+
+  /**
+   * Starts a width cache lookup event if it is enabled.
+   *
+   * @return the event, or {@code null} if it is disabled
+   * @since 1.2.0
+   */
+  public static @Nullable Object beginCacheLookup() {
+    if (!CACHE_LOOKUP.isEnabled()) return null;
+    final WidthCacheEvent event = new WidthCacheEvent();
+    event.begin();
+    return event;
+  }
+
+  /**
+   * Commits a width cache lookup event.
+   *
+   * @param event the event returned by {@link #beginCacheLookup()}
+   * @param hit whether the width was cached
+   * @since 1.2.0
+   */
+  public static void commitCacheLookup(final @Nullable Object event, final boolean hit) {
+    if (!(event instanceof WidthCacheEvent)) return;
+    final WidthCacheEvent cacheEvent = (WidthCacheEvent) event;
+    cacheEvent.end();
+    if (!cacheEvent.shouldCommit()) return;
+    cacheEvent.hit = hit;
+    cacheEvent.commit();
+  }
+
+  /**
+   * Starts a centering event if it is enabled.
+   *
+   * @return the event, or {@code null} if it is disabled
+   * @since 1.2.0
+   */
+  public static @Nullable Object beginCenter() {
+    if (!CENTER.isEnabled()) return null;
+    final CenterEvent event = new CenterEvent();
+    event.begin();
+    return event;
+  }
+
+  /**
+   * Commits a centering event.
+   *
+   * @param event the event returned by {@link #beginCenter()}
+   * @param componentWidth the width of the centered component
+   * @param goalWidth the width the component is centered in
+   * @param paddingWidth the width of the padding on each side
+   * @param synthesized whether the padding was built by a padding synthesizer
+   * @since 1.2.0
+   */
+  public static void commitCenter(final @Nullable Object event, final float componentWidth, final float goalWidth, final float paddingWidth, final boolean synthesized) {
+    if (!(event instanceof CenterEvent)) return;
+    final CenterEvent centerEvent = (CenterEvent) event;
+    centerEvent.end();
+    if (!centerEvent.shouldCommit()) return;
+    centerEvent.componentWidth = componentWidth;
+    centerEvent.goalWidth = goalWidth;
+    centerEvent.paddingWidth = paddingWidth;
+    centerEvent.synthesized = synthesized;
+    centerEvent.commit();
+  }
+}
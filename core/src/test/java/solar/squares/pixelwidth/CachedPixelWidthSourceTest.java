@@ -0,0 +1,98 @@
+/*
+ * This file is part of pixel-width, licensed under the MIT License.
+ *
+ * Copyright (c) 2022 KingOfSquares
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package solar.squares.pixelwidth;
+
+import java.util.Locale;
+import net.kyori.adventure.text.Component;
+import net.kyori.adventure.text.format.Style;
+import net.kyori.adventure.text.format.TextDecoration;
+import org.junit.jupiter.api.Test;
+import solar.squares.pixelwidth.context.CustomFontCharacterWidthFunction;
+import solar.squares.pixelwidth.context.DummyContext;
+
+import static net.kyori.adventure.text.Component.text;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class CachedPixelWidthSourceTest {
+
+  @Test
+  public void testHitsAndMisses() {
+    final CachedPixelWidthSource<Object> source = CachedPixelWidthSource.builder(PixelWidthSource.pixelWidth()).build();
+    assertEquals(18, source.width(text("CAT")));
+    assertEquals(18, source.width(text("CAT")));
+    assertEquals(21, source.width(text("CAT", Style.style(TextDecoration.BOLD))));
+    assertEquals(1, source.stats().hits());
+    assertEquals(2, source.stats().misses());
+    source.invalidateAll();
+    assertEquals(0, source.size());
+  }
+
+  @Test
+  public void testIdentityKeys() {
+    final CachedPixelWidthSource<Object> source = CachedPixelWidthSource.builder(PixelWidthSource.pixelWidth())
+      .keyStrategy(CachedPixelWidthSource.KeyStrategy.IDENTITY)
+      .build();
+    final Component component = text("CAT");
+    source.width(component);
+    source.width(text("CAT"));
+    source.width(component);
+    assertEquals(1, source.stats().hits());
+  }
+
+  @Test
+  public void testBounded() {
+    final CachedPixelWidthSource<Object> source = CachedPixelWidthSource.builder(PixelWidthSource.pixelWidth()).maximumSize(8).build();
+    for (int i = 0; i < 100; i++) {
+      source.width(text(i));
+    }
+    assertEquals(8, source.size());
+    assertEquals(92, source.stats().evictions());
+  }
+
+  @Test
+  public void testContextsSharingKey() {
+    final CachedPixelWidthSource<DummyContext> source = CachedPixelWidthSource.builder(ContextualPixelWidthSource.<DummyContext>contextualPixelWidth(
+      cx -> cx.locale() == Locale.US ? TableCharacterWidthFunction.DEFAULT : CustomFontCharacterWidthFunction.INSTANCE))
+      .contextKey(DummyContext::locale)
+      .build();
+    final Component component = text("wowie");
+    assertEquals(26, source.width(component, new DummyContext(Locale.US)));
+    assertEquals(26, source.width(component, new DummyContext(Locale.US)));
+    assertEquals(15, source.width(component, new DummyContext(Locale.FRENCH)));
+    assertEquals(1, source.stats().hits());
+  }
+
+  @Test
+  public void testContextsKeyedByIdentity() {
+    final CachedPixelWidthSource<DummyContext> source = CachedPixelWidthSource.builder(ContextualPixelWidthSource.<DummyContext>contextualPixelWidth(
+      cx -> TrieCharacterWidthFunction.builder().width('w', 5F).build())).build();
+    final DummyContext context = new DummyContext(Locale.US);
+    final Component component = text("w");
+    assertEquals(5, source.width(component, context));
+    assertEquals(5, source.width(component, context));
+    assertEquals(5, source.width(component, new DummyContext(Locale.US)));
+    assertEquals(1, source.stats().hits());
+    assertEquals(2, source.size());
+  }
+}
@@ -0,0 +1,87 @@
+/*
+ * This file is part of pixel-width, licensed under the MIT License.
+ *
+ * Copyright (c) 2022 KingOfSquares
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package solar.squares.pixelwidth;
+
+import net.kyori.adventure.key.Key;
+import net.kyori.adventure.text.Component;
+import net.kyori.adventure.text.format.NamedTextColor;
+import net.kyori.adventure.text.format.Style;
+import net.kyori.adventure.text.format.TextDecoration;
+import org.junit.jupiter.api.Test;
+import solar.squares.pixelwidth.function.CharacterWidthFunction;
+
+import static net.kyori.adventure.text.Component.text;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+public class CompiledComponentTest {
+  private static final Key UNIFORM = Key.key("minecraft", "uniform");
+  private static final FontRegistry REGISTRY = FontRegistry.builder()
+    .font(UNIFORM, (codepoint, style) -> style.hasDecoration(TextDecoration.BOLD) ? 5 : 4)
+    .build();
+  private static final CharacterWidthFunction WIDE = (codepoint, style) -> TableCharacterWidthFunction.DEFAULT.widthOf(codepoint, style) + 1;
+
+  private static Component component() {
+    return text("Hello ", Style.style(TextDecoration.BOLD))
+      .append(text("world", NamedTextColor.RED).append(text("!", Style.style().font(UNIFORM).build())))
+      .append(text(" \uD800\uDD92 ").decoration(TextDecoration.BOLD, false)) // 𐆒
+      .append(text("", NamedTextColor.YELLOW))
+      .append(text("bye"));
+  }
+
+  @Test
+  public void testMatchesSource() {
+    final ContextualPixelWidthSource<Boolean> source = ContextualPixelWidthSource.contextualPixelWidth(wide -> wide != null && wide ? WIDE : REGISTRY);
+    final CompiledComponent compiled = CompiledComponent.compile(component());
+    assertEquals(source.width(component(), false), source.width(compiled, false));
+    assertEquals(source.width(component(), true), source.width(compiled, true));
+    assertEquals(source.width(component()), source.width(compiled));
+    assertEquals(source.fixedWidth(component(), true), source.fixedWidth(compiled, true));
+    assertEquals(PixelWidthSource.pixelWidth().width(component()), PixelWidthSource.pixelWidth().width(compiled));
+  }
+
+  @Test
+  public void testRuns() {
+    final CompiledComponent compiled = CompiledComponent.compile(component());
+    // "Hello world! 𐆒 bye", the surrogate pair is one codepoint
+    assertEquals(18, compiled.length());
+    // Runs keep the fully merged style, so the red "world" starts a run of its own
+    assertEquals(5, compiled.runs());
+    assertEquals(0, CompiledComponent.compile(text("")).runs());
+    assertEquals(0, PixelWidthSource.pixelWidth().width(CompiledComponent.compile(text(""))));
+  }
+
+  @Test
+  public void testCache() {
+    final CompiledComponentCache cache = CompiledComponentCache.weak();
+    final Component component = component();
+    final CompiledComponent compiled = cache.apply(component);
+    assertSame(compiled, cache.apply(component));
+    assertNotSame(compiled, cache.apply(component()));
+    assertEquals(2, cache.size());
+    cache.invalidateAll();
+    assertEquals(0, cache.size());
+  }
+}
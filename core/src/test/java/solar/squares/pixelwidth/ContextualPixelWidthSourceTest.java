@@ -28,6 +28,7 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Locale;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
 import net.kyori.adventure.key.Key;
 import net.kyori.adventure.text.Component;
 import net.kyori.adventure.text.TextComponent;
@@ -107,6 +108,24 @@ public class ContextualPixelWidthSourceTest {
     assertEquals(289, this.defaultPixelWidth.width(welcomePrompt, this.context)); //includes all components
   }
 
+  @Test
+  public void testCharacterWidthFunctionCache() {
+    final AtomicInteger resolved = new AtomicInteger();
+    final CharacterWidthFunctionCache<DummyContext> functions = CharacterWidthFunctionCache.weak(cx -> {
+      resolved.incrementAndGet();
+      return cx.locale() == Locale.US ? TableCharacterWidthFunction.DEFAULT : CustomFontCharacterWidthFunction.INSTANCE;
+    });
+    final ContextualPixelWidthSource<DummyContext> source = contextualPixelWidth(functions);
+    final DummyContext otherContext = new DummyContext(Locale.FRENCH);
+    assertEquals(26, source.width(text("wow").append(text("ie")), this.context));
+    assertEquals(26, source.width("wowie", empty(), this.context));
+    assertEquals(15, source.width(text("wowie"), otherContext));
+    assertEquals(2, resolved.get());
+    functions.invalidate(this.context);
+    assertEquals(7, source.width('@', empty(), this.context));
+    assertEquals(3, resolved.get());
+  }
+
   @Test
   public void testCharacterWidthFunctionFunction() {
     final DummyContext otherContext = new DummyContext(Locale.FRENCH);
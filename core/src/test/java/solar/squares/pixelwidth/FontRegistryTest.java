@@ -0,0 +1,105 @@
+/*
+ * This file is part of pixel-width, licensed under the MIT License.
+ *
+ * Copyright (c) 2022 KingOfSquares
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package solar.squares.pixelwidth;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import net.kyori.adventure.key.Key;
+import net.kyori.adventure.text.Component;
+import net.kyori.adventure.text.flattener.ComponentFlattener;
+import net.kyori.adventure.text.format.Style;
+import net.kyori.adventure.text.format.TextDecoration;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.junit.jupiter.api.Test;
+import solar.squares.pixelwidth.function.CharacterWidthFunction;
+
+import static net.kyori.adventure.text.Component.text;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+public class FontRegistryTest {
+  private static final Key UNIFORM = Key.key("minecraft", "uniform");
+  private static final Key TITLE = Key.key("custom", "title");
+  private static final CharacterWidthFunction UNIFORM_FUNCTION = (codepoint, style) -> style.hasDecoration(TextDecoration.BOLD) ? 5 : 4;
+  private static final CharacterWidthFunction TITLE_FUNCTION = (codepoint, style) -> 10;
+
+  private static final FontRegistry REGISTRY = FontRegistry.builder()
+    .font(UNIFORM, UNIFORM_FUNCTION)
+    .font(TITLE, TITLE_FUNCTION)
+    .build();
+
+  @Test
+  public void testResolve() {
+    assertSame(TableCharacterWidthFunction.DEFAULT, REGISTRY.font(null));
+    assertSame(TableCharacterWidthFunction.DEFAULT, REGISTRY.font(Style.DEFAULT_FONT));
+    assertSame(TableCharacterWidthFunction.DEFAULT, REGISTRY.font(Key.key("custom", "unknown")));
+    assertSame(UNIFORM_FUNCTION, REGISTRY.font(UNIFORM));
+    assertEquals(4, REGISTRY.widthOf('i', Style.style().font(UNIFORM).build()));
+    assertEquals(2, REGISTRY.widthOf('i', Style.empty()));
+
+    final FontRegistry nested = FontRegistry.builder().font(UNIFORM, REGISTRY).fallback(TITLE_FUNCTION).build();
+    assertSame(UNIFORM_FUNCTION, nested.font(UNIFORM));
+    assertSame(TITLE_FUNCTION, nested.font(null));
+  }
+
+  @Test
+  public void testComponents() {
+    final PixelWidthSource source = PixelWidthSource.pixelWidth(REGISTRY);
+    final Component component = text("ii")
+      .append(text("ii", Style.style().font(UNIFORM).build())
+        .append(text("ii", Style.style(TextDecoration.BOLD)))
+        .append(text("ii", Style.style().font(TITLE).build())))
+      .append(text("ii"));
+    final float expected = 2 + 2 + 4 + 4 + 5 + 5 + 10 + 10 + 2 + 2;
+    assertEquals(expected, source.width(component));
+    assertEquals(expected, WidthIndex.widthIndex(source, component).width());
+    assertEquals(expected, PixelWidthSource.pixelWidth(ComponentFlattener.basic().toBuilder().build(), REGISTRY).width(component));
+
+    assertEquals(8, source.width("ii", Style.style().font(UNIFORM).build()));
+    assertEquals(8, source.width(new StringBuilder("ii"), Style.style().font(UNIFORM).build()));
+    assertEquals(20, source.width("ii".toCharArray(), 0, 2, Style.style().font(TITLE).build()));
+    assertEquals(10, source.width('i', Style.style().font(TITLE).build()));
+  }
+
+  @Test
+  public void testResolvedOncePerFontRun() {
+    final AtomicInteger resolved = new AtomicInteger();
+    final CharacterWidthFunction counting = new CharacterWidthFunction() {
+      @Override
+      public float widthOf(final int codepoint, final Style style) {
+        throw new AssertionError("characters should be measured with the resolved function");
+      }
+
+      @Override
+      public @NotNull CharacterWidthFunction font(final @Nullable Key font) {
+        resolved.incrementAndGet();
+        return REGISTRY.font(font);
+      }
+    };
+    final Style uniform = Style.style().font(UNIFORM).build();
+    final Component component = text("aaa", uniform).append(text("bbb")).append(text("ccc", Style.style(TextDecoration.BOLD)));
+    assertEquals(6 * 4 + 3 * 5, PixelWidthSource.pixelWidth(counting).width(component));
+    assertEquals(2, resolved.get()); // once up front, once for the uniform font
+  }
+}
@@ -0,0 +1,143 @@
+/*
+ * This file is part of pixel-width, licensed under the MIT License.
+ *
+ * Copyright (c) 2022 KingOfSquares
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package solar.squares.pixelwidth;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.logging.Handler;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+import net.kyori.adventure.text.format.Style;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class MissingGlyphsTest {
+
+  @Test
+  public void testCounts() {
+    final MissingGlyphs glyphs = new MissingGlyphs(64);
+    for (int i = 0; i < 3; i++) glyphs.record(0x1F600); // 😀
+    glyphs.record(0x4E16);
+    glyphs.record(0x4E16);
+    glyphs.record('€');
+    assertEquals(3, glyphs.count(0x1F600));
+    assertEquals(0, glyphs.count('a'));
+    assertEquals(6, glyphs.total());
+
+    final List<MissingGlyphs.Entry> top = glyphs.top(2);
+    assertEquals(2, top.size());
+    assertEquals(0x1F600, top.get(0).codepoint());
+    assertEquals(3, top.get(0).count());
+    assertEquals(0x4E16, top.get(1).codepoint());
+    assertTrue(glyphs.summary().startsWith("Missing glyphs: 6 lookups of 3 codepoints, most common: U+1F600"));
+
+    glyphs.reset();
+    assertEquals(0, glyphs.total());
+    assertEquals(0, glyphs.top(10).size());
+  }
+
+  @Test
+  public void testFullTable() {
+    final MissingGlyphs glyphs = new MissingGlyphs(4);
+    for (int c = 0x4E00; c < 0x4E40; c++) glyphs.record(c);
+    assertEquals(0x40, glyphs.total());
+    assertEquals(0x40 - glyphs.top(100).size(), glyphs.untracked());
+  }
+
+  @Test
+  public void testInvalidCodepoints() {
+    final MissingGlyphs glyphs = new MissingGlyphs(64);
+    glyphs.record(-1);
+    glyphs.record(Integer.MAX_VALUE);
+    glyphs.record(Character.MAX_CODE_POINT + 1);
+    assertEquals(3, glyphs.total());
+    assertEquals(3, glyphs.untracked());
+    assertEquals(0, glyphs.count(-1));
+    assertEquals(0, glyphs.top(10).size());
+  }
+
+  @Test
+  public void testConcurrentRecording() throws InterruptedException {
+    final MissingGlyphs glyphs = new MissingGlyphs(256);
+    final List<Thread> threads = new ArrayList<>();
+    for (int t = 0; t < 4; t++) {
+      final Thread thread = new Thread(() -> {
+        for (int i = 0; i < 10_000; i++) glyphs.record(0x3040 + i % 100);
+      });
+      threads.add(thread);
+      thread.start();
+    }
+    for (final Thread thread : threads) thread.join();
+    assertEquals(40_000, glyphs.total());
+    assertEquals(0, glyphs.untracked());
+    assertEquals(100, glyphs.top(1000).size());
+    assertEquals(400, glyphs.count(0x3040));
+  }
+
+  @Test
+  public void testHandleMissingRecords() {
+    MissingGlyphs.tracker().reset(); // other tests look up every codepoint and fill the table
+    assertEquals(6, TableCharacterWidthFunction.DEFAULT.widthOf(0x10FFFD, Style.empty()));
+    assertEquals(1, MissingGlyphs.tracker().count(0x10FFFD));
+  }
+
+  @Test
+  public void testReportOffRecordingThread() throws InterruptedException {
+    final AtomicReference<Thread> reporter = new AtomicReference<>();
+    final CountDownLatch reported = new CountDownLatch(1);
+    final Logger logger = Logger.getLogger("pixel-width-test");
+    logger.setUseParentHandlers(false);
+    logger.addHandler(new Handler() {
+      @Override
+      public void publish(final LogRecord record) {
+        reporter.set(Thread.currentThread());
+        reported.countDown();
+      }
+
+      @Override
+      public void flush() {
+      }
+
+      @Override
+      public void close() {
+      }
+    });
+    Logging.logger(logger);
+    try {
+      // the first missing glyph is reported right away
+      new MissingGlyphs(16).record(0x1F600);
+      assertTrue(reported.await(10, TimeUnit.SECONDS));
+      assertNotSame(Thread.currentThread(), reporter.get());
+      assertTrue(reporter.get().isDaemon());
+    } finally {
+      Logging.logger(Logger.getLogger("pixel-width"));
+    }
+  }
+}
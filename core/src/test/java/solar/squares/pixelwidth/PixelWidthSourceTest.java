@@ -23,8 +23,12 @@
  */
 package solar.squares.pixelwidth;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
 import net.kyori.adventure.text.Component;
 import net.kyori.adventure.text.KeybindComponent;
 import net.kyori.adventure.text.flattener.ComponentFlattener;
@@ -34,10 +38,12 @@ import net.kyori.adventure.text.format.TextDecoration;
 import org.jetbrains.annotations.NotNull;
 import org.junit.jupiter.api.Test;
 import solar.squares.pixelwidth.context.CustomFontCharacterWidthFunction;
+import solar.squares.pixelwidth.function.CharacterWidthFunction;
 
 import static net.kyori.adventure.text.Component.keybind;
 import static net.kyori.adventure.text.Component.text;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static solar.squares.pixelwidth.PixelWidthSource.pixelWidth;
 
 public class PixelWidthSourceTest {
@@ -76,6 +82,47 @@ public class PixelWidthSourceTest {
     assertEquals(8, custom.width(text("\uD800\uDD92"))); // 𐆒
   }
 
+  @Test
+  public void testCharSequenceAndCharArray() {
+    final PixelWidthSource source = PixelWidthSource.pixelWidth();
+    final StringBuilder builder = new StringBuilder("CAT");
+    assertEquals(18, source.width(builder, Style.empty()));
+    final char[] chars = "a CAT!".toCharArray();
+    assertEquals(18, source.width(chars, 2, 3, Style.empty()));
+    assertEquals(21, source.width(chars, 2, 3, Style.style(TextDecoration.BOLD)));
+  }
+
+  @Test
+  public void testNonBMPCharacterInBuffers() {
+    final PixelWidthSource custom = pixelWidth(new CustomFontCharacterWidthFunction());
+    final char[] chars = "a\uD800\uDD92".toCharArray(); // a𐆒
+    assertEquals(11, custom.width(chars, 0, chars.length, Style.empty()));
+    assertEquals(11, custom.width(new StringBuilder().append(chars), Style.empty()));
+    assertEquals(3, custom.width(chars, 0, 2, Style.empty())); // lone high surrogate
+  }
+
+  @Test
+  public void testDeepInheritedStyle() {
+    final PixelWidthSource source = PixelWidthSource.pixelWidth();
+    Component component = text("A", NamedTextColor.RED);
+    for (int i = 0; i < 100; i++) {
+      component = text("A", Style.style(TextDecoration.BOLD)).append(component.decoration(TextDecoration.BOLD, i % 2 == 0));
+    }
+    // the outermost "A" is bold, the 100 wrapped ones alternate between bold(7) and not bold(6)
+    assertEquals(7 + 50 * 7 + 50 * 6, source.width(component));
+    assertEquals(12, source.width(text("A", Style.style(TextDecoration.BOLD)).append(text("").append(text("A"))).decoration(TextDecoration.BOLD, false)));
+  }
+
+  @Test
+  public void testTextWalkerMatchesFlattener() {
+    final PixelWidthSource walker = PixelWidthSource.pixelWidth();
+    final PixelWidthSource flattener = PixelWidthSource.pixelWidth(ComponentFlattener.basic().toBuilder().build());
+    final Component component = text("Hello ", Style.style(TextDecoration.BOLD))
+      .append(keybind("key.jump").append(text("[x]")))
+      .append(text("world").append(text("!", Style.style(TextDecoration.BOLD, TextDecoration.ITALIC))).decoration(TextDecoration.BOLD, false));
+    assertEquals(flattener.width(component), walker.width(component));
+  }
+
   @Test
   public void testSpaces() {
     final PixelWidthSource source = PixelWidthSource.pixelWidth();
@@ -87,4 +134,108 @@ public class PixelWidthSourceTest {
     final PixelWidthSource source = PixelWidthSource.pixelWidth(new CustomFontCharacterWidthFunction());
     assertEquals(0, source.width(text('†')));
   }
+
+  @Test
+  public void testFixedWidth() {
+    final PixelWidthSource source = PixelWidthSource.pixelWidth();
+    assertEquals(18 * FixedWidth.UNITS_PER_PIXEL, source.fixedWidth(Component.text("CAT")));
+    assertEquals(21 * FixedWidth.UNITS_PER_PIXEL, source.fixedWidth("CAT", Style.style(TextDecoration.BOLD)));
+    final TrieCharacterWidthFunction quarters = TrieCharacterWidthFunction.builder().width('a', 1.25F).width('b', 0.5F).build();
+    final PixelWidthSource exact = PixelWidthSource.pixelWidth(quarters);
+    final StringBuilder text = new StringBuilder();
+    for (int i = 0; i < 1000; i++) text.append("ab");
+    assertEquals(1750 * FixedWidth.UNITS_PER_PIXEL, exact.fixedWidth(text(text.toString())));
+    assertEquals(1750F, exact.width(text.toString(), Style.empty()));
+    assertEquals(exact.fixedWidth(text, Style.empty()), exact.fixedWidth(text.toString().toCharArray(), 0, text.length(), Style.empty()));
+  }
+
+  @Test
+  public void testParallelMatchesSequential() {
+    final List<Component> rows = new ArrayList<>();
+    for (int i = 0; i < 5000; i++) {
+      final List<Component> cells = new ArrayList<>();
+      for (int j = 0; j < 40; j++) cells.add(text(i + ":" + j + " ", j % 3 == 0 ? Style.style(TextDecoration.BOLD) : Style.empty()));
+      rows.add(text("row ").append(text("", Style.style().decoration(TextDecoration.BOLD, i % 2 == 0).build()).children(cells)));
+    }
+    final Component component = text("Leaderboard ", Style.style(TextDecoration.BOLD)).append(text("").children(rows));
+    final PixelWidthSource sequential = PixelWidthSource.pixelWidth();
+    final ForkJoinPool pool = new ForkJoinPool(4);
+    try {
+      final PixelWidthSource parallel = ContextualPixelWidthSource.builder(cx -> TableCharacterWidthFunction.DEFAULT).parallel(pool, 16).build();
+      assertEquals(sequential.width(component), parallel.width(component));
+      assertEquals(sequential.width(text("small")), parallel.width(text("small")));
+    } finally {
+      pool.shutdown();
+    }
+  }
+
+  @Test
+  public void testParallelUsesConfiguredPool() throws Exception {
+    final List<Component> cells = new ArrayList<>();
+    for (int i = 0; i < 64; i++) cells.add(text("cell " + i));
+    final Component component = text("").children(cells);
+    final AtomicInteger workers = new AtomicInteger();
+    final ForkJoinPool pool = new ForkJoinPool(2, other -> {
+      workers.incrementAndGet();
+      return ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(other);
+    }, null, false);
+    final ForkJoinPool caller = new ForkJoinPool(1);
+    try {
+      final PixelWidthSource parallel = ContextualPixelWidthSource.builder(cx -> TableCharacterWidthFunction.DEFAULT).parallel(pool, 4).build();
+      // measuring from a worker of another pool still runs on the configured pool
+      assertEquals(PixelWidthSource.pixelWidth().width(component), (float) caller.submit(() -> parallel.width(component)).get());
+      assertTrue(workers.get() > 0);
+    } finally {
+      caller.shutdown();
+      pool.shutdown();
+    }
+  }
+
+  @Test
+  public void testSubtreeCache() {
+    final Component shared = text("Shared ").append(text("fragment", Style.style(TextDecoration.ITALIC)));
+    final Component component = text("").append(shared)
+      .append(text("", Style.style(TextDecoration.BOLD)).append(shared))
+      .append(text("", Style.style(TextDecoration.BOLD)).append(text("", Style.style().decoration(TextDecoration.BOLD, false).build()).append(shared)));
+    final TrieCharacterWidthFunction narrow = TrieCharacterWidthFunction.builder().width('S', 1F).build();
+    final ContextualPixelWidthSource<Boolean> cached = ContextualPixelWidthSource.<Boolean>builder(cx -> cx ? narrow : TableCharacterWidthFunction.DEFAULT).subtreeCache(64).build();
+    final float expected = PixelWidthSource.pixelWidth().width(component);
+    for (int i = 0; i < 3; i++) {
+      assertEquals(expected, cached.width(component, false));
+      assertEquals(PixelWidthSource.pixelWidth(narrow).width(component), cached.width(component, true));
+    }
+    assertEquals(PixelWidthSource.pixelWidth().width(shared), cached.width(shared, false));
+
+    // each of the three inherited styles measures "Shared fragment" once, after that every child is a hit
+    final AtomicInteger lookups = new AtomicInteger();
+    final CharacterWidthFunction counting = new CharacterWidthFunction() {
+      @Override
+      public float widthOf(final int codepoint, final Style style) {
+        lookups.incrementAndGet();
+        return TableCharacterWidthFunction.DEFAULT.widthOf(codepoint, style);
+      }
+
+      @Override
+      public boolean decorationsAndFontOnly() {
+        return true;
+      }
+    };
+    final PixelWidthSource counted = ContextualPixelWidthSource.builder(cx -> counting).subtreeCache(64).build();
+    assertEquals(expected, counted.width(component));
+    assertEquals(3 * "Shared fragment".length(), lookups.get());
+    assertEquals(expected, counted.width(component));
+    assertEquals(3 * "Shared fragment".length(), lookups.get());
+  }
+
+  @Test
+  public void testFullStyle() {
+    // a function that does not declare decorationsAndFontOnly sees colors, including inherited ones
+    final CharacterWidthFunction colored = (codepoint, style) -> style.color() == NamedTextColor.RED ? 10 : 1;
+    final Component shared = text("a").append(text("b"));
+    final Component component = text("").append(text("", NamedTextColor.RED).append(shared)).append(text("", NamedTextColor.BLUE).append(shared));
+    assertEquals(22, pixelWidth(colored).width(component));
+    assertEquals(22, ContextualPixelWidthSource.builder(cx -> colored).subtreeCache(64).build().width(component));
+    assertEquals(22, pixelWidth(colored).width(CompiledComponent.compile(component)));
+    assertEquals(22, WidthIndex.widthIndex(pixelWidth(colored), component).width());
+  }
 }
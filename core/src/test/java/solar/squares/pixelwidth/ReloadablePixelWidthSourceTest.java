@@ -0,0 +1,144 @@
+/*
+ * This file is part of pixel-width, licensed under the MIT License.
+ *
+ * Copyright (c) 2022 KingOfSquares
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package solar.squares.pixelwidth;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import net.kyori.adventure.text.Component;
+import net.kyori.adventure.text.format.Style;
+import org.junit.jupiter.api.Test;
+import solar.squares.pixelwidth.function.CharacterWidthFunction;
+import solar.squares.pixelwidth.internal.Sources;
+
+import static net.kyori.adventure.text.Component.text;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class ReloadablePixelWidthSourceTest {
+  private static final WidthProfile NARROW = WidthProfile.widthProfile("narrow", (codepoint, style) -> 1);
+  private static final WidthProfile WIDE = WidthProfile.widthProfile("wide", (codepoint, style) -> 10);
+
+  @Test
+  public void testSwap() {
+    final ReloadablePixelWidthSource source = ReloadablePixelWidthSource.reloadable(NARROW);
+    final Component component = text("abc").append(text("de"));
+    assertEquals(5, source.width(component));
+    assertSame(NARROW, source.swap(WIDE));
+    assertSame(WIDE, source.profile());
+    assertEquals(50, source.width(component));
+    assertEquals(30, source.width("abc", Style.empty()));
+    assertEquals(20, source.width("abcde".toCharArray(), 3, 2, Style.empty()));
+    assertEquals(10, WidthIndex.widthIndex(source, "a", Style.empty()).width());
+    assertNull(source.cache());
+    assertThrows(IllegalStateException.class, source::reload);
+  }
+
+  @Test
+  public void testInFlightMeasurementKeepsProfile() {
+    final AtomicReference<ReloadablePixelWidthSource> source = new AtomicReference<>();
+    final CharacterWidthFunction swapping = (codepoint, style) -> {
+      source.get().swap(WIDE);
+      return 1;
+    };
+    source.set(ReloadablePixelWidthSource.reloadable(WidthProfile.widthProfile("swapping", swapping)));
+    assertEquals(3, source.get().width(text("a").append(text("b")).append(text("c"))));
+    assertEquals(30, source.get().width(text("abc")));
+  }
+
+  @Test
+  public void testSnapshotKeepsProfile() {
+    final ReloadablePixelWidthSource source = ReloadablePixelWidthSource.reloadable(NARROW);
+    final PixelWidthSource snapshot = Sources.snapshot(source);
+    assertSame(NARROW.source(), snapshot);
+    source.swap(WIDE);
+    assertEquals(3, WidthIndex.widthIndex(snapshot, text("abc")).width());
+    assertEquals(30, WidthIndex.widthIndex(source, text("abc")).width());
+    assertSame(PixelWidthSource.pixelWidth(), Sources.snapshot(PixelWidthSource.pixelWidth()));
+  }
+
+  @Test
+  public void testCacheIsPerProfile() throws IOException {
+    final AtomicInteger loads = new AtomicInteger();
+    final ReloadablePixelWidthSource source = ReloadablePixelWidthSource.builder()
+      .loader(() -> loads.incrementAndGet() % 2 == 1 ? NARROW : WIDE)
+      .cache(16)
+      .build();
+    final Component component = text("abc");
+    assertEquals(3, source.width(component));
+    assertEquals(3, source.width(component));
+    final CachedPixelWidthSource<?> narrowCache = source.cache();
+    assertEquals(1, narrowCache.stats().hits());
+
+    assertSame(WIDE, source.reload());
+    assertNotSame(narrowCache, source.cache());
+    assertEquals(0, source.cache().size());
+    assertEquals(30, source.width(component));
+    assertEquals(2, loads.get());
+  }
+
+  @Test
+  public void testFailedReloadKeepsProfile() throws IOException {
+    final ReloadablePixelWidthSource source = ReloadablePixelWidthSource.builder()
+      .profile(NARROW)
+      .loader(() -> {
+        throw new IOException("broken pack");
+      })
+      .build();
+    assertThrows(IOException.class, source::reload);
+    assertSame(NARROW, source.profile());
+  }
+
+  @Test
+  public void testWatch() throws IOException, InterruptedException {
+    final Path directory = Files.createTempDirectory("pack");
+    final Path width = directory.resolve("width.txt");
+    Files.write(width, "2".getBytes(StandardCharsets.UTF_8));
+    final WidthProfile.Loader loader = () -> {
+      final float value = Float.parseFloat(new String(Files.readAllBytes(width), StandardCharsets.UTF_8).trim());
+      return WidthProfile.widthProfile("file", (codepoint, style) -> value);
+    };
+    final ReloadablePixelWidthSource source = ReloadablePixelWidthSource.builder().loader(loader).build();
+    final Closeable watch = source.watch(directory);
+    try {
+      assertEquals(2, source.width('a', Style.empty()));
+      Files.write(width, "7".getBytes(StandardCharsets.UTF_8));
+      final long deadline = System.nanoTime() + 30_000_000_000L;
+      while (source.width('a', Style.empty()) != 7 && System.nanoTime() < deadline) Thread.sleep(50);
+      assertEquals(7, source.width('a', Style.empty()));
+    } finally {
+      watch.close();
+      Files.deleteIfExists(width);
+      Files.deleteIfExists(directory);
+    }
+    assertEquals("file", source.profile().name());
+  }
+}
@@ -0,0 +1,177 @@
+/*
+ * This file is part of pixel-width, licensed under the MIT License.
+ *
+ * Copyright (c) 2022 KingOfSquares
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package solar.squares.pixelwidth;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.IndexColorModel;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+import javax.imageio.ImageIO;
+import net.kyori.adventure.key.Key;
+import net.kyori.adventure.text.format.Style;
+import net.kyori.adventure.text.format.TextDecoration;
+import org.junit.jupiter.api.Test;
+import solar.squares.pixelwidth.function.CharacterWidthFunction;
+import solar.squares.pixelwidth.pack.ResourcePackFonts;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class ResourcePackFontsTest {
+  private static final String DEFAULT_FONT = "{\"providers\": ["
+    + "{\"type\": \"reference\", \"id\": \"minecraft:include/space\"},"
+    + "{\"type\": \"space\", \"advances\": {\"B\": 7}},"
+    + "{\"type\": \"bitmap\", \"file\": \"minecraft:font/atlas.png\", \"ascent\": 7, \"chars\": [\"AB\", \"C\\u0000\"]},"
+    + "{\"type\": \"ttf\", \"file\": \"minecraft:font/unused.ttf\"}"
+    + "]}";
+  private static final String SPACE_FONT = "{\"providers\": [{\"type\": \"space\", \"advances\": {\" \": 4, \"\\u200c\": 0}}]}";
+  private static final String LARGE_FONT = "{\"providers\": ["
+    + "{\"type\": \"bitmap\", \"file\": \"custom:icons.png\", \"height\": 16, \"ascent\": 12, \"chars\": [\"\\ue000\\ud800\\udd92\"]}"
+    + "]}";
+
+  @Test
+  public void testDirectory() throws IOException {
+    final Path pack = Files.createTempDirectory("pack");
+    try {
+      writePack(pack);
+      assertFonts(ResourcePackFonts.load(pack));
+    } finally {
+      delete(pack);
+    }
+  }
+
+  @Test
+  public void testZip() throws IOException {
+    final Path pack = Files.createTempDirectory("pack");
+    final Path zip = Files.createTempFile("pack", ".zip");
+    try {
+      writePack(pack);
+      try (final ZipOutputStream out = new ZipOutputStream(Files.newOutputStream(zip)); final Stream<Path> files = Files.walk(pack)) {
+        for (final Path file : files.filter(Files::isRegularFile).collect(Collectors.toList())) {
+          out.putNextEntry(new ZipEntry(pack.relativize(file).toString().replace('\\', '/')));
+          Files.copy(file, out);
+          out.closeEntry();
+        }
+      }
+      assertFonts(ResourcePackFonts.load(zip));
+    } finally {
+      delete(pack);
+      Files.deleteIfExists(zip);
+    }
+  }
+
+  @Test
+  public void testCompile() throws IOException {
+    final Path pack = Files.createTempDirectory("pack");
+    final Path table = Files.createTempFile("fonts", ".pwt");
+    try {
+      writePack(pack);
+      ResourcePackFonts.compile(pack, table);
+      assertFonts(WidthTableFile.open(table));
+    } finally {
+      delete(pack);
+      Files.deleteIfExists(table);
+    }
+  }
+
+  @Test
+  public void testByteOrderMark() throws IOException {
+    final Path pack = Files.createTempDirectory("pack");
+    try {
+      write(pack.resolve("assets/minecraft/font/default.json"), "\uFEFF" + SPACE_FONT);
+      final CharacterWidthFunction font = ResourcePackFonts.load(pack).get(Key.key("minecraft", "default"));
+      assertEquals(4, font.widthOf(' ', Style.empty()));
+    } finally {
+      delete(pack);
+    }
+  }
+
+  private static void assertFonts(final Map<Key, ? extends CharacterWidthFunction> fonts) {
+    assertEquals(3, fonts.size());
+
+    final CharacterWidthFunction font = fonts.get(Key.key("minecraft", "default"));
+    assertEquals(4, font.widthOf(' ', Style.empty()));
+    assertEquals(0, font.widthOf('\u200c', Style.empty()));
+    assertEquals(6, font.widthOf('A', Style.empty()));
+    assertEquals(7, font.widthOf('A', Style.style(TextDecoration.BOLD)));
+    assertEquals(7, font.widthOf('B', Style.empty())); // the space provider comes first
+    assertEquals(1, font.widthOf('C', Style.empty())); // empty cell
+    assertEquals(6, font.widthOf('D', Style.empty())); // missing
+
+    final CharacterWidthFunction space = fonts.get(Key.key("minecraft", "include/space"));
+    assertEquals(4, space.widthOf(' ', Style.empty()));
+    assertEquals(6, space.widthOf('A', Style.empty()));
+
+    // 3 of 4 columns at 16/4 = 4x scale, and the second glyph only has its transparent palette entry
+    final CharacterWidthFunction large = fonts.get(Key.key("custom", "large"));
+    assertEquals(13, large.widthOf(0xE000, Style.empty()));
+    assertEquals(1, large.widthOf(0x10192, Style.empty()));
+  }
+
+  private static void writePack(final Path pack) throws IOException {
+    write(pack.resolve("assets/minecraft/font/default.json"), DEFAULT_FONT);
+    write(pack.resolve("assets/minecraft/font/include/space.json"), SPACE_FONT);
+    write(pack.resolve("assets/custom/font/large.json"), LARGE_FONT);
+
+    final BufferedImage atlas = new BufferedImage(16, 16, BufferedImage.TYPE_INT_ARGB);
+    for (int y = 1; y < 7; y++) {
+      for (int x = 0; x < 5; x++) atlas.setRGB(x, y, 0xFFFFFFFF); // A
+    }
+    atlas.setRGB(8, 3, 0x10FFFFFF); // B, shadowed by the space provider
+    image(pack.resolve("assets/minecraft/textures/font/atlas.png"), atlas);
+
+    final IndexColorModel palette = new IndexColorModel(8, 2, new byte[] {0, -1}, new byte[] {0, -1}, new byte[] {0, -1}, new byte[] {0, -1});
+    final BufferedImage icons = new BufferedImage(8, 4, BufferedImage.TYPE_BYTE_INDEXED, palette);
+    for (int y = 0; y < 4; y++) icons.getRaster().setSample(2, y, 0, 1);
+    image(pack.resolve("assets/custom/textures/icons.png"), icons);
+  }
+
+  private static void write(final Path path, final String content) throws IOException {
+    Files.createDirectories(path.getParent());
+    Files.write(path, content.getBytes(StandardCharsets.UTF_8));
+  }
+
+  private static void image(final Path path, final BufferedImage image) throws IOException {
+    Files.createDirectories(path.getParent());
+    try (final OutputStream out = Files.newOutputStream(path)) {
+      ImageIO.write(image, "png", out);
+    }
+  }
+
+  private static void delete(final Path root) throws IOException {
+    try (final Stream<Path> files = Files.walk(root)) {
+      final List<Path> paths = files.sorted(Comparator.reverseOrder()).collect(Collectors.toList());
+      for (final Path path : paths) Files.delete(path);
+    }
+  }
+}
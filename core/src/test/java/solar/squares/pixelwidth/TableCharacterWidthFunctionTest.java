@@ -0,0 +1,87 @@
+/*
+ * This file is part of pixel-width, licensed under the MIT License.
+ *
+ * Copyright (c) 2022 KingOfSquares
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package solar.squares.pixelwidth;
+
+import java.util.Random;
+import net.kyori.adventure.text.format.Style;
+import net.kyori.adventure.text.format.TextDecoration;
+import org.junit.jupiter.api.Test;
+import solar.squares.pixelwidth.function.CharacterWidthFunction;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class TableCharacterWidthFunctionTest {
+
+  @Test
+  public void testDefaultTableMatchesDefaultFunction() {
+    final Style bold = Style.style(TextDecoration.BOLD);
+    for (int c = 0; c <= Character.MAX_VALUE; c++) {
+      if (DefaultCharacterWidthFunction.baseWidth(c) == -1) continue;
+      assertEquals(DefaultCharacterWidthFunction.INSTANCE.widthOf(c, Style.empty()), TableCharacterWidthFunction.DEFAULT.widthOf(c, Style.empty()));
+      assertEquals(DefaultCharacterWidthFunction.INSTANCE.widthOf(c, bold), TableCharacterWidthFunction.DEFAULT.widthOf(c, bold));
+    }
+  }
+
+  @Test
+  public void testMissing() {
+    final float[] widths = {Float.NaN, 3};
+    final CharacterWidthFunction function = TableCharacterWidthFunction.table(widths, 2);
+    assertEquals(6, function.widthOf(0, Style.empty()));
+    assertEquals(6, function.widthOf(2, Style.empty()));
+    assertEquals(5, function.widthOf(1, Style.style(TextDecoration.BOLD)));
+  }
+
+  @Test
+  public void testFixedWidthMatchesWidth() {
+    final Style bold = Style.style(TextDecoration.BOLD);
+    for (int c = 0; c <= Character.MAX_VALUE; c++) {
+      if (DefaultCharacterWidthFunction.baseWidth(c) == -1) continue;
+      assertEquals(FixedWidth.fromPixels(TableCharacterWidthFunction.DEFAULT.widthOf(c, Style.empty())), TableCharacterWidthFunction.DEFAULT.fixedWidthOf(c, Style.empty()));
+      assertEquals(FixedWidth.fromPixels(TableCharacterWidthFunction.DEFAULT.widthOf(c, bold)), TableCharacterWidthFunction.DEFAULT.fixedWidthOf(c, bold));
+    }
+    final CharacterWidthFunction function = TableCharacterWidthFunction.table(new float[] {Float.NaN, 1.5F, 5000}, 0.5F);
+    assertEquals(6 * FixedWidth.UNITS_PER_PIXEL, function.fixedWidthOf(0, Style.empty()));
+    assertEquals(16, function.fixedWidthOf(1, bold));
+    assertEquals(5000 * FixedWidth.UNITS_PER_PIXEL, function.fixedWidthOf(2, Style.empty()));
+  }
+
+  @Test
+  public void testLatin1BulkMatchesScalar() {
+    final Style bold = Style.style(TextDecoration.BOLD);
+    final Random random = new Random(42);
+    final char[] alphabet = "The quick brown fox jumps over the lazy dog 0123456789 \u00e9\u00df\u00a7\u0001\u00ad\u2603\ud83d\ude00\ud800".toCharArray(); // Latin-1, missing, BMP and non-BMP chars
+    for (int n = 0; n < 1000; n++) {
+      final char[] chars = new char[random.nextInt(40)];
+      for (int i = 0; i < chars.length; i++) chars[i] = alphabet[random.nextInt(alphabet.length)];
+      final String string = new String(chars);
+      for (final Style style : new Style[] {Style.empty(), bold}) {
+        int expected = 0;
+        for (int i = 0; i < string.length(); i += Character.charCount(string.codePointAt(i))) {
+          expected += TableCharacterWidthFunction.DEFAULT.fixedWidthOf(string.codePointAt(i), style);
+        }
+        assertEquals(expected, TableCharacterWidthFunction.DEFAULT.fixedWidth(string, style), string);
+      }
+    }
+  }
+}
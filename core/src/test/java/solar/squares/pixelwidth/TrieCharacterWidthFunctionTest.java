@@ -0,0 +1,87 @@
+/*
+ * This file is part of pixel-width, licensed under the MIT License.
+ *
+ * Copyright (c) 2022 KingOfSquares
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package solar.squares.pixelwidth;
+
+import net.kyori.adventure.text.format.Style;
+import net.kyori.adventure.text.format.TextDecoration;
+import org.junit.jupiter.api.Test;
+import solar.squares.pixelwidth.context.CustomFontCharacterWidthFunction;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TrieCharacterWidthFunctionTest {
+
+  @Test
+  public void testMatchesDefaultTable() {
+    final TrieCharacterWidthFunction.Builder builder = TrieCharacterWidthFunction.builder();
+    for (int c = 0; c <= Character.MAX_VALUE; c++) {
+      final float width = DefaultCharacterWidthFunction.baseWidth(c);
+      if (width != -1) builder.width(c, width);
+    }
+    final TrieCharacterWidthFunction trie = builder.build();
+    final Style bold = Style.style(TextDecoration.BOLD);
+    for (int c = 0; c <= Character.MAX_VALUE; c++) {
+      assertEquals(TableCharacterWidthFunction.DEFAULT.widthOf(c, Style.empty()), trie.widthOf(c, Style.empty()));
+      assertEquals(TableCharacterWidthFunction.DEFAULT.widthOf(c, bold), trie.widthOf(c, bold));
+    }
+  }
+
+  @Test
+  public void testSupplementaryAndOverflow() {
+    final TrieCharacterWidthFunction trie = TrieCharacterWidthFunction.builder()
+      .width(65938, 8) // 𐆒
+      .width(Character.MAX_CODE_POINT, 2.5F)
+      .width('a', 200)
+      .width('b', 1.25F)
+      .width('c', -1)
+      .boldOffset(2)
+      .build();
+    assertEquals(new CustomFontCharacterWidthFunction().widthOf(65938, Style.empty()), trie.widthOf(65938, Style.empty()));
+    assertEquals(2.5F, trie.widthOf(Character.MAX_CODE_POINT, Style.empty()));
+    assertEquals(200, trie.widthOf('a', Style.empty()));
+    assertEquals(202, trie.widthOf('a', Style.style(TextDecoration.BOLD)));
+    assertEquals(1.25F, trie.widthOf('b', Style.empty()));
+    assertEquals(-1, trie.widthOf('c', Style.empty()));
+    assertEquals(6, trie.widthOf('d', Style.empty())); // missing
+    assertEquals(6, trie.widthOf(-5, Style.empty()));
+    assertEquals(6, trie.widthOf(Character.MAX_CODE_POINT + 1, Style.empty()));
+    assertEquals(3, trie.footprint().overflowEntries());
+  }
+
+  @Test
+  public void testSharedBlocks() {
+    final TrieCharacterWidthFunction.Builder builder = TrieCharacterWidthFunction.builder();
+    for (int c = 0x4E00; c < 0xA000; c++) builder.width(c, 9);
+    assertTrue(builder.contains(0x4E00));
+    assertFalse(builder.contains(0xA000));
+
+    final TrieCharacterWidthFunction.Footprint footprint = builder.build().footprint();
+    assertEquals(0xA000 - 0x4E00, footprint.codepoints());
+    assertEquals(2, footprint.blocks()); // the empty block and one full block
+    assertTrue(footprint.totalBytes() < 16 * 1024);
+    assertTrue(footprint.totalBytes() < footprint.denseBytes());
+  }
+}
@@ -0,0 +1,109 @@
+/*
+ * This file is part of pixel-width, licensed under the MIT License.
+ *
+ * Copyright (c) 2022 KingOfSquares
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package solar.squares.pixelwidth;
+
+import net.kyori.adventure.text.Component;
+import net.kyori.adventure.text.format.NamedTextColor;
+import net.kyori.adventure.text.format.Style;
+import net.kyori.adventure.text.format.TextDecoration;
+import org.junit.jupiter.api.Test;
+import solar.squares.pixelwidth.context.CustomFontCharacterWidthFunction;
+
+import static net.kyori.adventure.text.Component.text;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static solar.squares.pixelwidth.WidthIndex.widthIndex;
+
+public class WidthIndexTest {
+  private final PixelWidthSource source = PixelWidthSource.pixelWidth();
+
+  @Test
+  public void testStringWidths() {
+    final WidthIndex index = widthIndex(this.source, "CAT il", Style.empty());
+    assertEquals(this.source.width("CAT il", Style.empty()), index.width());
+    assertEquals(18, index.width(0, 3));
+    assertEquals(this.source.width("T i", Style.empty()), index.width(2, 5));
+    assertEquals(0, index.width(4, 4));
+    assertEquals(12, index.offset(2));
+  }
+
+  @Test
+  public void testIndexAt() {
+    final WidthIndex index = widthIndex(this.source, "CAT", Style.empty());
+    assertEquals(-1, index.indexAt(-1));
+    assertEquals(0, index.indexAt(0));
+    assertEquals(0, index.indexAt(5.5F));
+    assertEquals(1, index.indexAt(6));
+    assertEquals(2, index.indexAt(17));
+    assertEquals(3, index.indexAt(18));
+  }
+
+  @Test
+  public void testFit() {
+    final WidthIndex index = widthIndex(this.source, "CATS", Style.empty());
+    assertEquals(0, index.fit(0, 5));
+    assertEquals(2, index.fit(0, 17));
+    assertEquals(4, index.fit(0, 100));
+    assertEquals(3, index.fit(1, 12));
+  }
+
+  @Test
+  public void testSurrogatePairs() {
+    final WidthIndex index = widthIndex(PixelWidthSource.pixelWidth(new CustomFontCharacterWidthFunction()), "a\uD800\uDD92b", Style.empty()); // a𐆒b
+    assertEquals(14, index.width());
+    assertEquals(8, index.width(1, 3));
+    assertEquals(1, index.indexAt(10));
+    assertEquals(1, index.fit(0, 10));
+    assertEquals(3, index.fit(0, 11));
+  }
+
+  @Test
+  public void testComponentRuns() {
+    final Component component = text("CAT", NamedTextColor.RED)
+      .append(text("AT", Style.style(TextDecoration.BOLD)))
+      .append(text(""))
+      .append(text("C"));
+    final WidthIndex index = widthIndex(this.source, component);
+    assertEquals("CATATC", index.text());
+    assertEquals(this.source.width(component), index.width());
+    assertEquals(3, index.runCount());
+    assertEquals(3, index.runStart(1));
+    assertEquals(5, index.runEnd(1));
+    assertEquals(14, index.width(3, 5));
+    assertEquals(1, index.runAt(4));
+    assertEquals(2, index.runAt(5));
+    assertEquals(NamedTextColor.RED, index.runStyle(2).color());
+    assertEquals(TextDecoration.State.TRUE, index.runStyle(1).decoration(TextDecoration.BOLD));
+  }
+
+  @Test
+  public void testWidthsDoNotDrift() {
+    // summed as floats, the half pixels after a 2^24 pixel wide glyph would round away
+    final PixelWidthSource source = PixelWidthSource.pixelWidth((codepoint, style) -> codepoint == 'a' ? 16777216F : 0.5F);
+    final WidthIndex index = widthIndex(source, "abbbb", Style.empty());
+    assertEquals(2, index.width(1, 5));
+    assertEquals(0.5F, index.width(4, 5));
+    assertEquals(16777218F, index.width());
+    assertEquals(3, index.fit(1, 1));
+  }
+}
@@ -0,0 +1,120 @@
+/*
+ * This file is part of pixel-width, licensed under the MIT License.
+ *
+ * Copyright (c) 2022 KingOfSquares
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package solar.squares.pixelwidth;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import net.kyori.adventure.key.Key;
+import net.kyori.adventure.text.format.Style;
+import net.kyori.adventure.text.format.TextDecoration;
+import org.junit.jupiter.api.Test;
+import solar.squares.pixelwidth.function.CharacterWidthFunction;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class WidthTableFileTest {
+  private static final Key DEFAULT = Key.key("minecraft", "default");
+  private static final Key ICONS = Key.key("custom", "icons");
+
+  private static Map<Key, TrieCharacterWidthFunction> fonts() {
+    final TrieCharacterWidthFunction.Builder builder = TrieCharacterWidthFunction.builder();
+    for (int c = 0; c <= Character.MAX_VALUE; c++) {
+      final float width = DefaultCharacterWidthFunction.baseWidth(c);
+      if (width != -1) builder.width(c, width);
+    }
+    final Map<Key, TrieCharacterWidthFunction> fonts = new LinkedHashMap<>();
+    fonts.put(DEFAULT, builder.build());
+    fonts.put(ICONS, TrieCharacterWidthFunction.builder()
+      .width(0xE000, 9)
+      .width(0xE001, 300)
+      .width(65938, 8) // 𐆒
+      .width(0x10FFFD, 1.25F)
+      .boldOffset(0)
+      .build());
+    return fonts;
+  }
+
+  @Test
+  public void testRoundTrip() throws IOException {
+    final Map<Key, TrieCharacterWidthFunction> fonts = fonts();
+    final Path file = Files.createTempFile("fonts", ".pwt");
+    try {
+      WidthTableFile.write(file, fonts);
+      final Map<Key, CharacterWidthFunction> mapped = WidthTableFile.open(file);
+      assertEquals(fonts.keySet(), mapped.keySet());
+      final Style bold = Style.style(TextDecoration.BOLD);
+      for (final Key font : fonts.keySet()) {
+        for (int c = 0; c <= Character.MAX_CODE_POINT; c += c < 0x10000 ? 1 : 97) {
+          assertEquals(fonts.get(font).widthOf(c, Style.empty()), mapped.get(font).widthOf(c, Style.empty()));
+        }
+        assertEquals(fonts.get(font).widthOf('W', bold), mapped.get(font).widthOf('W', bold));
+      }
+      final CharacterWidthFunction icons = mapped.get(ICONS);
+      assertEquals(300, icons.widthOf(0xE001, bold));
+      assertEquals(8, icons.widthOf(65938, Style.empty()));
+      assertEquals(1.25F, icons.widthOf(0x10FFFD, Style.empty()));
+      assertEquals(6, icons.widthOf('a', Style.empty())); // missing
+    } finally {
+      Files.deleteIfExists(file);
+    }
+  }
+
+  @Test
+  public void testInvalid() throws IOException {
+    final Path file = Files.createTempFile("fonts", ".pwt");
+    try {
+      WidthTableFile.write(file, fonts());
+      final byte[] bytes = Files.readAllBytes(file);
+
+      final byte[] corrupt = bytes.clone();
+      corrupt[corrupt.length - 100] ^= 1;
+      assertThrows(IOException.class, () -> WidthTableFile.read(ByteBuffer.wrap(corrupt), "corrupt", true));
+      assertEquals(2, WidthTableFile.read(ByteBuffer.wrap(corrupt), "unverified", false).size());
+
+      final byte[] index = bytes.clone();
+      final int offset = ByteBuffer.wrap(index).getInt(WidthTableFile.HEADER_SIZE + Short.BYTES + "minecraft:default".length() + Float.BYTES + Integer.BYTES * 2);
+      index[offset] = (byte) 0xFF;
+      assertThrows(IOException.class, () -> WidthTableFile.read(ByteBuffer.wrap(index), "index", true));
+      assertEquals(6, WidthTableFile.read(ByteBuffer.wrap(index), "index", false).get(DEFAULT).widthOf('a', Style.empty()));
+
+      final byte[] key = bytes.clone();
+      key[WidthTableFile.HEADER_SIZE + Short.BYTES + "minecraft".length()] = '!'; // minecraft!default
+      assertThrows(IOException.class, () -> WidthTableFile.read(ByteBuffer.wrap(key), "key", false));
+
+      final byte[] version = bytes.clone();
+      version[5] = 2;
+      assertThrows(IOException.class, () -> WidthTableFile.read(ByteBuffer.wrap(version), "version", false));
+
+      assertThrows(IOException.class, () -> WidthTableFile.read(ByteBuffer.wrap(new byte[] {'P', 'N', 'G', 0}), "magic", false));
+      assertEquals(2, WidthTableFile.read(ByteBuffer.wrap(bytes), "valid", true).size());
+    } finally {
+      Files.deleteIfExists(file);
+    }
+  }
+}
@@ -0,0 +1,406 @@
+/*
+ * This file is part of pixel-width, licensed under the MIT License.
+ *
+ * Copyright (c) 2022 KingOfSquares
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package solar.squares.pixelwidth.utils;
+
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import net.kyori.adventure.text.Component;
+import net.kyori.adventure.text.TextComponent;
+import org.jetbrains.annotations.NotNull;
+import solar.squares.pixelwidth.ContextualPixelWidthSource;
+import solar.squares.pixelwidth.PixelWidthSource;
+
+/**
+ * Runs batches of measuring and layout jobs off the calling thread.
+ *
+ * <p>Batches are split into chunks that run in parallel on an executor, the results are returned in the
+ * order of the inputs once every chunk is done. If a job fails the returned future completes with its
+ * exception right away and the other chunks stop before their next job, as they do when the returned
+ * future is cancelled. By default chunks run on virtual threads when the runtime has them, and on the
+ * common fork join pool otherwise.</p>
+ *
+ * <p>A layout created for a {@link ContextualPixelWidthSource} measures every batch in the context it was
+ * created with, for example the player the components are shown to.</p>
+ *
+ * <pre>{@code
+ * final AsyncLayout layout = AsyncLayout.asyncLayout(PixelWidthSource.pixelWidth());
+ * layout.center(lines, Component.space(), CenterAPI.DEFAULT_CHAT_WIDTH)
+ *   .thenAccept(centered -> scheduler.runTask(() -> sidebar.update(centered)));
+ * }</pre>
+ *
+ * <p>Sources and functions used from an async layout have to be safe to use from several threads, which
+ * all sources and functions of pixel-width are.</p>
+ *
+ * @since 1.2.0
+ */
+public final class AsyncLayout {
+  private static final int DEFAULT_CHUNK_SIZE = 64;
+
+  private final Jobs jobs;
+  private final Executor executor;
+  private final int chunkSize;
+
+  private AsyncLayout(final @NotNull Jobs jobs, final @NotNull Executor executor, final int chunkSize) {
+    this.jobs = jobs;
+    this.executor = executor;
+    this.chunkSize = chunkSize;
+  }
+
+  /**
+   * Creates an async layout measuring with a source on the default executor.
+   *
+   * @param source the pixel width source used to calculate widths
+   * @return an async layout
+   * @since 1.2.0
+   */
+  public static @NotNull AsyncLayout asyncLayout(final @NotNull PixelWidthSource source) {
+    return builder(source).build();
+  }
+
+  /**
+   * Creates a builder for an async layout measuring with a source.
+   *
+   * @param source the pixel width source used to calculate widths
+   * @return a builder
+   * @since 1.2.0
+   */
+  public static @NotNull Builder builder(final @NotNull PixelWidthSource source) {
+    Objects.requireNonNull(source, "source");
+    return new Builder(new ContextlessJobs(source));
+  }
+
+  /**
+   * Creates an async layout measuring with a source in a context on the default executor.
+   *
+   * @param source the pixel width source used to calculate widths
+   * @param context the context of the pixel width calculations
+   * @param <CX> a context type (player, server, locale)
+   * @return an async layout
+   * @since 1.2.0
+   */
+  public static <CX> @NotNull AsyncLayout asyncLayout(final @NotNull ContextualPixelWidthSource<CX> source, final @NotNull CX context) {
+    return builder(source, context).build();
+  }
+
+  /**
+   * Creates a builder for an async layout measuring with a source in a context.
+   *
+   * @param source the pixel width source used to calculate widths
+   * @param context the context of the pixel width calculations
+   * @param <CX> a context type (player, server, locale)
+   * @return a builder
+   * @since 1.2.0
+   */
+  public static <CX> @NotNull Builder builder(final @NotNull ContextualPixelWidthSource<CX> source, final @NotNull CX context) {
+    Objects.requireNonNull(source, "source");
+    return new Builder(new ContextualJobs<>(source, context));
+  }
+
+  /**
+   * Gets the executor chunks run on when none is configured.
+   *
+   * <p>This is an executor starting a virtual thread per chunk on runtimes with virtual threads, and
+   * the {@link ForkJoinPool#commonPool() common pool} otherwise.</p>
+   *
+   * @return the default executor
+   * @since 1.2.0
+   */
+  public static @NotNull Executor defaultExecutor() {
+    return DefaultExecutor.INSTANCE;
+  }
+
+  /**
+   * Runs a job for each input.
+   *
+   * @param inputs the inputs, copied before this method returns
+   * @param job the job to run for each input
+   * @param <T> the input type
+   * @param <R> the result type
+   * @return a future of the results, in the order of the inputs
+   * @since 1.2.0
+   */
+  public <T, R> @NotNull CompletableFuture<List<R>> map(final @NotNull List<? extends T> inputs, final @NotNull Function<? super T, ? extends R> job) {
+    Objects.requireNonNull(job, "job");
+    final Object[] batch = inputs.toArray();
+    final Object[] results = new Object[batch.length];
+    @SuppressWarnings("unchecked") final List<R> list = (List<R>) Collections.unmodifiableList(Arrays.asList(results));
+    final int chunks = (batch.length + this.chunkSize - 1) / this.chunkSize;
+    final CompletableFuture<List<R>> future = new CompletableFuture<>();
+    if (chunks == 0) {
+      future.complete(list);
+      return future;
+    }
+    final AtomicInteger remaining = new AtomicInteger(chunks);
+    for (int chunk = 0; chunk < chunks; chunk++) {
+      final int from = chunk * this.chunkSize;
+      final int to = Math.min(from + this.chunkSize, batch.length);
+      CompletableFuture.runAsync(() -> {
+        // a failed chunk or a cancelled batch completes the future early, the other chunks then stop
+        for (int i = from; i < to && !future.isDone(); i++) {
+          @SuppressWarnings("unchecked") final T input = (T) batch[i];
+          results[i] = job.apply(input);
+        }
+      }, this.executor).whenComplete((ignored, failure) -> {
+        if (failure != null) {
+          future.completeExceptionally(failure);
+        } else if (remaining.decrementAndGet() == 0) {
+          // Every chunk writes its own slots before counting down, so the last one sees all of them
+          future.complete(list);
+        }
+      });
+    }
+    return future;
+  }
+
+  /**
+   * Calculates the pixel width of each component.
+   *
+   * @param components the components
+   * @return a future of the widths, in the order of the components
+   * @since 1.2.0
+   */
+  public @NotNull CompletableFuture<List<Float>> width(final @NotNull List<? extends Component> components) {
+    return this.map(components, this.jobs::width);
+  }
+
+  /**
+   * Centers each component with a padding used to add space on both sides of it.
+   *
+   * @param components the components to center
+   * @param padding the text to use as padding
+   * @param chatWidth the width of the chat the components are getting shown in
+   * @return a future of the centered components, in the order of the components
+   * @see CenterAPI#center(Component, PixelWidthSource, TextComponent, float)
+   * @since 1.2.0
+   */
+  public @NotNull CompletableFuture<List<Component>> center(final @NotNull List<? extends Component> components, final @NotNull TextComponent padding, final float chatWidth) {
+    Objects.requireNonNull(padding, "padding");
+    return this.map(components, component -> this.jobs.center(component, padding, chatWidth));
+  }
+
+  /**
+   * Centers each component with padding of the exact width needed on both sides of it.
+   *
+   * @param components the components to center
+   * @param padding the padding synthesizer used to build the padding
+   * @param chatWidth the width of the chat the components are getting shown in
+   * @return a future of the centered components, in the order of the components
+   * @see CenterAPI#center(Component, PixelWidthSource, PaddingSynthesizer, float)
+   * @since 1.2.0
+   */
+  public @NotNull CompletableFuture<List<Component>> center(final @NotNull List<? extends Component> components, final @NotNull PaddingSynthesizer padding, final float chatWidth) {
+    Objects.requireNonNull(padding, "padding");
+    return this.map(components, component -> this.jobs.center(component, padding, chatWidth));
+  }
+
+  /**
+   * Wraps each component into lines at most {@code maxWidth} wide.
+   *
+   * @param components the components to wrap
+   * @param maxWidth the maximum width of a line
+   * @param mode how lines are broken
+   * @return a future of the lines of each component, in the order of the components
+   * @see WrapAPI#wrap(Component, PixelWidthSource, float, WrapAPI.Mode)
+   * @since 1.2.0
+   */
+  public @NotNull CompletableFuture<List<List<Component>>> wrap(final @NotNull List<? extends Component> components, final float maxWidth, final WrapAPI.@NotNull Mode mode) {
+    Objects.requireNonNull(mode, "mode");
+    return this.map(components, component -> this.jobs.wrap(component, maxWidth, mode));
+  }
+
+  /**
+   * Truncates each component to at most {@code maxWidth}, appending an ellipsis to the ones that did not fit.
+   *
+   * @param components the components to truncate
+   * @param maxWidth the maximum width of a component
+   * @param ellipsis the component appended when a component is truncated
+   * @return a future of the truncated components, in the order of the components
+   * @see TruncateAPI#truncate(Component, PixelWidthSource, float, Component)
+   * @since 1.2.0
+   */
+  public @NotNull CompletableFuture<List<Component>> truncate(final @NotNull List<? extends Component> components, final float maxWidth, final @NotNull Component ellipsis) {
+    Objects.requireNonNull(ellipsis, "ellipsis");
+    return this.map(components, component -> this.jobs.truncate(component, maxWidth, ellipsis));
+  }
+
+  /**
+   * A builder for {@link AsyncLayout}s.
+   *
+   * @since 1.2.0
+   */
+  public static final class Builder {
+    private final Jobs jobs;
+    private Executor executor = defaultExecutor();
+    private int chunkSize = DEFAULT_CHUNK_SIZE;
+
+    private Builder(final @NotNull Jobs jobs) {
+      this.jobs = jobs;
+    }
+
+    /**
+     * Sets the executor chunks run on, {@link #defaultExecutor()} by default.
+     *
+     * @param executor an executor
+     * @return this builder
+     * @since 1.2.0
+     */
+    public @NotNull Builder executor(final @NotNull Executor executor) {
+      this.executor = Objects.requireNonNull(executor, "executor");
+      return this;
+    }
+
+    /**
+     * Sets the number of jobs run together as one task, {@code 64} by default.
+     *
+     * @param chunkSize the number of jobs in a chunk
+     * @return this builder
+     * @throws IllegalArgumentException if the chunk size is not positive
+     * @since 1.2.0
+     */
+    public @NotNull Builder chunkSize(final int chunkSize) {
+      if (chunkSize <= 0) throw new IllegalArgumentException("Chunk size must be positive, was " + chunkSize);
+      this.chunkSize = chunkSize;
+      return this;
+    }
+
+    /**
+     * Builds the async layout.
+     *
+     * @return an async layout
+     * @since 1.2.0
+     */
+    public @NotNull AsyncLayout build() {
+      return new AsyncLayout(this.jobs, this.executor, this.chunkSize);
+    }
+  }
+
+  /**
+   * The layout jobs of a source, with or without a context.
+   */
+  private interface Jobs {
+    float width(final @NotNull Component component);
+
+    @NotNull Component center(final @NotNull Component component, final @NotNull TextComponent padding, final float chatWidth);
+
+    @NotNull Component center(final @NotNull Component component, final @NotNull PaddingSynthesizer padding, final float chatWidth);
+
+    @NotNull List<Component> wrap(final @NotNull Component component, final float maxWidth, final WrapAPI.@NotNull Mode mode);
+
+    @NotNull Component truncate(final @NotNull Component component, final float maxWidth, final @NotNull Component ellipsis);
+  }
+
+  private static final class ContextlessJobs implements Jobs {
+    private final PixelWidthSource source;
+
+    ContextlessJobs(final @NotNull PixelWidthSource source) {
+      this.source = source;
+    }
+
+    @Override
+    public float width(final @NotNull Component component) {
+      return this.source.width(component);
+    }
+
+    @Override
+    public @NotNull Component center(final @NotNull Component component, final @NotNull TextComponent padding, final float chatWidth) {
+      return CenterAPI.center(component, this.source, padding, chatWidth);
+    }
+
+    @Override
+    public @NotNull Component center(final @NotNull Component component, final @NotNull PaddingSynthesizer padding, final float chatWidth) {
+      return CenterAPI.center(component, this.source, padding, chatWidth);
+    }
+
+    @Override
+    public @NotNull List<Component> wrap(final @NotNull Component component, final float maxWidth, final WrapAPI.@NotNull Mode mode) {
+      return WrapAPI.wrap(component, this.source, maxWidth, mode);
+    }
+
+    @Override
+    public @NotNull Component truncate(final @NotNull Component component, final float maxWidth, final @NotNull Component ellipsis) {
+      return TruncateAPI.truncate(component, this.source, maxWidth, ellipsis);
+    }
+  }
+
+  private static final class ContextualJobs<CX> implements Jobs {
+    private final ContextualPixelWidthSource<CX> source;
+    private final CX context;
+
+    ContextualJobs(final @NotNull ContextualPixelWidthSource<CX> source, final @NotNull CX context) {
+      this.source = source;
+      this.context = context;
+    }
+
+    @Override
+    public float width(final @NotNull Component component) {
+      return this.source.width(component, this.context);
+    }
+
+    @Override
+    public @NotNull Component center(final @NotNull Component component, final @NotNull TextComponent padding, final float chatWidth) {
+      return CenterAPI.center(component, this.source, this.context, padding, chatWidth);
+    }
+
+    @Override
+    public @NotNull Component center(final @NotNull Component component, final @NotNull PaddingSynthesizer padding, final float chatWidth) {
+      return CenterAPI.center(component, this.source, this.context, padding, context -> chatWidth);
+    }
+
+    @Override
+    public @NotNull List<Component> wrap(final @NotNull Component component, final float maxWidth, final WrapAPI.@NotNull Mode mode) {
+      return WrapAPI.wrap(component, this.source, this.context, maxWidth, mode);
+    }
+
+    @Override
+    public @NotNull Component truncate(final @NotNull Component component, final float maxWidth, final @NotNull Component ellipsis) {
+      return TruncateAPI.truncate(component, this.source, this.context, maxWidth, ellipsis);
+    }
+  }
+
+  /**
+   * Holds the default executor, looked up the first time it is used.
+   */
+  private static final class DefaultExecutor {
+    static final Executor INSTANCE = create();
+
+    private static @NotNull Executor create() {
+      try {
+        // Java 21+, looked up reflectively to keep running on Java 8
+        final Method virtual = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+        return (Executor) virtual.invoke(null);
+      } catch (final ReflectiveOperationException | LinkageError e) {
+        return ForkJoinPool.commonPool();
+      }
+    }
+  }
+}
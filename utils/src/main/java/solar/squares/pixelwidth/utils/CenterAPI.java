@@ -23,12 +23,16 @@
  */
 package solar.squares.pixelwidth.utils;
 
+import java.util.Collection;
+import java.util.Map;
 import java.util.function.Function;
 import net.kyori.adventure.text.Component;
 import net.kyori.adventure.text.TextComponent;
 import org.jetbrains.annotations.NotNull;
 import solar.squares.pixelwidth.ContextualPixelWidthSource;
+import solar.squares.pixelwidth.FixedWidth;
 import solar.squares.pixelwidth.PixelWidthSource;
+import solar.squares.pixelwidth.Telemetry;
 import solar.squares.pixelwidth.function.ChatWidthFunction;
 
 /**
@@ -49,24 +53,119 @@ public interface CenterAPI {
    * @param paddingWidth the width of the padding text
    * @param goalWidth the width of the chat this component is getting shown in
    * @return a component with padding to hopefully center it
-   * @throws IllegalArgumentException if padding is too wide to fit on both sides of the center component at least once
+   * @throws IllegalArgumentException if padding has no width or is too wide to fit on both sides of the center component at least once
    * @since 1.0.0
    */
   static Component center(final @NotNull Component component, final float componentWidth, final @NotNull TextComponent padding, final float paddingWidth, final float goalWidth) {
-    final float widthToPad = (goalWidth - componentWidth) / 2;
-    if (paddingWidth > widthToPad)
-      throw new IllegalArgumentException("Padding component is too big to fit at least once on both sides of the center component at least once. Max for given max width(" + goalWidth + ") is " + widthToPad + " Was " + paddingWidth);
-    final StringBuilder paddingBuilder = new StringBuilder();
-    //We use a StringBuilder to circumvent creating a Component with lots of unnecessary children
+    return centerFixed(component, FixedWidth.fromPixels(componentWidth), padding, FixedWidth.fromPixels(paddingWidth), FixedWidth.fromPixels(goalWidth));
+  }
+
+  /**
+   * Center a component with a padding used to add space on both sides of the component, with all widths in
+   * {@link FixedWidth fixed-point} units.
+   *
+   * <p>The number of paddings is calculated with integer arithmetic, so the result does not depend on rounding
+   * errors accumulated over many paddings.</p>
+   *
+   * @param component The component to center
+   * @param componentWidth The width of the component in fixed-point units
+   * @param padding the text to use as padding
+   * @param paddingWidth the width of the padding text in fixed-point units
+   * @param goalWidth the width of the chat this component is getting shown in, in fixed-point units
+   * @return a component with padding to hopefully center it
+   * @throws IllegalArgumentException if padding has no width or is too wide to fit on both sides of the center component at least once
+   * @since 1.2.0
+   */
+  static Component centerFixed(final @NotNull Component component, final int componentWidth, final @NotNull TextComponent padding, final int paddingWidth, final int goalWidth) {
+    final Object event = Telemetry.beginCenter();
+    if (paddingWidth <= 0)
+      throw new IllegalArgumentException("Padding component must have a positive width. Was " + FixedWidth.toPixels(paddingWidth));
+    // Twice the width to pad on each side, which keeps odd differences exact
+    final long doubleWidthToPad = (long) goalWidth - componentWidth;
+    if (2L * paddingWidth > doubleWidthToPad)
+      throw new IllegalArgumentException("Padding component is too big to fit at least once on both sides of the center component at least once. Max for given max width(" + FixedWidth.toPixels(goalWidth) + ") is " + (float) (doubleWidthToPad / 2D / FixedWidth.UNITS_PER_PIXEL) + " Was " + FixedWidth.toPixels(paddingWidth));
+    // The most paddings that still leave part of the width to pad uncovered
+    final int count = (int) ((doubleWidthToPad - 1) / (2L * paddingWidth));
     final String content = padding.content();
-    for (float i = paddingWidth; i < widthToPad; i += paddingWidth) {
+    //We use a StringBuilder to circumvent creating a Component with lots of unnecessary children
+    final StringBuilder paddingBuilder = new StringBuilder(content.length() * count);
+    for (int i = 0; i < count; i++) {
       paddingBuilder.append(content);
     }
     final Component fullPadding = Component.text(paddingBuilder.toString(), padding.style());
+    if (event != null) Telemetry.commitCenter(event, FixedWidth.toPixels(componentWidth), FixedWidth.toPixels(goalWidth), FixedWidth.toPixels(count * paddingWidth), false);
     //Siblings to prevent accidental style bleeding
     return Component.text().append(fullPadding).append(component).append(fullPadding).build();
   }
 
+  /**
+   * Center a component with padding of the exact width needed on both sides of the component.
+   *
+   * @param component the component to center
+   * @param componentWidth the width of the component
+   * @param padding the padding synthesizer used to build the padding
+   * @param goalWidth the width of the chat this component is getting shown in
+   * @return a component with padding on both sides
+   * @since 1.2.0
+   */
+  static Component center(final @NotNull Component component, final float componentWidth, final @NotNull PaddingSynthesizer padding, final float goalWidth) {
+    final Object event = Telemetry.beginCenter();
+    final float widthToPad = (goalWidth - componentWidth) / 2;
+    final Component fullPadding = padding.padding(widthToPad);
+    if (event != null) Telemetry.commitCenter(event, componentWidth, goalWidth, padding.paddingWidth(widthToPad), true);
+    //Siblings to prevent accidental style bleeding
+    return Component.text().append(fullPadding).append(component).append(fullPadding).build();
+  }
+
+  /**
+   * Center a component with padding of the exact width needed on both sides of the component.
+   *
+   * @param component the component to center
+   * @param source the pixel width source used to calculate width of the component
+   * @param context the context of the pixel width calculation
+   * @param padding the padding synthesizer used to build the padding
+   * @param chatWidthFunction function to find a chat width given the context
+   * @param <CX> a context type (player, server, locale)
+   * @return a component with padding on both sides
+   * @since 1.2.0
+   */
+  static <CX> Component center(final @NotNull Component component, final @NotNull ContextualPixelWidthSource<CX> source, final @NotNull CX context, final @NotNull PaddingSynthesizer padding, final @NotNull ChatWidthFunction<CX> chatWidthFunction) {
+    return center(component, source.width(component, context), padding, chatWidthFunction.chatWidthOf(context));
+  }
+
+  /**
+   * Center a component with padding of the exact width needed on both sides of the component, for each of many contexts.
+   *
+   * <p>Contexts the source resolves to the same character width function and with the same chat width share one
+   * centered component, so broadcasting to many players only measures and pads once per distinct rendering profile.</p>
+   *
+   * @param component the component to center
+   * @param source the pixel width source used to calculate width of the component
+   * @param contexts the contexts of the pixel width calculations
+   * @param padding the padding synthesizer used to build the padding
+   * @param chatWidthFunction function to find a chat width given the context
+   * @param <CX> a context type (player, server, locale)
+   * @return the component with padding on both sides for each context, in iteration order of the contexts
+   * @since 1.2.0
+   */
+  static <CX> @NotNull Map<CX, Component> centerAll(final @NotNull Component component, final @NotNull ContextualPixelWidthSource<CX> source, final @NotNull Collection<? extends CX> contexts, final @NotNull PaddingSynthesizer padding, final @NotNull ChatWidthFunction<CX> chatWidthFunction) {
+    return CenterBatch.center(contexts, source, chatWidthFunction, (snapshot, context, chatWidth) -> center(component, snapshot.width(component, context), padding, chatWidth));
+  }
+
+  /**
+   * Center a component with padding of the exact width needed on both sides of the component.
+   *
+   * @param component the component to center
+   * @param source the pixel width source used to calculate width of the component
+   * @param padding the padding synthesizer used to build the padding
+   * @param chatWidth the width of the chat this component is getting shown in
+   * @return a component with padding on both sides
+   * @since 1.2.0
+   */
+  static Component center(final @NotNull Component component, final @NotNull PixelWidthSource source, final @NotNull PaddingSynthesizer padding, final float chatWidth) {
+    return center(component, source.width(component), padding, chatWidth);
+  }
+
   /**
    * Center a component with a padding used to add space on both sides of the component.
    *
@@ -98,9 +197,29 @@ public interface CenterAPI {
    * @since 1.1.0
    */
   static <CX> Component center(final @NotNull Component component, final @NotNull ContextualPixelWidthSource<CX> source, final @NotNull CX context, final @NotNull TextComponent padding, final @NotNull ChatWidthFunction<CX> chatWidthFunction) {
-    final float componentWidth = source.width(component, context);
-    final float paddingWidth = source.width(padding, context);
-    return center(component, componentWidth, padding, paddingWidth, chatWidthFunction.chatWidthOf(context));
+    final int componentWidth = source.fixedWidth(component, context);
+    final int paddingWidth = source.fixedWidth(padding, context);
+    return centerFixed(component, componentWidth, padding, paddingWidth, FixedWidth.fromPixels(chatWidthFunction.chatWidthOf(context)));
+  }
+
+  /**
+   * Center a component with a padding used to add space on both sides of the component, for each of many contexts.
+   *
+   * <p>Contexts the source resolves to the same character width function and with the same chat width share one
+   * centered component, so broadcasting to many players only measures and pads once per distinct rendering profile.</p>
+   *
+   * @param component the component to center
+   * @param source the pixel width source used to calculate width of the component and the padding
+   * @param contexts the contexts of the pixel width calculations
+   * @param padding the text to use as padding
+   * @param chatWidthFunction function to find a chat width given the context
+   * @param <CX> a context type (player, server, locale)
+   * @return the component with padding for each context, in iteration order of the contexts
+   * @throws IllegalArgumentException if padding is too wide to fit on both sides of the center component at least once
+   * @since 1.2.0
+   */
+  static <CX> @NotNull Map<CX, Component> centerAll(final @NotNull Component component, final @NotNull ContextualPixelWidthSource<CX> source, final @NotNull Collection<? extends CX> contexts, final @NotNull TextComponent padding, final @NotNull ChatWidthFunction<CX> chatWidthFunction) {
+    return CenterBatch.center(contexts, source, chatWidthFunction, (snapshot, context, chatWidth) -> center(component, snapshot, context, padding, chatWidth));
   }
 
   /**
@@ -146,9 +265,9 @@ public interface CenterAPI {
    * @since 1.0.0
    */
   static Component center(final @NotNull Component component, final @NotNull PixelWidthSource source, final @NotNull TextComponent padding, final float chatWidth) {
-    final float componentWidth = source.width(component);
-    final float paddingWidth = source.width(padding);
-    return center(component, componentWidth, padding, paddingWidth, chatWidth);
+    final int componentWidth = source.fixedWidth(component);
+    final int paddingWidth = source.fixedWidth(padding);
+    return centerFixed(component, componentWidth, padding, paddingWidth, FixedWidth.fromPixels(chatWidth));
   }
 
   /**
@@ -0,0 +1,114 @@
+/*
+ * This file is part of pixel-width, licensed under the MIT License.
+ *
+ * Copyright (c) 2022 KingOfSquares
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package solar.squares.pixelwidth.utils;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import net.kyori.adventure.text.Component;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import solar.squares.pixelwidth.ContextualPixelWidthSource;
+import solar.squares.pixelwidth.function.ChatWidthFunction;
+import solar.squares.pixelwidth.internal.Sources;
+
+/**
+ * Centers a component for many contexts, once for every distinct rendering profile among them.
+ *
+ * <p>Two contexts share a profile when the source resolves them to the same character width function and
+ * their chat widths are equal. Contexts the source can not resolve a function for get a profile of their
+ * own.</p>
+ *
+ * <p>A {@link solar.squares.pixelwidth.ReloadablePixelWidthSource} is pinned to its current profile for the
+ * whole batch, so the function a group is keyed by is also the one its component is measured with.</p>
+ */
+final class CenterBatch {
+  private CenterBatch() {
+  }
+
+  /**
+   * Centers a component for each context.
+   *
+   * @param contexts the contexts to center for
+   * @param source the source the contexts are measured with
+   * @param chatWidthFunction function to find a chat width given the context
+   * @param center centers the component for a context with the source and chat width of its profile
+   * @param <CX> a context type (player, server, locale)
+   * @return the centered component of each context, in iteration order of the contexts
+   */
+  static <CX> @NotNull Map<CX, Component> center(final @NotNull Collection<? extends CX> contexts, final @NotNull ContextualPixelWidthSource<CX> source, final @NotNull ChatWidthFunction<CX> chatWidthFunction, final @NotNull Centerer<CX> center) {
+    final Map<CX, Component> centered = new LinkedHashMap<>();
+    final Map<Profile, Component> profiles = new HashMap<>();
+    final ContextualPixelWidthSource<CX> snapshot = Sources.snapshot(source);
+    for (final CX context : contexts) {
+      final float chatWidth = chatWidthFunction.chatWidthOf(context);
+      final Object function = snapshot.characterWidthFunction(context);
+      final Profile profile = new Profile(function != null ? function : context, chatWidth);
+      Component component = profiles.get(profile);
+      if (component == null) {
+        component = center.center(snapshot, context, chatWidth);
+        profiles.put(profile, component);
+      }
+      centered.put(context, component);
+    }
+    return centered;
+  }
+
+  /**
+   * Centers the component for a context representing a profile.
+   *
+   * @param <CX> a context type (player, server, locale)
+   */
+  @FunctionalInterface
+  interface Centerer<CX> {
+    @NotNull Component center(final @NotNull ContextualPixelWidthSource<CX> source, final @Nullable CX context, final float chatWidth);
+  }
+
+  /**
+   * A character width function, compared by reference, together with a chat width.
+   */
+  private static final class Profile {
+    private final Object function;
+    private final float chatWidth;
+
+    Profile(final @NotNull Object function, final float chatWidth) {
+      this.function = function;
+      this.chatWidth = chatWidth;
+    }
+
+    @Override
+    public boolean equals(final @Nullable Object other) {
+      if (this == other) return true;
+      if (!(other instanceof Profile)) return false;
+      final Profile that = (Profile) other;
+      return this.function == that.function && Float.compare(this.chatWidth, that.chatWidth) == 0;
+    }
+
+    @Override
+    public int hashCode() {
+      return 31 * System.identityHashCode(this.function) + Float.hashCode(this.chatWidth);
+    }
+  }
+}
@@ -0,0 +1,235 @@
+/*
+ * This file is part of pixel-width, licensed under the MIT License.
+ *
+ * Copyright (c) 2022 KingOfSquares
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package solar.squares.pixelwidth.utils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import net.kyori.adventure.text.Component;
+import net.kyori.adventure.text.TextComponent;
+import org.jetbrains.annotations.NotNull;
+import solar.squares.pixelwidth.WidthIndex;
+
+/**
+ * Breaks measured text into lines at spaces, and at any char for words wider than a line.
+ *
+ * <p>Lines are collected as pairs of start and end indices into the text of a {@link WidthIndex},
+ * the spaces a line is broken at are not part of either line.</p>
+ */
+final class LineBreaker {
+  private final WidthIndex index;
+  private final String text;
+  private final float maxWidth;
+  private int[] lines = new int[16];
+  private int lineCount;
+
+  private LineBreaker(final @NotNull WidthIndex index, final float maxWidth) {
+    this.index = index;
+    this.text = index.text();
+    this.maxWidth = maxWidth;
+  }
+
+  static @NotNull List<Component> wrap(final @NotNull WidthIndex index, final float maxWidth, final WrapAPI.@NotNull Mode mode) {
+    if (!(maxWidth > 0)) throw new IllegalArgumentException("maxWidth must be positive, was " + maxWidth);
+    final LineBreaker breaker = new LineBreaker(index, maxWidth);
+    if (mode == WrapAPI.Mode.GREEDY) {
+      breaker.greedy();
+    } else {
+      breaker.balanced();
+    }
+    return breaker.components();
+  }
+
+  private void addLine(final int start, int end) {
+    while (end > start && this.text.charAt(end - 1) == ' ') end--;
+    if (this.lineCount * 2 == this.lines.length) this.lines = Arrays.copyOf(this.lines, this.lines.length * 2);
+    this.lines[this.lineCount * 2] = start;
+    this.lines[this.lineCount * 2 + 1] = end;
+    this.lineCount++;
+  }
+
+  private int skipSpaces(int from) {
+    while (from < this.text.length() && this.text.charAt(from) == ' ') from++;
+    return from;
+  }
+
+  private int next(final int index) {
+    return index + Character.charCount(this.text.codePointAt(index));
+  }
+
+  /**
+   * Fills each line with as many words as fit, in linear time.
+   *
+   * <p>After a break the chars since the last space are measured again as the start of the next
+   * line, but chars are never revisited after that, so every char is looked at at most twice.</p>
+   */
+  private void greedy() {
+    final int length = this.text.length();
+    int lineStart = 0;
+    int lastSpace = -1;
+    for (int i = 0; i < length; i++) {
+      final char c = this.text.charAt(i);
+      if (c == '\n') {
+        this.addLine(lineStart, i);
+        lineStart = i + 1;
+        lastSpace = -1;
+        continue;
+      }
+      if (c == ' ') {
+        lastSpace = i;
+        continue;
+      }
+      final int next = this.next(i);
+      if (this.index.width(lineStart, next) > this.maxWidth) {
+        if (lastSpace > lineStart) {
+          this.addLine(lineStart, lastSpace);
+          lineStart = this.skipSpaces(lastSpace);
+        } else if (i > lineStart) {
+          this.addLine(lineStart, i);
+          lineStart = i;
+        } else {
+          // a single character wider than a line gets a line of its own
+          this.addLine(lineStart, next);
+          lineStart = this.skipSpaces(next);
+        }
+        lastSpace = -1;
+        i = lineStart - 1;
+        continue;
+      }
+      i = next - 1;
+    }
+    if (lineStart < length || this.lineCount == 0 || this.text.charAt(length - 1) == '\n') {
+      this.addLine(lineStart, length);
+    }
+  }
+
+  /**
+   * Breaks each paragraph so that the sum of the squared space left at the end of each line,
+   * except the last, is as small as possible.
+   */
+  private void balanced() {
+    final int length = this.text.length();
+    int paragraphStart = 0;
+    for (int i = 0; i <= length; i++) {
+      if (i == length || this.text.charAt(i) == '\n') {
+        this.balancedParagraph(paragraphStart, i);
+        paragraphStart = i + 1;
+      }
+    }
+  }
+
+  private void balancedParagraph(final int start, final int end) {
+    // words, with words wider than a line split into pieces that fit
+    int[] words = new int[16];
+    int wordCount = 0;
+    int i = start;
+    while (i < end) {
+      int wordEnd = i;
+      if (i == start && this.text.charAt(i) == ' ') {
+        // leading spaces are kept like in greedy mode, as a word of their own
+        wordEnd = Math.min(this.skipSpaces(i), end);
+      } else {
+        while (wordEnd < end && this.text.charAt(wordEnd) != ' ') wordEnd++;
+      }
+      int pieceStart = i;
+      while (pieceStart < wordEnd) {
+        int pieceEnd = Math.min(this.index.fit(pieceStart, this.maxWidth), wordEnd);
+        if (pieceEnd == pieceStart) pieceEnd = this.next(pieceStart);
+        if (wordCount * 2 == words.length) words = Arrays.copyOf(words, words.length * 2);
+        words[wordCount * 2] = pieceStart;
+        words[wordCount * 2 + 1] = pieceEnd;
+        wordCount++;
+        pieceStart = pieceEnd;
+      }
+      i = this.skipSpaces(wordEnd);
+    }
+    if (wordCount == 0) {
+      this.addLine(start, start);
+      return;
+    }
+
+    // cost[j] is the lowest cost of breaking the first j words, first[j] the first word of the last line
+    final double[] cost = new double[wordCount + 1];
+    final int[] first = new int[wordCount + 1];
+    for (int j = 1; j <= wordCount; j++) {
+      cost[j] = Double.POSITIVE_INFINITY;
+      final int lineEnd = words[(j - 1) * 2 + 1];
+      for (int k = j; k >= 1; k--) {
+        final float width = this.index.width(words[(k - 1) * 2], lineEnd);
+        if (width > this.maxWidth && k != j) break;
+        final double slack = this.maxWidth - width;
+        final double lineCost = j == wordCount ? 0 : slack * slack;
+        if (cost[k - 1] + lineCost < cost[j]) {
+          cost[j] = cost[k - 1] + lineCost;
+          first[j] = k;
+        }
+      }
+    }
+
+    final int lineOffset = this.lineCount;
+    for (int j = wordCount; j > 0; j = first[j] - 1) {
+      this.addLine(words[(first[j] - 1) * 2], words[(j - 1) * 2 + 1]);
+    }
+    // lines were added last to first
+    for (int low = lineOffset, high = this.lineCount - 1; low < high; low++, high--) {
+      swap(this.lines, low * 2, high * 2);
+      swap(this.lines, low * 2 + 1, high * 2 + 1);
+    }
+  }
+
+  private static void swap(final int[] array, final int a, final int b) {
+    final int temp = array[a];
+    array[a] = array[b];
+    array[b] = temp;
+  }
+
+  private @NotNull List<Component> components() {
+    final List<Component> components = new ArrayList<>(this.lineCount);
+    for (int line = 0; line < this.lineCount; line++) {
+      components.add(slice(this.index, this.lines[line * 2], this.lines[line * 2 + 1]));
+    }
+    return components;
+  }
+
+  /**
+   * Builds a component of a range of the text of an index, keeping the style runs it overlaps.
+   *
+   * @param index a width index
+   * @param from the start index, inclusive
+   * @param to the end index, exclusive
+   * @return a component
+   */
+  static @NotNull Component slice(final @NotNull WidthIndex index, final int from, final int to) {
+    if (from == to) return Component.empty();
+    final int firstRun = index.runAt(from);
+    final int lastRun = index.runAt(to - 1);
+    final String text = index.text();
+    if (firstRun == lastRun) return Component.text(text.substring(from, to), index.runStyle(firstRun));
+    final TextComponent.Builder builder = Component.text();
+    for (int run = firstRun; run <= lastRun; run++) {
+      builder.append(Component.text(text.substring(Math.max(from, index.runStart(run)), Math.min(to, index.runEnd(run))), index.runStyle(run)));
+    }
+    return builder.build();
+  }
+}
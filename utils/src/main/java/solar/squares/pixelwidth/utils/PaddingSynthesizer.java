@@ -0,0 +1,209 @@
+/*
+ * This file is part of pixel-width, licensed under the MIT License.
+ *
+ * Copyright (c) 2022 KingOfSquares
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package solar.squares.pixelwidth.utils;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import net.kyori.adventure.text.Component;
+import net.kyori.adventure.text.TextComponent;
+import net.kyori.adventure.text.format.Style;
+import net.kyori.adventure.text.format.TextDecoration;
+import org.jetbrains.annotations.NotNull;
+import solar.squares.pixelwidth.PixelWidthSource;
+
+/**
+ * Builds padding of an exact pixel width by combining filler glyphs of different widths.
+ *
+ * <p>Widths are handled in half pixels. For every target width the combination with the fewest
+ * characters is chosen, if the target can't be hit exactly the widest combination below it is used.
+ * Targets are clamped to {@value #MAXIMUM_WIDTH} pixels. The combinations for all targets are found
+ * once, when the synthesizer is created, and the most recently used paddings are remembered, so the
+ * returned components are shared and should be treated as the immutable values they are.</p>
+ *
+ * @since 1.2.0
+ */
+public final class PaddingSynthesizer {
+  /**
+   * The widest padding that is synthesized, wider targets are clamped to it.
+   *
+   * @since 1.2.0
+   */
+  public static final int MAXIMUM_WIDTH = 4096;
+  private static final int UNITS_PER_PIXEL = 2;
+  private static final int MAXIMUM_TARGET = MAXIMUM_WIDTH * UNITS_PER_PIXEL;
+  private static final int MAXIMUM_SOLUTIONS = 256;
+
+  /**
+   * Pads with spaces(4) and bold spaces(5) measured by the static pixel width source, which can hit
+   * every width from 12 pixels on.
+   *
+   * @since 1.2.0
+   */
+  public static final PaddingSynthesizer SPACES = paddingSynthesizer(PixelWidthSource.pixelWidth(), Component.space(), Component.text(" ", Style.style(TextDecoration.BOLD)));
+
+  private final TextComponent[] fillers;
+  private final int[] widths;
+  // last[width] is the last filler of the fewest fillers adding up to width, reached[target] the widest reachable width not above target
+  private final int[] last = new int[MAXIMUM_TARGET + 1];
+  private final int[] reached = new int[MAXIMUM_TARGET + 1];
+  private final Map<Integer, Component> solutions = new LinkedHashMap<Integer, Component>(16, 0.75F, true) {
+    private static final long serialVersionUID = 1L;
+
+    @Override
+    protected boolean removeEldestEntry(final Map.Entry<Integer, Component> eldest) {
+      return this.size() > MAXIMUM_SOLUTIONS;
+    }
+  };
+
+  private PaddingSynthesizer(final @NotNull TextComponent @NotNull [] fillers, final int @NotNull [] widths) {
+    this.fillers = fillers;
+    this.widths = widths;
+    this.solveAll();
+  }
+
+  /**
+   * Creates a padding synthesizer using fillers measured by a pixel width source.
+   *
+   * @param source the pixel width source used to measure the fillers
+   * @param fillers the text components used as padding, each should be a single styled character
+   * @return a padding synthesizer
+   * @throws IllegalArgumentException if no fillers are given or a filler has no width
+   * @since 1.2.0
+   */
+  public static @NotNull PaddingSynthesizer paddingSynthesizer(final @NotNull PixelWidthSource source, final @NotNull TextComponent @NotNull... fillers) {
+    final float[] widths = new float[fillers.length];
+    for (int i = 0; i < fillers.length; i++) {
+      widths[i] = source.width(fillers[i]);
+    }
+    return paddingSynthesizer(fillers, widths);
+  }
+
+  /**
+   * Creates a padding synthesizer using fillers of known widths.
+   *
+   * @param fillers the text components used as padding
+   * @param widths the width of each filler, rounded to half pixels
+   * @return a padding synthesizer
+   * @throws IllegalArgumentException if no fillers are given, the arrays differ in length or a filler has no width
+   * @since 1.2.0
+   */
+  public static @NotNull PaddingSynthesizer paddingSynthesizer(final @NotNull TextComponent @NotNull [] fillers, final float @NotNull [] widths) {
+    if (fillers.length == 0) throw new IllegalArgumentException("At least one filler is required");
+    if (fillers.length != widths.length) throw new IllegalArgumentException("Got " + fillers.length + " fillers but " + widths.length + " widths");
+    final int[] units = new int[widths.length];
+    for (int i = 0; i < widths.length; i++) {
+      Objects.requireNonNull(fillers[i], "filler");
+      units[i] = Math.round(widths[i] * UNITS_PER_PIXEL);
+      if (units[i] <= 0) throw new IllegalArgumentException("Filler \"" + fillers[i].content() + "\" must have a positive width, was " + widths[i]);
+    }
+    return new PaddingSynthesizer(fillers.clone(), units);
+  }
+
+  /**
+   * Gets padding as close to {@code width} as possible without being wider.
+   *
+   * @param width the target width, clamped to {@value #MAXIMUM_WIDTH}
+   * @return a component of fillers, empty if no filler is narrow enough or the width is not a number
+   * @since 1.2.0
+   */
+  public @NotNull Component padding(final float width) {
+    final int target = target(width);
+    if (target <= 0) return Component.empty();
+    synchronized (this.solutions) {
+      final Component cached = this.solutions.get(target);
+      if (cached != null) return cached;
+    }
+    final Component solution = this.build(target);
+    synchronized (this.solutions) {
+      this.solutions.put(target, solution);
+    }
+    return solution;
+  }
+
+  /**
+   * Gets the width of the padding returned for a target width.
+   *
+   * @param width the target width, clamped to {@value #MAXIMUM_WIDTH}
+   * @return the width of the padding
+   * @since 1.2.0
+   */
+  public float paddingWidth(final float width) {
+    final int target = target(width);
+    if (target <= 0) return 0;
+    return (float) this.reached[target] / UNITS_PER_PIXEL;
+  }
+
+  private static int target(final float width) {
+    // NaN compares false and becomes 0, infinities and huge widths are clamped
+    if (!(width > 0)) return 0;
+    return (int) Math.min(Math.floor(width * UNITS_PER_PIXEL), MAXIMUM_TARGET);
+  }
+
+  /**
+   * Finds the fewest fillers adding up to each width up to the maximum target.
+   */
+  private void solveAll() {
+    final int[] counts = new int[MAXIMUM_TARGET + 1];
+    for (int width = 1; width <= MAXIMUM_TARGET; width++) {
+      counts[width] = -1;
+      for (int i = 0; i < this.widths.length; i++) {
+        final int rest = width - this.widths[i];
+        if (rest >= 0 && counts[rest] >= 0 && (counts[width] < 0 || counts[rest] + 1 < counts[width])) {
+          counts[width] = counts[rest] + 1;
+          this.last[width] = i;
+        }
+      }
+      this.reached[width] = counts[width] < 0 ? this.reached[width - 1] : width;
+    }
+  }
+
+  private @NotNull Component build(final int target) {
+    int width = this.reached[target];
+    final int[] used = new int[this.fillers.length];
+    while (width > 0) {
+      used[this.last[width]]++;
+      width -= this.widths[this.last[width]];
+    }
+    final List<Component> parts = new ArrayList<>();
+    for (int i = 0; i < used.length; i++) {
+      if (used[i] == 0) continue;
+      final String content = this.fillers[i].content();
+      final StringBuilder builder = new StringBuilder(content.length() * used[i]);
+      for (int n = 0; n < used[i]; n++) {
+        builder.append(content);
+      }
+      parts.add(Component.text(builder.toString(), this.fillers[i].style()));
+    }
+    if (parts.isEmpty()) return Component.empty();
+    if (parts.size() == 1) return parts.get(0);
+    final TextComponent.Builder builder = Component.text();
+    for (final Component part : parts) {
+      builder.append(part);
+    }
+    return builder.build();
+  }
+}
@@ -0,0 +1,168 @@
+/*
+ * This file is part of pixel-width, licensed under the MIT License.
+ *
+ * Copyright (c) 2022 KingOfSquares
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package solar.squares.pixelwidth.utils;
+
+import net.kyori.adventure.text.Component;
+import net.kyori.adventure.text.TextComponent;
+import org.jetbrains.annotations.NotNull;
+import solar.squares.pixelwidth.ContextualPixelWidthSource;
+import solar.squares.pixelwidth.PixelWidthSource;
+import solar.squares.pixelwidth.internal.Sources;
+
+/**
+ * API for fitting components into a pixel width, cutting off what doesn't fit.
+ *
+ * <p>Measuring stops as soon as the width is exceeded, so long components that clearly don't fit
+ * are cheap to check. Truncated components are rebuilt from their flattened text, every part keeps
+ * its fully merged style.</p>
+ *
+ * @since 1.2.0
+ */
+public interface TruncateAPI {
+
+  /**
+   * The ellipsis appended to truncated components when none is given.
+   *
+   * @since 1.2.0
+   */
+  TextComponent DEFAULT_ELLIPSIS = Component.text("...");
+
+  /**
+   * Checks if a component is at most {@code maxWidth} wide.
+   *
+   * @param component the component to check
+   * @param source the pixel width source used to calculate width of the component
+   * @param maxWidth the maximum width
+   * @return if the component fits within the width
+   * @since 1.2.0
+   */
+  static boolean fitsWithin(final @NotNull Component component, final @NotNull PixelWidthSource source, final float maxWidth) {
+    final PixelWidthSource snapshot = Sources.snapshot(source);
+    return Truncator.fitsWithin(component, snapshot.flattener(), Sources.function(snapshot), maxWidth);
+  }
+
+  /**
+   * Checks if a component is at most {@code maxWidth} wide, given a context.
+   *
+   * @param component the component to check
+   * @param source the pixel width source used to calculate width of the component
+   * @param context the context of the pixel width calculation
+   * @param maxWidth the maximum width
+   * @param <CX> a context type (player, server, locale)
+   * @return if the component fits within the width
+   * @since 1.2.0
+   */
+  static <CX> boolean fitsWithin(final @NotNull Component component, final @NotNull ContextualPixelWidthSource<CX> source, final @NotNull CX context, final float maxWidth) {
+    final ContextualPixelWidthSource<CX> snapshot = Sources.snapshot(source);
+    return Truncator.fitsWithin(component, snapshot.flattener(), Sources.function(snapshot, context), maxWidth);
+  }
+
+  /**
+   * Checks if a component is at most {@code maxWidth} wide. Uses the static pixel width source.
+   *
+   * @param component the component to check
+   * @param maxWidth the maximum width
+   * @return if the component fits within the width
+   * @since 1.2.0
+   */
+  static boolean fitsWithin(final @NotNull Component component, final float maxWidth) {
+    return fitsWithin(component, PixelWidthSource.pixelWidth(), maxWidth);
+  }
+
+  /**
+   * Truncate a component to at most {@code maxWidth}, appending an ellipsis if anything was cut off.
+   *
+   * <p>A component that already fits is returned as is. If the ellipsis itself is wider than
+   * {@code maxWidth} the component is cut off without it.</p>
+   *
+   * @param component the component to truncate
+   * @param source the pixel width source used to calculate width of the component and the ellipsis
+   * @param maxWidth the maximum width of the result
+   * @param ellipsis the component to append when the component is truncated
+   * @return a component at most {@code maxWidth} wide
+   * @since 1.2.0
+   */
+  static @NotNull Component truncate(final @NotNull Component component, final @NotNull PixelWidthSource source, final float maxWidth, final @NotNull Component ellipsis) {
+    final PixelWidthSource snapshot = Sources.snapshot(source);
+    return Truncator.truncate(component, snapshot.flattener(), Sources.function(snapshot), maxWidth, ellipsis, snapshot.fixedWidth(ellipsis));
+  }
+
+  /**
+   * Truncate a component to at most {@code maxWidth}, appending {@link #DEFAULT_ELLIPSIS} if anything was cut off.
+   *
+   * @param component the component to truncate
+   * @param source the pixel width source used to calculate width of the component and the ellipsis
+   * @param maxWidth the maximum width of the result
+   * @return a component at most {@code maxWidth} wide
+   * @since 1.2.0
+   */
+  static @NotNull Component truncate(final @NotNull Component component, final @NotNull PixelWidthSource source, final float maxWidth) {
+    return truncate(component, source, maxWidth, DEFAULT_ELLIPSIS);
+  }
+
+  /**
+   * Truncate a component to at most {@code maxWidth}, appending {@link #DEFAULT_ELLIPSIS} if anything was cut off.
+   * Uses the static pixel width source.
+   *
+   * @param component the component to truncate
+   * @param maxWidth the maximum width of the result
+   * @return a component at most {@code maxWidth} wide
+   * @since 1.2.0
+   */
+  static @NotNull Component truncate(final @NotNull Component component, final float maxWidth) {
+    return truncate(component, PixelWidthSource.pixelWidth(), maxWidth);
+  }
+
+  /**
+   * Truncate a component to at most {@code maxWidth} given a context, appending an ellipsis if anything was cut off.
+   *
+   * @param component the component to truncate
+   * @param source the pixel width source used to calculate width of the component and the ellipsis
+   * @param context the context of the pixel width calculation
+   * @param maxWidth the maximum width of the result
+   * @param ellipsis the component to append when the component is truncated
+   * @param <CX> a context type (player, server, locale)
+   * @return a component at most {@code maxWidth} wide
+   * @since 1.2.0
+   */
+  static <CX> @NotNull Component truncate(final @NotNull Component component, final @NotNull ContextualPixelWidthSource<CX> source, final @NotNull CX context, final float maxWidth, final @NotNull Component ellipsis) {
+    final ContextualPixelWidthSource<CX> snapshot = Sources.snapshot(source);
+    return Truncator.truncate(component, snapshot.flattener(), Sources.function(snapshot, context), maxWidth, ellipsis, snapshot.fixedWidth(ellipsis, context));
+  }
+
+  /**
+   * Truncate a component to at most {@code maxWidth} given a context, appending {@link #DEFAULT_ELLIPSIS} if anything was cut off.
+   *
+   * @param component the component to truncate
+   * @param source the pixel width source used to calculate width of the component and the ellipsis
+   * @param context the context of the pixel width calculation
+   * @param maxWidth the maximum width of the result
+   * @param <CX> a context type (player, server, locale)
+   * @return a component at most {@code maxWidth} wide
+   * @since 1.2.0
+   */
+  static <CX> @NotNull Component truncate(final @NotNull Component component, final @NotNull ContextualPixelWidthSource<CX> source, final @NotNull CX context, final float maxWidth) {
+    return truncate(component, source, context, maxWidth, DEFAULT_ELLIPSIS);
+  }
+}
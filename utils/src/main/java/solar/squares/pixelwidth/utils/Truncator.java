@@ -0,0 +1,173 @@
+/*
+ * This file is part of pixel-width, licensed under the MIT License.
+ *
+ * Copyright (c) 2022 KingOfSquares
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package solar.squares.pixelwidth.utils;
+
+import java.util.ArrayList;
+import java.util.List;
+import net.kyori.adventure.text.Component;
+import net.kyori.adventure.text.TextComponent;
+import net.kyori.adventure.text.flattener.ComponentFlattener;
+import net.kyori.adventure.text.flattener.FlattenerListener;
+import net.kyori.adventure.text.format.Style;
+import org.jetbrains.annotations.NotNull;
+import solar.squares.pixelwidth.FixedWidth;
+import solar.squares.pixelwidth.function.CharacterWidthFunction;
+
+/**
+ * Measures flattened text until it no longer fits, keeping the styled text that fits within a budget.
+ *
+ * <p>The flattener can not be stopped, but once the maximum width has been exceeded the remaining
+ * text is skipped without being measured.</p>
+ */
+final class Truncator implements FlattenerListener {
+  private final CharacterWidthFunction function;
+  private final int budget;
+  private final int maxWidth;
+  private final boolean collect;
+  private final List<Style> styles = new ArrayList<>();
+  private final List<Component> kept = new ArrayList<>();
+  private final StringBuilder pending = new StringBuilder();
+  private Style pendingStyle = Style.empty();
+  private int width;
+  private boolean cut;
+  private boolean overflow;
+
+  /**
+   * Creates a truncator.
+   *
+   * @param function the function used to measure characters
+   * @param budget the fixed-point width the kept text has to fit within
+   * @param maxWidth the fixed-point width the whole text has to fit within to not need truncating
+   * @param collect whether to keep the text that fits within the budget
+   */
+  Truncator(final @NotNull CharacterWidthFunction function, final int budget, final int maxWidth, final boolean collect) {
+    this.function = function;
+    this.budget = budget;
+    this.maxWidth = maxWidth;
+    this.collect = collect;
+    this.styles.add(Style.empty());
+  }
+
+  /**
+   * Truncates a component, or returns it as is if it fits.
+   *
+   * @param component the component to truncate
+   * @param flattener the flattener used to turn the component into linear text
+   * @param function the function used to measure characters
+   * @param maxWidth the maximum width of the result
+   * @param ellipsis the component appended when the component is truncated
+   * @param ellipsisWidth the fixed-point width of the ellipsis
+   * @return a component at most {@code maxWidth} wide
+   */
+  static @NotNull Component truncate(final @NotNull Component component, final @NotNull ComponentFlattener flattener, final @NotNull CharacterWidthFunction function, final float maxWidth, final @NotNull Component ellipsis, final int ellipsisWidth) {
+    final int max = FixedWidth.fromPixelsFloor(maxWidth);
+    final boolean ellipsisFits = ellipsisWidth <= max;
+    final Truncator truncator = new Truncator(function, ellipsisFits ? max - ellipsisWidth : max, max, true);
+    flattener.flatten(component, truncator);
+    if (!truncator.overflow) return component;
+    return truncator.build(ellipsisFits ? ellipsis : Component.empty());
+  }
+
+  /**
+   * Checks if a component fits within a width, measuring no further than needed.
+   *
+   * @param component the component to measure
+   * @param flattener the flattener used to turn the component into linear text
+   * @param function the function used to measure characters
+   * @param maxWidth the maximum width
+   * @return if the component is at most {@code maxWidth} wide
+   */
+  static boolean fitsWithin(final @NotNull Component component, final @NotNull ComponentFlattener flattener, final @NotNull CharacterWidthFunction function, final float maxWidth) {
+    final int max = FixedWidth.fromPixelsFloor(maxWidth);
+    final Truncator truncator = new Truncator(function, max, max, false);
+    flattener.flatten(component, truncator);
+    return !truncator.overflow;
+  }
+
+  @Override
+  public void pushStyle(final @NotNull Style style) {
+    if (this.overflow) return;
+    this.styles.add(this.styles.get(this.styles.size() - 1).merge(style));
+  }
+
+  @Override
+  public void component(final @NotNull String text) {
+    if (this.overflow) return;
+    final Style style = this.styles.get(this.styles.size() - 1);
+    final CharacterWidthFunction function = this.function.font(style.font());
+    final int length = text.length();
+    for (int i = 0; i < length; i++) {
+      final int codepoint = text.codePointAt(i);
+      final int width = function.fixedWidthOf(codepoint, style);
+      if (!this.cut && this.width + width > this.budget) {
+        this.cut = true;
+        this.keep(text.substring(0, i), style);
+      }
+      this.width += width;
+      if (this.width > this.maxWidth) {
+        this.overflow = true;
+        return;
+      }
+      if (Character.isSupplementaryCodePoint(codepoint)) i++;
+    }
+    if (!this.cut) this.keep(text, style);
+  }
+
+  @Override
+  public void popStyle(final @NotNull Style style) {
+    if (this.overflow) return;
+    this.styles.remove(this.styles.size() - 1);
+  }
+
+  private void keep(final @NotNull String text, final @NotNull Style style) {
+    if (!this.collect || text.isEmpty()) return;
+    if (!style.equals(this.pendingStyle)) {
+      this.flush();
+      this.pendingStyle = style;
+    }
+    this.pending.append(text);
+  }
+
+  private void flush() {
+    if (this.pending.length() > 0) {
+      this.kept.add(Component.text(this.pending.toString(), this.pendingStyle));
+      this.pending.setLength(0);
+    }
+  }
+
+  /**
+   * Builds a component of the kept text followed by a suffix.
+   *
+   * @param suffix the component appended after the kept text
+   * @return a component
+   */
+  private @NotNull Component build(final @NotNull Component suffix) {
+    this.flush();
+    final TextComponent.Builder builder = Component.text();
+    for (final Component component : this.kept) {
+      builder.append(component);
+    }
+    return builder.append(suffix).build();
+  }
+}
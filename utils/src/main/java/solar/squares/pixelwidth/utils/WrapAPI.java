@@ -0,0 +1,154 @@
+/*
+ * This file is part of pixel-width, licensed under the MIT License.
+ *
+ * Copyright (c) 2022 KingOfSquares
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package solar.squares.pixelwidth.utils;
+
+import java.util.List;
+import net.kyori.adventure.text.Component;
+import org.jetbrains.annotations.NotNull;
+import solar.squares.pixelwidth.ContextualPixelWidthSource;
+import solar.squares.pixelwidth.PixelWidthSource;
+import solar.squares.pixelwidth.WidthIndex;
+
+/**
+ * API for wrapping components into lines of a maximum pixel width.
+ *
+ * <p>The component is flattened and measured once, lines are broken at spaces and newlines, words
+ * wider than a line are broken between characters. Each line keeps the fully merged styles of the
+ * text it holds, also when a line starts or ends in the middle of a styled part.</p>
+ *
+ * @since 1.2.0
+ */
+public interface WrapAPI {
+
+  /**
+   * Wrap a component into lines at most {@code maxWidth} wide.
+   *
+   * @param component the component to wrap
+   * @param source the pixel width source used to calculate width of the component
+   * @param maxWidth the maximum width of a line
+   * @param mode how to choose where lines are broken
+   * @return the lines
+   * @throws IllegalArgumentException if the maximum width is not positive
+   * @since 1.2.0
+   */
+  static @NotNull List<Component> wrap(final @NotNull Component component, final @NotNull PixelWidthSource source, final float maxWidth, final @NotNull Mode mode) {
+    return wrap(WidthIndex.widthIndex(source, component), maxWidth, mode);
+  }
+
+  /**
+   * Wrap a component into lines at most {@code maxWidth} wide, filling each line as much as possible.
+   *
+   * @param component the component to wrap
+   * @param source the pixel width source used to calculate width of the component
+   * @param maxWidth the maximum width of a line
+   * @return the lines
+   * @throws IllegalArgumentException if the maximum width is not positive
+   * @since 1.2.0
+   */
+  static @NotNull List<Component> wrap(final @NotNull Component component, final @NotNull PixelWidthSource source, final float maxWidth) {
+    return wrap(component, source, maxWidth, Mode.GREEDY);
+  }
+
+  /**
+   * Wrap a component into lines at most {@code maxWidth} wide, filling each line as much as possible.
+   * Uses the static pixel width source.
+   *
+   * @param component the component to wrap
+   * @param maxWidth the maximum width of a line
+   * @return the lines
+   * @throws IllegalArgumentException if the maximum width is not positive
+   * @since 1.2.0
+   */
+  static @NotNull List<Component> wrap(final @NotNull Component component, final float maxWidth) {
+    return wrap(component, PixelWidthSource.pixelWidth(), maxWidth);
+  }
+
+  /**
+   * Wrap a component into lines at most {@code maxWidth} wide, given a context.
+   *
+   * @param component the component to wrap
+   * @param source the pixel width source used to calculate width of the component
+   * @param context the context of the pixel width calculation
+   * @param maxWidth the maximum width of a line
+   * @param mode how to choose where lines are broken
+   * @param <CX> a context type (player, server, locale)
+   * @return the lines
+   * @throws IllegalArgumentException if the maximum width is not positive
+   * @since 1.2.0
+   */
+  static <CX> @NotNull List<Component> wrap(final @NotNull Component component, final @NotNull ContextualPixelWidthSource<CX> source, final @NotNull CX context, final float maxWidth, final @NotNull Mode mode) {
+    return wrap(WidthIndex.widthIndex(source, component, context), maxWidth, mode);
+  }
+
+  /**
+   * Wrap a component into lines at most {@code maxWidth} wide given a context, filling each line as much as possible.
+   *
+   * @param component the component to wrap
+   * @param source the pixel width source used to calculate width of the component
+   * @param context the context of the pixel width calculation
+   * @param maxWidth the maximum width of a line
+   * @param <CX> a context type (player, server, locale)
+   * @return the lines
+   * @throws IllegalArgumentException if the maximum width is not positive
+   * @since 1.2.0
+   */
+  static <CX> @NotNull List<Component> wrap(final @NotNull Component component, final @NotNull ContextualPixelWidthSource<CX> source, final @NotNull CX context, final float maxWidth) {
+    return wrap(component, source, context, maxWidth, Mode.GREEDY);
+  }
+
+  /**
+   * Wrap already measured text into lines at most {@code maxWidth} wide.
+   *
+   * @param index the measured text
+   * @param maxWidth the maximum width of a line
+   * @param mode how to choose where lines are broken
+   * @return the lines
+   * @throws IllegalArgumentException if the maximum width is not positive
+   * @since 1.2.0
+   */
+  static @NotNull List<Component> wrap(final @NotNull WidthIndex index, final float maxWidth, final @NotNull Mode mode) {
+    return LineBreaker.wrap(index, maxWidth, mode);
+  }
+
+  /**
+   * How lines are broken.
+   *
+   * @since 1.2.0
+   */
+  enum Mode {
+    /**
+     * Puts as many words as fit on each line before starting the next one. Runs in linear time.
+     *
+     * @since 1.2.0
+     */
+    GREEDY,
+    /**
+     * Chooses breaks so that lines are as evenly filled as possible, by minimizing the sum of the
+     * squared space left on each line except the last. Takes longer the more words fit on a line.
+     *
+     * @since 1.2.0
+     */
+    BALANCED
+  }
+}
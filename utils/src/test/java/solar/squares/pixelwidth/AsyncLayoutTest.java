@@ -0,0 +1,134 @@
+/*
+ * This file is part of pixel-width, licensed under the MIT License.
+ *
+ * Copyright (c) 2022 KingOfSquares
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package solar.squares.pixelwidth;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import net.kyori.adventure.text.Component;
+import org.junit.jupiter.api.Test;
+import solar.squares.pixelwidth.utils.AsyncLayout;
+import solar.squares.pixelwidth.utils.CenterAPI;
+import solar.squares.pixelwidth.utils.TruncateAPI;
+import solar.squares.pixelwidth.utils.WrapAPI;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class AsyncLayoutTest {
+
+  private static List<Component> lines(final int count) {
+    final List<Component> lines = new ArrayList<>();
+    for (int i = 0; i < count; i++) lines.add(Component.text("line number " + i));
+    return lines;
+  }
+
+  @Test
+  public void testResultsInInputOrder() {
+    final ExecutorService executor = Executors.newFixedThreadPool(4);
+    try {
+      final AtomicInteger tasks = new AtomicInteger();
+      final AsyncLayout layout = AsyncLayout.builder(PixelWidthSource.pixelWidth())
+        .executor(task -> {
+          tasks.incrementAndGet();
+          executor.execute(task);
+        })
+        .chunkSize(7)
+        .build();
+      final List<Component> lines = lines(100);
+      final List<Float> widths = layout.width(lines).join();
+      assertEquals(15, tasks.get());
+      assertEquals(lines.size(), widths.size());
+      for (int i = 0; i < lines.size(); i++) {
+        assertEquals(PixelWidthSource.pixelWidth().width(lines.get(i)), (float) widths.get(i));
+      }
+      final List<Component> centered = layout.center(lines, Component.space(), CenterAPI.DEFAULT_CHAT_WIDTH).join();
+      for (int i = 0; i < lines.size(); i++) {
+        assertEquals(CenterAPI.center(lines.get(i), PixelWidthSource.pixelWidth(), Component.space(), CenterAPI.DEFAULT_CHAT_WIDTH), centered.get(i));
+      }
+      final List<List<Component>> wrapped = layout.wrap(lines, 40, WrapAPI.Mode.GREEDY).join();
+      for (int i = 0; i < lines.size(); i++) {
+        assertEquals(WrapAPI.wrap(lines.get(i), PixelWidthSource.pixelWidth(), 40, WrapAPI.Mode.GREEDY), wrapped.get(i));
+      }
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  @Test
+  public void testEmptyBatch() {
+    assertTrue(AsyncLayout.asyncLayout(PixelWidthSource.pixelWidth()).width(Collections.emptyList()).join().isEmpty());
+  }
+
+  @Test
+  public void testFailedJob() {
+    final AsyncLayout layout = AsyncLayout.builder(PixelWidthSource.pixelWidth()).chunkSize(2).build();
+    final CompletionException exception = assertThrows(CompletionException.class, () -> layout.map(lines(10), line -> {
+      if (line.equals(Component.text("line number 5"))) throw new IllegalStateException("broken");
+      return line;
+    }).join());
+    assertEquals("broken", exception.getCause().getMessage());
+  }
+
+  @Test
+  public void testFailedJobStopsOtherChunks() {
+    final ExecutorService executor = Executors.newSingleThreadExecutor();
+    try {
+      final AsyncLayout layout = AsyncLayout.builder(PixelWidthSource.pixelWidth()).executor(executor).chunkSize(1).build();
+      final AtomicInteger jobs = new AtomicInteger();
+      assertThrows(CompletionException.class, () -> layout.map(lines(10), line -> {
+        jobs.incrementAndGet();
+        throw new IllegalStateException("broken");
+      }).join());
+      // the chunks queued behind the failed one see the completed future and skip their jobs
+      executor.submit(() -> { }).get();
+      assertEquals(1, jobs.get());
+    } catch (final InterruptedException | ExecutionException e) {
+      throw new AssertionError(e);
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  @Test
+  public void testContextualSource() {
+    final ContextualPixelWidthSource<Boolean> source = ContextualPixelWidthSource.contextualPixelWidth(wide -> wide ? (codepoint, style) -> 10 : TableCharacterWidthFunction.DEFAULT);
+    final AsyncLayout layout = AsyncLayout.asyncLayout(source, true);
+    final List<Component> lines = lines(10);
+    final List<Float> widths = layout.width(lines).join();
+    final List<Component> truncated = layout.truncate(lines, 50, Component.text(".")).join();
+    final List<Component> centered = layout.center(lines, Component.space(), CenterAPI.DEFAULT_CHAT_WIDTH).join();
+    for (int i = 0; i < lines.size(); i++) {
+      assertEquals(source.width(lines.get(i), true), (float) widths.get(i));
+      assertEquals(TruncateAPI.truncate(lines.get(i), source, true, 50, Component.text(".")), truncated.get(i));
+      assertEquals(CenterAPI.center(lines.get(i), source, true, Component.space(), CenterAPI.DEFAULT_CHAT_WIDTH), centered.get(i));
+    }
+  }
+}
@@ -23,16 +23,28 @@
  */
 package solar.squares.pixelwidth;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+import net.kyori.adventure.key.Key;
 import net.kyori.adventure.text.Component;
 import net.kyori.adventure.text.TextComponent;
 import net.kyori.adventure.text.format.Style;
 import net.kyori.adventure.text.format.TextDecoration;
 import net.kyori.adventure.text.serializer.plain.PlainTextComponentSerializer;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 import org.junit.jupiter.api.Test;
 import org.opentest4j.AssertionFailedError;
+import solar.squares.pixelwidth.function.CharacterWidthFunction;
 import solar.squares.pixelwidth.utils.CenterAPI;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 
 public class CenterTest {
 
@@ -118,4 +130,60 @@ public class CenterTest {
     final Component component = CenterAPI.center(Component.text(s));
     this.testCommonCenterProperties(s, component, CenterAPI.DEFAULT_CHAT_WIDTH, Style.empty(), PixelWidthSource.pixelWidth());
   }
+
+  @Test
+  public void testCenterFixed() {
+    final int unit = FixedWidth.UNITS_PER_PIXEL;
+    // 21 pixels to pad on each side, so five paddings of four pixels fit and a sixth would fill it
+    final Component component = CenterAPI.centerFixed(Component.text("WOW"), 58 * unit, Component.space(), 4 * unit, 100 * unit);
+    assertEquals("     WOW     ", PlainTextComponentSerializer.plainText().serialize(component));
+    final Component exact = CenterAPI.centerFixed(Component.text("WOW"), 60 * unit, Component.space(), 4 * unit, 100 * unit);
+    assertEquals("    WOW    ", PlainTextComponentSerializer.plainText().serialize(exact));
+    assertThrows(IllegalArgumentException.class, () -> CenterAPI.centerFixed(Component.text("WOW"), 58 * unit, Component.text(""), 0, 100 * unit));
+    assertThrows(IllegalArgumentException.class, () -> CenterAPI.centerFixed(Component.text("WOW"), 98 * unit, Component.space(), 4 * unit, 100 * unit));
+  }
+
+  @Test
+  public void testCenterAll() {
+    final float[] widths = new float[128];
+    Arrays.fill(widths, 8);
+    final TableCharacterWidthFunction wide = TableCharacterWidthFunction.table(widths, 1);
+    final ContextualPixelWidthSource<String> source = ContextualPixelWidthSource.contextualPixelWidth(cx -> cx.startsWith("wide") ? wide : TableCharacterWidthFunction.DEFAULT);
+    final List<String> contexts = Arrays.asList("a", "b", "small", "wide", "wide2");
+    final Map<String, Component> centered = CenterAPI.centerAll(Component.text("WOW"), source, contexts, Component.space(), cx -> cx.equals("small") ? 100 : CenterAPI.DEFAULT_CHAT_WIDTH);
+    assertEquals(contexts, new ArrayList<>(centered.keySet()));
+    for (final String context : contexts) {
+      assertEquals(CenterAPI.center(Component.text("WOW"), source, context, Component.space(), context.equals("small") ? 100 : CenterAPI.DEFAULT_CHAT_WIDTH), centered.get(context));
+    }
+    assertSame(centered.get("a"), centered.get("b"));
+    assertSame(centered.get("wide"), centered.get("wide2"));
+    assertNotSame(centered.get("a"), centered.get("small"));
+    assertNotSame(centered.get("a"), centered.get("wide"));
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  public void testCenterAllPinsProfile() {
+    final AtomicReference<ReloadablePixelWidthSource> reloadable = new AtomicReference<>();
+    // swaps to a much wider profile as soon as the first component is measured
+    final CharacterWidthFunction swapping = new CharacterWidthFunction() {
+      @Override
+      public float widthOf(final int codepoint, final Style style) {
+        return TableCharacterWidthFunction.DEFAULT.widthOf(codepoint, style);
+      }
+
+      @Override
+      public @NotNull CharacterWidthFunction font(final @Nullable Key font) {
+        reloadable.get().swap(WidthProfile.widthProfile("wide", (codepoint, style) -> 10));
+        return this;
+      }
+    };
+    reloadable.set(ReloadablePixelWidthSource.reloadable(WidthProfile.widthProfile("default", swapping)));
+    final ContextualPixelWidthSource<Object> source = (ContextualPixelWidthSource<Object>) reloadable.get();
+    final List<Object> contexts = Arrays.asList("a", "b");
+    final Map<Object, Component> centered = CenterAPI.centerAll(Component.text("WOW"), source, contexts, Component.space(), cx -> CenterAPI.DEFAULT_CHAT_WIDTH);
+    final ContextualPixelWidthSource<Object> pinned = ContextualPixelWidthSource.contextualPixelWidth(cx -> TableCharacterWidthFunction.DEFAULT);
+    assertEquals(CenterAPI.center(Component.text("WOW"), pinned, "a", Component.space(), CenterAPI.DEFAULT_CHAT_WIDTH), centered.get("a"));
+    assertSame(centered.get("a"), centered.get("b"));
+  }
 }
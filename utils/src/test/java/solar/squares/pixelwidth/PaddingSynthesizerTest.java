@@ -0,0 +1,89 @@
+/*
+ * This file is part of pixel-width, licensed under the MIT License.
+ *
+ * Copyright (c) 2022 KingOfSquares
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package solar.squares.pixelwidth;
+
+import net.kyori.adventure.text.Component;
+import net.kyori.adventure.text.TextComponent;
+import net.kyori.adventure.text.format.Style;
+import net.kyori.adventure.text.format.TextDecoration;
+import net.kyori.adventure.text.serializer.plain.PlainTextComponentSerializer;
+import org.junit.jupiter.api.Test;
+import solar.squares.pixelwidth.utils.CenterAPI;
+import solar.squares.pixelwidth.utils.PaddingSynthesizer;
+
+import static net.kyori.adventure.text.Component.text;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+public class PaddingSynthesizerTest {
+  private final PixelWidthSource source = PixelWidthSource.pixelWidth();
+
+  @Test
+  public void testExactWidths() {
+    for (int width = 12; width < 200; width++) {
+      final Component padding = PaddingSynthesizer.SPACES.padding(width);
+      assertEquals((float) width, this.source.width(padding));
+      assertEquals((float) width, PaddingSynthesizer.SPACES.paddingWidth(width));
+    }
+  }
+
+  @Test
+  public void testFewestCharacters() {
+    // 20 = 5 spaces or 4 bold spaces
+    final Component padding = PaddingSynthesizer.SPACES.padding(20);
+    assertEquals("    ", PlainTextComponentSerializer.plainText().serialize(padding));
+  }
+
+  @Test
+  public void testUnreachableWidth() {
+    assertEquals(5, this.source.width(PaddingSynthesizer.SPACES.padding(7)));
+    assertEquals(0, this.source.width(PaddingSynthesizer.SPACES.padding(3)));
+  }
+
+  @Test
+  public void testClampedWidths() {
+    assertEquals(0, PaddingSynthesizer.SPACES.paddingWidth(Float.NaN));
+    assertEquals(Component.empty(), PaddingSynthesizer.SPACES.padding(Float.NaN));
+    assertEquals(PaddingSynthesizer.MAXIMUM_WIDTH, PaddingSynthesizer.SPACES.paddingWidth(1e9F));
+    assertEquals(PaddingSynthesizer.MAXIMUM_WIDTH, this.source.width(PaddingSynthesizer.SPACES.padding(Float.POSITIVE_INFINITY)));
+  }
+
+  @Test
+  public void testMemoised() {
+    final PaddingSynthesizer synthesizer = PaddingSynthesizer.paddingSynthesizer(new TextComponent[] {text("."), text(" ")}, new float[] {2, 4});
+    assertSame(synthesizer.padding(31), synthesizer.padding(31));
+    assertEquals(30, this.source.width(synthesizer.padding(31)));
+  }
+
+  @Test
+  public void testCenterExact() {
+    final Component content = text("WOW");
+    final Component centered = CenterAPI.center(content, this.source, PaddingSynthesizer.SPACES, CenterAPI.DEFAULT_CHAT_WIDTH);
+    // (320 - 18) / 2 on each side
+    assertEquals(CenterAPI.DEFAULT_CHAT_WIDTH, this.source.width(centered));
+    // (320 - 21) / 2 can't be split into whole pixels
+    final Component bold = CenterAPI.center(text("WOW", Style.style(TextDecoration.BOLD)), this.source, PaddingSynthesizer.SPACES, CenterAPI.DEFAULT_CHAT_WIDTH);
+    assertEquals(CenterAPI.DEFAULT_CHAT_WIDTH - 1, this.source.width(bold));
+  }
+}
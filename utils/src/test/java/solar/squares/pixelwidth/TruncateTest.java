@@ -0,0 +1,83 @@
+/*
+ * This file is part of pixel-width, licensed under the MIT License.
+ *
+ * Copyright (c) 2022 KingOfSquares
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package solar.squares.pixelwidth;
+
+import net.kyori.adventure.text.Component;
+import net.kyori.adventure.text.format.NamedTextColor;
+import net.kyori.adventure.text.format.Style;
+import net.kyori.adventure.text.format.TextDecoration;
+import net.kyori.adventure.text.serializer.plain.PlainTextComponentSerializer;
+import org.junit.jupiter.api.Test;
+import solar.squares.pixelwidth.utils.TruncateAPI;
+
+import static net.kyori.adventure.text.Component.text;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TruncateTest {
+  private final PixelWidthSource source = PixelWidthSource.pixelWidth();
+
+  @Test
+  public void testFitsWithin() {
+    final Component component = text("CAT").append(text("CAT", Style.style(TextDecoration.BOLD)));
+    assertTrue(TruncateAPI.fitsWithin(component, 39));
+    assertFalse(TruncateAPI.fitsWithin(component, 38));
+    assertTrue(TruncateAPI.fitsWithin(Component.empty(), 0));
+  }
+
+  @Test
+  public void testFittingComponentIsUnchanged() {
+    final Component component = text("CAT", NamedTextColor.RED);
+    assertSame(component, TruncateAPI.truncate(component, 18));
+  }
+
+  @Test
+  public void testTruncate() {
+    final Component component = text("CATS", NamedTextColor.RED).append(text(" AND DOGS", Style.style(TextDecoration.BOLD)));
+    final Component truncated = TruncateAPI.truncate(component, this.source, 40);
+    assertEquals("CATS ...", PlainTextComponentSerializer.plainText().serialize(truncated));
+    assertTrue(this.source.width(truncated) <= 40);
+    final Component bold = truncated.children().get(1);
+    assertEquals(NamedTextColor.RED, bold.style().color());
+    assertEquals(TextDecoration.State.TRUE, bold.style().decoration(TextDecoration.BOLD));
+  }
+
+  @Test
+  public void testEllipsisTooWide() {
+    final Component truncated = TruncateAPI.truncate(text("CATS"), this.source, 12, text("......."));
+    assertEquals("CA", PlainTextComponentSerializer.plainText().serialize(truncated));
+  }
+
+  @Test
+  public void testWidthsDoNotDrift() {
+    // summed as floats, the half pixels after a 2^24 pixel wide glyph would round away
+    final PixelWidthSource source = PixelWidthSource.pixelWidth((codepoint, style) -> codepoint == 'a' ? 16777216F : 0.5F);
+    assertTrue(TruncateAPI.fitsWithin(text("abbbb"), source, 16777218F));
+    assertFalse(TruncateAPI.fitsWithin(text("abbbbbb"), source, 16777218F));
+    final Component truncated = TruncateAPI.truncate(text("abbbbbb"), source, 16777218F, text("b"));
+    assertEquals("abbbb", PlainTextComponentSerializer.plainText().serialize(truncated));
+  }
+}
@@ -0,0 +1,114 @@
+/*
+ * This file is part of pixel-width, licensed under the MIT License.
+ *
+ * Copyright (c) 2022 KingOfSquares
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package solar.squares.pixelwidth;
+
+import java.util.ArrayList;
+import java.util.List;
+import net.kyori.adventure.text.Component;
+import net.kyori.adventure.text.format.NamedTextColor;
+import net.kyori.adventure.text.format.Style;
+import net.kyori.adventure.text.format.TextDecoration;
+import net.kyori.adventure.text.serializer.plain.PlainTextComponentSerializer;
+import org.junit.jupiter.api.Test;
+import solar.squares.pixelwidth.utils.WrapAPI;
+
+import static net.kyori.adventure.text.Component.text;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class WrapTest {
+  private final PixelWidthSource source = PixelWidthSource.pixelWidth();
+
+  private static List<String> plain(final List<Component> lines) {
+    final List<String> strings = new ArrayList<>();
+    for (final Component line : lines) {
+      strings.add(PlainTextComponentSerializer.plainText().serialize(line));
+    }
+    return strings;
+  }
+
+  @Test
+  public void testGreedy() {
+    // "AAA " is 18 + 4 wide
+    final List<Component> lines = WrapAPI.wrap(text("AAA AAA AAA  AAA"), 40);
+    assertEquals(3, lines.size());
+    assertEquals("AAA AAA", plain(lines).get(0));
+    assertEquals("AAA", plain(lines).get(1));
+    assertEquals("AAA", plain(lines).get(2));
+    for (final Component line : lines) {
+      assertTrue(this.source.width(line) <= 40);
+    }
+  }
+
+  @Test
+  public void testNewlinesAndLongWords() {
+    final List<String> lines = plain(WrapAPI.wrap(text("AAAAAAAAAA\nA"), 30));
+    assertEquals(3, lines.size());
+    assertEquals("AAAAA", lines.get(0));
+    assertEquals("AAAAA", lines.get(1));
+    assertEquals("A", lines.get(2));
+  }
+
+  @Test
+  public void testStylesAcrossLines() {
+    final Component component = text("AAA ", NamedTextColor.RED).append(text("AAA AAA", Style.style(TextDecoration.BOLD)));
+    final List<Component> lines = WrapAPI.wrap(component, 50);
+    assertEquals(2, lines.size());
+    assertEquals("AAA AAA", plain(lines).get(0));
+    assertEquals("AAA", plain(lines).get(1));
+    final Component second = lines.get(1);
+    assertEquals(NamedTextColor.RED, second.style().color());
+    assertEquals(TextDecoration.State.TRUE, second.style().decoration(TextDecoration.BOLD));
+    assertEquals(21, this.source.width(second));
+  }
+
+  @Test
+  public void testBalanced() {
+    // "A" is 6 wide, a space 4
+    final Component component = text("AA A A AAAA");
+    final List<String> greedy = plain(WrapAPI.wrap(component, this.source, 30, WrapAPI.Mode.GREEDY));
+    assertEquals(3, greedy.size());
+    assertEquals("AA A", greedy.get(0));
+    assertEquals("A", greedy.get(1));
+    final List<String> balanced = plain(WrapAPI.wrap(component, this.source, 30, WrapAPI.Mode.BALANCED));
+    assertEquals(3, balanced.size());
+    assertEquals("AA", balanced.get(0));
+    assertEquals("A A", balanced.get(1));
+    assertEquals("AAAA", balanced.get(2));
+  }
+
+  @Test
+  public void testModesKeepSameWhitespace() {
+    for (final String text : new String[] {"  AAA AAA", "AAA\n  AAA  AAA", "   ", "AAA AAA\n\n AAAAAAAAAA"}) {
+      final Component component = text(text);
+      for (final float width : new float[] {30, 50, 1000}) {
+        final List<String> greedy = plain(WrapAPI.wrap(component, this.source, width, WrapAPI.Mode.GREEDY));
+        final List<String> balanced = plain(WrapAPI.wrap(component, this.source, width, WrapAPI.Mode.BALANCED));
+        assertEquals(String.join("", greedy).replace(" ", ""), String.join("", balanced).replace(" ", ""), text);
+        assertEquals(greedy.get(0).length() - greedy.get(0).trim().length(), balanced.get(0).length() - balanced.get(0).trim().length(), text);
+      }
+      assertEquals(plain(WrapAPI.wrap(component, this.source, 1000, WrapAPI.Mode.GREEDY)), plain(WrapAPI.wrap(component, this.source, 1000, WrapAPI.Mode.BALANCED)));
+    }
+  }
+}